@@ -0,0 +1,30 @@
+package fr.lsinquin.postit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup of the application, see the cds Maven profile building an AppCDS archive of the classes loaded at startup.
+ */
+@Configuration
+@Slf4j
+public class StartupConfig {
+
+    /**
+     * Exits as soon as the application is started, for the training run of the AppCDS archive (cds Maven profile).
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "postit.startup", name = "exit-on-ready", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+        return event -> {
+            log.info("Application started, exiting (postit.startup.exit-on-ready)");
+
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package fr.lsinquin.postit.api.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of the buffers holding the first bytes of a response, see {@link CompressingResponseWrapper}.
+ * Reusing them avoids allocating a buffer of min-response-size bytes per request.
+ * When the pool is empty a new buffer is created, when it is full a released buffer is left to the garbage collector.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+
+    private final BlockingQueue<byte[]> idle;
+
+    public BufferPool(int bufferSize, int size) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, size));
+    }
+
+    /**
+     * @return Size of the buffers
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Borrows a buffer. It must be given back with {@link #release(byte[])}.
+     * @return a buffer of {@link #getBufferSize()} bytes
+     */
+    public byte[] borrow() {
+        byte[] buffer = idle.poll();
+
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    /**
+     * Gives back a borrowed buffer.
+     * @param buffer the borrowed buffer
+     */
+    public void release(byte[] buffer) {
+        idle.offer(buffer);
+    }
+}
@@ -0,0 +1,434 @@
+package fr.lsinquin.postit.api.compression;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Response wrapper gzipping the body when it is worth it.
+ * The first bytes of the body are buffered. Once {@link CompressionProperties#getMinResponseSize() min-response-size} bytes are written, the body is
+ * compressed if its content type is compressible. Smaller bodies are sent as is, with their Content-Length.
+ * The buffer is borrowed from a {@link BufferPool} on the first write and given back as soon as the decision is made.
+ * Once compressing, the response behaves as a committed one : it can no longer be reset.
+ * The buffer and the deflater are only given back once no write is in progress : an async response timing out while another thread writes it
+ * is marked closed, and the pooled objects are released by the last write, the following ones failing.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum State { BUFFERING, COMPRESSING, PASS_THROUGH }
+
+    private final List<MediaType> compressibleTypes;
+
+    private final BufferPool bufferPool;
+
+    private final DeflaterPool deflaterPool;
+
+    private byte[] buffer;
+
+    private int buffered;
+
+    private State state = State.BUFFERING;
+
+    /**
+     * Content length set by the application while buffering. Only applied if the body ends up not compressed.
+     */
+    private long contentLength = -1;
+
+    private GzipDeflaterOutputStream gzipStream;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    /**
+     * Number of writes, flushes and finishes in progress
+     */
+    private final AtomicInteger activeWrites = new AtomicInteger();
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    CompressingResponseWrapper(HttpServletResponse response, List<MediaType> compressibleTypes, BufferPool bufferPool, DeflaterPool deflaterPool) {
+        super(response);
+        this.compressibleTypes = compressibleTypes;
+        this.bufferPool = bufferPool;
+        this.deflaterPool = deflaterPool;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new CompressingServletOutputStream();
+        }
+
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (state == State.PASS_THROUGH) {
+            super.setContentLengthLong(len);
+        } else if (state == State.BUFFERING) {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+
+        // While buffering, flushing would commit the response before knowing whether it is compressed
+        if (state != State.BUFFERING) {
+            getOutputStream().flush();
+            super.flushBuffer();
+        }
+    }
+
+    /**
+     * @return True if the underlying response is committed or if the body is being compressed
+     */
+    @Override
+    public boolean isCommitted() {
+        return state == State.COMPRESSING || super.isCommitted();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalStateException If the body is being compressed : part of it may already be in the deflater or on the wire
+     */
+    @Override
+    public void resetBuffer() {
+        checkNotCompressing();
+        super.resetBuffer();
+        buffered = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalStateException If the body is being compressed : part of it may already be in the deflater or on the wire
+     */
+    @Override
+    public void reset() {
+        checkNotCompressing();
+        super.reset();
+        buffered = 0;
+        contentLength = -1;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        checkNotCompressing();
+        passThroughDiscardingBuffer();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        checkNotCompressing();
+        passThroughDiscardingBuffer();
+        super.sendError(sc);
+    }
+
+    /**
+     * Completes the response : writes what is still buffered or finishes the gzip stream.
+     * @throws IOException {@inheritDoc}
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+
+        enter();
+
+        try {
+            if (state == State.BUFFERING) {
+                // The whole body is smaller than the threshold
+                passThrough();
+                setContentLengthLong(contentLength >= 0 ? contentLength : buffered);
+                writeBuffered(getResponse().getOutputStream());
+            } else if (state == State.COMPRESSING) {
+                gzipStream.finish();
+            }
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Closes the response : the following writes fail. The buffer and the deflater, if the response was not finished, are given back to their pools
+     * now if no write is in progress, by the write in progress otherwise.
+     */
+    void release() {
+        closed = true;
+
+        if (activeWrites.get() == 0) {
+            releasePooled();
+        }
+    }
+
+    private void enter() throws IOException {
+        activeWrites.incrementAndGet();
+
+        if (closed) {
+            exit();
+
+            throw new IOException("The response is closed");
+        }
+    }
+
+    private void exit() {
+        if (activeWrites.decrementAndGet() == 0 && closed) {
+            releasePooled();
+        }
+    }
+
+    private void releasePooled() {
+        if (released.compareAndSet(false, true)) {
+            releaseBuffer();
+
+            if (gzipStream != null) {
+                gzipStream.abandon();
+            }
+        }
+    }
+
+    private void write(int b) throws IOException {
+        enter();
+
+        try {
+            writeByte(b);
+        } finally {
+            exit();
+        }
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        enter();
+
+        try {
+            writeBytes(b, off, len);
+        } finally {
+            exit();
+        }
+    }
+
+    private void flush() throws IOException {
+        enter();
+
+        try {
+            if (state == State.COMPRESSING) {
+                gzipStream.flush();
+            } else if (state == State.PASS_THROUGH) {
+                getResponse().getOutputStream().flush();
+            }
+        } finally {
+            exit();
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (state == State.BUFFERING) {
+            if (buffered < bufferPool.getBufferSize()) {
+                borrowBuffer()[buffered++] = (byte) b;
+                return;
+            }
+
+            decide();
+        }
+
+        if (state == State.COMPRESSING) {
+            gzipStream.write(b);
+        } else {
+            getResponse().getOutputStream().write(b);
+        }
+    }
+
+    private void writeBytes(byte[] b, int off, int len) throws IOException {
+        if (state == State.BUFFERING) {
+            if (buffered + len <= bufferPool.getBufferSize()) {
+                System.arraycopy(b, off, borrowBuffer(), buffered, len);
+                buffered += len;
+                return;
+            }
+
+            decide();
+        }
+
+        if (state == State.COMPRESSING) {
+            gzipStream.write(b, off, len);
+        } else {
+            getResponse().getOutputStream().write(b, off, len);
+        }
+    }
+
+    /**
+     * Decides whether the body, which is bigger than the threshold, is compressed and writes the buffered bytes accordingly.
+     * @throws IOException {@inheritDoc}
+     */
+    private void decide() throws IOException {
+        if (isCompressible()) {
+            state = State.COMPRESSING;
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            gzipStream = new GzipDeflaterOutputStream(getResponse().getOutputStream(), deflaterPool);
+            writeBuffered(gzipStream);
+        } else {
+            passThrough();
+
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+
+            writeBuffered(getResponse().getOutputStream());
+        }
+    }
+
+    private boolean isCompressible() {
+        String contentType = getContentType();
+
+        if (contentType == null || containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return false;
+        }
+
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+
+        return compressibleTypes.stream().anyMatch(type -> type.includes(mediaType));
+    }
+
+    private void passThrough() {
+        state = State.PASS_THROUGH;
+    }
+
+    private void passThroughDiscardingBuffer() {
+        if (state == State.BUFFERING) {
+            buffered = 0;
+            releaseBuffer();
+            passThrough();
+        }
+    }
+
+    private void checkNotCompressing() {
+        if (state == State.COMPRESSING) {
+            throw new IllegalStateException("Cannot reset a response whose body is being compressed");
+        }
+    }
+
+    /**
+     * Writes the buffered bytes, then gives the buffer back : once the decision is made, nothing is buffered anymore.
+     * @param out Gzip stream or underlying output stream
+     * @throws IOException {@inheritDoc}
+     */
+    private void writeBuffered(OutputStream out) throws IOException {
+        if (buffered > 0) {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+        }
+
+        releaseBuffer();
+    }
+
+    private byte[] borrowBuffer() {
+        if (buffer == null) {
+            buffer = bufferPool.borrow();
+        }
+
+        return buffer;
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private class CompressingServletOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            CompressingResponseWrapper.this.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CompressingResponseWrapper.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            CompressingResponseWrapper.this.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return getResponse().getOutputStream().isReady();
+            } catch (IOException exception) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+}
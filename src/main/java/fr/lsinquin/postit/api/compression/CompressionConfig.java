@@ -0,0 +1,46 @@
+package fr.lsinquin.postit.api.compression;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+
+/**
+ * Registers the {@link CompressionFilter} when postit.compression.enabled is true (default).
+ * Tomcat's own compression (server.compression.enabled) must stay disabled.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "postit.compression", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionConfig {
+
+    @Bean
+    public DeflaterPool deflaterPool(CompressionProperties compressionProperties) {
+        return new DeflaterPool(compressionProperties.getLevel(), compressionProperties.getPoolSize());
+    }
+
+    @Bean
+    public BufferPool compressionBufferPool(CompressionProperties compressionProperties) {
+        return new BufferPool((int) compressionProperties.getMinResponseSize().toBytes(), compressionProperties.getPoolSize());
+    }
+
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilter(CompressionProperties compressionProperties, BufferPool compressionBufferPool, DeflaterPool deflaterPool) {
+        CompressionFilter filter = new CompressionFilter(
+                MediaType.parseMediaTypes(compressionProperties.getMimeTypes()),
+                compressionBufferPool,
+                deflaterPool
+        );
+
+        FilterRegistrationBean<CompressionFilter> registration = new FilterRegistrationBean<>(filter);
+        // Outside of the security filter chain so that every response can be compressed
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+
+        return registration;
+    }
+}
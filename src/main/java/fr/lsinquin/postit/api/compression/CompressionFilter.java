@@ -0,0 +1,133 @@
+package fr.lsinquin.postit.api.compression;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Filter gzipping the responses of clients accepting it.
+ * Only bodies of a compressible media type and bigger than the configured threshold are compressed. See {@link CompressingResponseWrapper}.
+ */
+@RequiredArgsConstructor
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final List<MediaType> compressibleTypes;
+
+    private final BufferPool bufferPool;
+
+    private final DeflaterPool deflaterPool;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
+        // Also sent to the clients not accepting gzip : a cache must not serve them a response compressed for another client
+        httpServletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (!acceptsGzip(httpServletRequest)) {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(httpServletResponse, compressibleTypes, bufferPool, deflaterPool);
+
+        boolean completed = false;
+
+        try {
+            filterChain.doFilter(httpServletRequest, wrapper);
+
+            if (httpServletRequest.isAsyncStarted()) {
+                // The body is written by another thread : the response is finished once the async processing completes
+                httpServletRequest.getAsyncContext().addListener(new FinishingAsyncListener(wrapper));
+                completed = true;
+                return;
+            }
+
+            wrapper.finish();
+            completed = true;
+        } finally {
+            if (!completed) {
+                wrapper.release();
+            }
+        }
+    }
+
+    /**
+     * Checks if the client accepts gzip encoded responses.
+     * @param request Current HTTP request
+     * @return True if the Accept-Encoding header contains gzip (or *) with a non zero quality. False otherwise
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+
+                if ((name.equalsIgnoreCase("gzip") || name.equals("*")) && !hasZeroQuality(parts)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hasZeroQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException exception) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @RequiredArgsConstructor
+    private static class FinishingAsyncListener implements AsyncListener {
+
+        private final CompressingResponseWrapper wrapper;
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            try {
+                wrapper.finish();
+            } finally {
+                wrapper.release();
+            }
+        }
+
+        /**
+         * The writer thread may still be writing : the pooled objects are given back once its write is done.
+         */
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            wrapper.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            wrapper.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
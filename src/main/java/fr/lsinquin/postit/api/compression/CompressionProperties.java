@@ -0,0 +1,51 @@
+package fr.lsinquin.postit.api.compression;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Response compression configuration, bound to the postit.compression properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.compression")
+public class CompressionProperties {
+
+    /**
+     * Enables the gzip compression of responses.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Responses smaller than this size are sent uncompressed.
+     */
+    @NotNull
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    /**
+     * Deflate compression level, from 1 (fastest) to 9 (smallest).
+     */
+    @Min(1)
+    @Max(9)
+    private int level = 5;
+
+    /**
+     * Compressed media types. Parameters (charset, etc.) are ignored.
+     */
+    @NotEmpty
+    private List<String> mimeTypes = List.of("application/json", "application/x-ndjson");
+
+    /**
+     * Maximum number of idle deflaters, and of idle buffers of min-response-size bytes, kept for reuse.
+     */
+    @Min(0)
+    private int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+}
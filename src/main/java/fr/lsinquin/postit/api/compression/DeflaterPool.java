@@ -0,0 +1,68 @@
+package fr.lsinquin.postit.api.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of deflaters.
+ * A Deflater holds a native zlib stream of a few hundred kilobytes : reusing them avoids allocating and freeing one per compressed response.
+ * When the pool is empty a new deflater is created, when it is full a released deflater is ended.
+ */
+public class DeflaterPool {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+
+    private final BlockingQueue<PooledDeflater> idle;
+
+    public DeflaterPool(int level, int size) {
+        this.level = level;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, size));
+    }
+
+    /**
+     * Borrows a deflater. It must be given back with {@link #release(PooledDeflater)}.
+     * @return a reset deflater
+     */
+    public PooledDeflater borrow() {
+        PooledDeflater pooled = idle.poll();
+
+        return pooled != null ? pooled : new PooledDeflater(level);
+    }
+
+    /**
+     * Gives back a borrowed deflater.
+     * @param pooled the borrowed deflater
+     */
+    public void release(PooledDeflater pooled) {
+        pooled.reset();
+
+        if (!idle.offer(pooled)) {
+            pooled.deflater.end();
+        }
+    }
+
+    /**
+     * Raw deflater along with the state needed to produce a gzip stream : the CRC of the uncompressed data, an output buffer
+     * and a one byte input buffer for single byte writes.
+     */
+    public static class PooledDeflater {
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final byte[] single = new byte[1];
+
+        PooledDeflater(int level) {
+            // nowrap : the gzip header and trailer are written by GzipDeflaterOutputStream
+            this.deflater = new Deflater(level, true);
+        }
+
+        void reset() {
+            deflater.reset();
+            crc.reset();
+        }
+    }
+}
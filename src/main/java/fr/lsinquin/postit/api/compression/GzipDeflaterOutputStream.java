@@ -0,0 +1,141 @@
+package fr.lsinquin.postit.api.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip (RFC 1952) output stream compressing with a deflater borrowed from a {@link DeflaterPool}.
+ * Unlike {@link java.util.zip.GZIPOutputStream}, it neither creates a Deflater nor a buffer.
+ * The deflater goes back to the pool when the stream is finished, closed or abandoned.
+ */
+public class GzipDeflaterOutputStream extends OutputStream {
+
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b,  // magic number
+            Deflater.DEFLATED,  // compression method
+            0,                  // flags
+            0, 0, 0, 0,         // modification time
+            0,                  // extra flags
+            (byte) 0xff         // unknown OS
+    };
+
+    private final OutputStream out;
+
+    private final DeflaterPool deflaterPool;
+
+    private DeflaterPool.PooledDeflater pooled;
+
+    public GzipDeflaterOutputStream(OutputStream out, DeflaterPool deflaterPool) throws IOException {
+        this.out = out;
+        this.deflaterPool = deflaterPool;
+        this.pooled = deflaterPool.borrow();
+
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+
+        pooled.single[0] = (byte) b;
+        write(pooled.single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+
+        if (len == 0) {
+            return;
+        }
+
+        pooled.crc.update(b, off, len);
+        pooled.deflater.setInput(b, off, len);
+
+        while (!pooled.deflater.needsInput()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * Flushes the data compressed so far (SYNC_FLUSH) so that the client can decompress it without waiting for the end of the stream.
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        if (pooled != null) {
+            int length;
+
+            do {
+                length = deflate(Deflater.SYNC_FLUSH);
+            } while (length == pooled.buffer.length);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining compressed data and the gzip trailer without closing the underlying stream.
+     * @throws IOException {@inheritDoc}
+     */
+    public void finish() throws IOException {
+        if (pooled == null) {
+            return;
+        }
+
+        Deflater deflater = pooled.deflater;
+        deflater.finish();
+
+        while (!deflater.finished()) {
+            deflate(Deflater.NO_FLUSH);
+        }
+
+        writeIntLE((int) pooled.crc.getValue());
+        writeIntLE((int) deflater.getBytesRead());
+
+        abandon();
+    }
+
+    /**
+     * Gives the deflater back to the pool without writing anything more. Used when the response failed.
+     */
+    public void abandon() {
+        if (pooled != null) {
+            deflaterPool.release(pooled);
+            pooled = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private int deflate(int flush) throws IOException {
+        int length = pooled.deflater.deflate(pooled.buffer, 0, pooled.buffer.length, flush);
+
+        if (length > 0) {
+            out.write(pooled.buffer, 0, length);
+        }
+
+        return length;
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (pooled == null) {
+            throw new IOException("Gzip stream already finished");
+        }
+    }
+}
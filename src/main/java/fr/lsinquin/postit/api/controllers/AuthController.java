@@ -1,10 +1,17 @@
 package fr.lsinquin.postit.api.controllers;
 
+import fr.lsinquin.postit.domain.dtos.RefreshTokenRequest;
 import fr.lsinquin.postit.domain.dtos.UserRequest;
 import fr.lsinquin.postit.api.security.CustomUserDetails;
 import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.api.security.LoginThrottle;
+import fr.lsinquin.postit.api.security.TokenRevocationList;
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.services.RefreshTokenService;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,55 +19,131 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
 
+    /**
+     * Response header carrying the refresh token
+     */
+    public static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
+
     private final JwtTokenUtil jwtTokenUtil;
 
+    private final RefreshTokenService refreshTokenService;
+
+    private final TokenRevocationList tokenRevocationList;
+
     private final AuthenticationManager authenticationManager;
 
+    private final LoginThrottle loginThrottle;
+
     /**
      * POST /login endpoint.
-     * It logs in a user retrieving a JWT to use.
+     * It logs in a user retrieving a short-lived JWT to use, and a refresh token in the Refresh-Token header to get the next ones.
+     * Attempts blocked by the {@link LoginThrottle} after too many failures are answered with a 429, without the password being verified.
      * @param userDto {@link fr.lsinquin.postit.domain.dtos.UserRequest UserRequest} representing the parsed payload
+     * @param request Current HTTP request, giving the client address
      * @return String representing a JWT.
      */
     @PostMapping("login")
-    public ResponseEntity<String> login(@Valid @RequestBody UserRequest userDto) {
+    public ResponseEntity<String> login(@Valid @RequestBody UserRequest userDto, HttpServletRequest request) {
         log.info("Handling login request");
 
-        try {
-            UserDetails userDetails = authenticateUser(userDto.getMail(), userDto.getPassword());
+        long blockedFor = loginThrottle.blockedFor(userDto.getMail(), request.getRemoteAddr());
 
-            String token = jwtTokenUtil.generateAccessToken(userDetails.getUsername());
+        if (blockedFor > 0) {
+            log.debug("Login attempt blocked for {} ms", blockedFor);
 
-            return ResponseEntity.ok()
-                    .header(
-                            HttpHeaders.AUTHORIZATION,
-                            token
-                    )
-                    .body(token);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(blockedFor + 999)))
+                    .build();
+        }
+
+        try {
+            User user = authenticateUser(userDto.getMail(), userDto.getPassword());
+            loginThrottle.recordSuccess(userDto.getMail());
+
+            return tokensResponse(user, refreshTokenService.createRefreshToken(user));
         } catch (BadCredentialsException exception) {
             log.debug("Authentication failed with message : {}", exception.getMessage());
+            loginThrottle.recordFailure(userDto.getMail(), request.getRemoteAddr());
 
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
 
-    private UserDetails authenticateUser(String mail, String password) throws BadCredentialsException {
+    /**
+     * POST /token/refresh endpoint.
+     * It exchanges a refresh token for a new JWT and a new refresh token. The given refresh token cannot be used again.
+     * @param refreshTokenRequest {@link fr.lsinquin.postit.domain.dtos.RefreshTokenRequest RefreshTokenRequest} representing the parsed payload
+     * @return String representing a JWT. 401 if the refresh token is unknown, already used or expired
+     */
+    @PostMapping("token/refresh")
+    public ResponseEntity<String> refresh(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        log.info("Handling token refresh request");
+
+        return refreshTokenService.rotate(refreshTokenRequest.getRefreshToken())
+                .map(rotation -> tokensResponse(rotation.getUser(), rotation.getRefreshToken()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+    /**
+     * POST /logout endpoint.
+     * It revokes the JWT of the request until its expiration, and the refresh token given in the payload if any.
+     * A JWT without id (jti claim), issued before the revocation support or by another signer, cannot be revoked : it stays valid until it expires.
+     * @param authorization Authorization header of the request, holding the JWT
+     * @param refreshTokenRequest {@link fr.lsinquin.postit.domain.dtos.RefreshTokenRequest RefreshTokenRequest} representing the optional parsed payload
+     * @return Empty response
+     */
+    @PostMapping("logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @Valid @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest) {
+        log.info("Handling logout request");
+
+        Claims claims = jwtTokenUtil.getValidClaims(JwtTokenUtil.extractBearerToken(authorization));
+
+        if (claims != null && claims.getId() != null) {
+            tokenRevocationList.revoke(claims.getId(), claims.getExpiration().toInstant());
+        } else if (claims != null) {
+            log.debug("Access token of {} without id : not revoked", claims.getSubject());
+        }
+
+        if (refreshTokenRequest != null) {
+            refreshTokenService.revoke(refreshTokenRequest.getRefreshToken());
+        }
+
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<String> tokensResponse(User user, String refreshToken) {
+        String token = jwtTokenUtil.generateAccessToken(user.getMail());
+
+        return ResponseEntity.ok()
+                .header(
+                        HttpHeaders.AUTHORIZATION,
+                        token
+                )
+                .header(REFRESH_TOKEN_HEADER, refreshToken)
+                .body(token);
+    }
+
+    private User authenticateUser(String mail, String password) throws BadCredentialsException {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(mail, password);
 
         Authentication authenticate = authenticationManager.authenticate(authenticationToken);
 
-        return (CustomUserDetails) authenticate.getPrincipal();
+        return ((CustomUserDetails) authenticate.getPrincipal()).getUser();
     }
 }
@@ -9,10 +9,12 @@ import fr.lsinquin.postit.domain.exceptions.AuthorizationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.Collections;
 import java.util.List;
@@ -38,12 +40,21 @@ public class ErrorControllerAdvice {
         log.debug("A MethodArgumentNotValidException has been raised. Sending appropriate response");
         log.debug("Exception message : {}", exception.getMessage());
 
-        List<FieldErrorDetail> details = exception.getFieldErrors()
-                .stream()
-                .map(error -> new FieldErrorDetail(error.getDefaultMessage(), error.getField()))
-                .collect(Collectors.toList());
+        return validationErrorResponse(exception);
+    }
 
-        return new ErrorResponse(true, ErrorCode.ERR_INPUT_VALIDATION, details);
+    /**
+     * WebExchangeBindExceptions handling method. It's the reactive stack counterpart of MethodArgumentNotValidException.
+     * @param exception instance of WebExchangeBindException raised
+     * @return a 400 HTTP response supported by an instance of ErrorResponse specifying the error code (ERR_INPUT_VALIDATION) and validation details
+     */
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ErrorResponse handleReactiveValidationExceptions(WebExchangeBindException exception) {
+        log.debug("A WebExchangeBindException has been raised. Sending appropriate response");
+        log.debug("Exception message : {}", exception.getMessage());
+
+        return validationErrorResponse(exception);
     }
 
     /**
@@ -85,4 +96,13 @@ public class ErrorControllerAdvice {
 
         return new ErrorResponse(true, ErrorCode.ERR_EXISTING_USER, details);
     }
+
+    private ErrorResponse validationErrorResponse(BindingResult bindingResult) {
+        List<FieldErrorDetail> details = bindingResult.getFieldErrors()
+                .stream()
+                .map(error -> new FieldErrorDetail(error.getDefaultMessage(), error.getField()))
+                .collect(Collectors.toList());
+
+        return new ErrorResponse(true, ErrorCode.ERR_INPUT_VALIDATION, details);
+    }
 }
@@ -0,0 +1,43 @@
+package fr.lsinquin.postit.api.controllers;
+
+import fr.lsinquin.postit.api.security.JwtKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Publishes the public keys of the JWT signatures. It only uses the {@link JwtKeys}, and is shared by the servlet and reactive stacks.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class JwksController {
+
+    /**
+     * How long the clients may cache the key set. A new key must be published for at least this long before it signs tokens.
+     */
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final JwtKeys jwtKeys;
+
+    /**
+     * GET /.well-known/jwks.json endpoint.
+     * It retrieves the JSON Web Key Set of the EC public keys, for other services and gateways to verify the tokens locally.
+     * @return JSON Web Key Set. Its keys list is empty when only HMAC keys are used
+     */
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getJsonWebKeySet() {
+        log.info("Handling JWKS request");
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(MAX_AGE).cachePublic())
+                .body(jwtKeys.getJsonWebKeySet());
+    }
+}
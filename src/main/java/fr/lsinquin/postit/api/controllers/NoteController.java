@@ -1,44 +1,87 @@
 package fr.lsinquin.postit.api.controllers;
 
+import com.fasterxml.jackson.databind.SequenceWriter;
+import fr.lsinquin.postit.api.serializers.SequenceResponseWriter;
+import fr.lsinquin.postit.domain.dtos.NoteBatchDeleteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchPatchRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchResult;
+import fr.lsinquin.postit.domain.dtos.NotePatchRequest;
 import fr.lsinquin.postit.domain.dtos.NoteRequest;
 import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
 import fr.lsinquin.postit.domain.entities.Note;
 import fr.lsinquin.postit.api.security.CustomUserDetails;
 import fr.lsinquin.postit.services.NoteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import static java.util.stream.Collectors.toList;
-
 @RestController
 @RequestMapping("/notes")
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class NoteController {
 
     private final NoteService noteService;
 
+    private final SequenceResponseWriter sequenceResponseWriter;
+
     /**
      * Secured GET /notes endpoint.
-     * It retrieves authenticated user's notes
+     * It retrieves authenticated user's notes.
+     * The notes are written to the response one by one while they are read from the database, the list is never materialized.
      * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
-     * @return List of {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}
+     * @param request request holding the Accept header
+     * @param response response in which the array of {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} is written
+     * @throws HttpMediaTypeNotAcceptableException if no wire format matches the Accept header
+     * @throws IOException if the response can't be written
      */
     @GetMapping()
-    public List<NoteResponse> getNotesByUser(@AuthenticationPrincipal CustomUserDetails userDetails) {
+    public void getNotesByUser(@AuthenticationPrincipal CustomUserDetails userDetails, HttpServletRequest request, HttpServletResponse response) throws HttpMediaTypeNotAcceptableException, IOException {
         log.info("Handling getting user's notes");
 
-        List<Note> notes = noteService.findUserNotes(userDetails.getUser());
+        try (SequenceWriter sequenceWriter = sequenceResponseWriter.writeValuesAsArray(request, response, NoteResponse.class)) {
+            noteService.forEachUserNote(userDetails.getUser(), note -> writeValue(sequenceWriter, note));
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
 
-        return notes.stream()
-                .map(this::convertNoteToNoteResponse)
-                .collect(toList());
+    /**
+     * Secured GET /notes?view=summary endpoint.
+     * It retrieves the summaries of authenticated user's notes : the contents are reduced to a preview and a length, the full contents come from GET /notes/:id.
+     * The summaries are written to the response one by one while they are read from the database.
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param request request holding the Accept header
+     * @param response response in which the array of {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse} is written
+     * @throws HttpMediaTypeNotAcceptableException if no wire format matches the Accept header
+     * @throws IOException if the response can't be written
+     */
+    @GetMapping(params = "view=summary")
+    public void getNoteSummariesByUser(@AuthenticationPrincipal CustomUserDetails userDetails, HttpServletRequest request, HttpServletResponse response) throws HttpMediaTypeNotAcceptableException, IOException {
+        log.info("Handling getting user's note summaries");
+
+        try (SequenceWriter sequenceWriter = sequenceResponseWriter.writeValuesAsArray(request, response, NoteSummaryResponse.class)) {
+            noteService.forEachUserNoteSummary(userDetails.getUser(), summary -> writeValue(sequenceWriter, summary));
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
     }
 
     /**
@@ -74,6 +117,25 @@ public class NoteController {
         return convertNoteToNoteResponse(note);
     }
 
+    /**
+     * Secured GET /notes/:id/content endpoint.
+     * It retrieves the content of a specific note as plain text. Range requests are supported : the ranges are byte offsets in the UTF-8 content.
+     * A content stored as chunks is streamed chunk by chunk, only the chunks overlapping the requested ranges are read.
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the wanted note
+     * @return {@link org.springframework.core.io.Resource Resource} of the content
+     */
+    @GetMapping("/{id}/content")
+    public ResponseEntity<Resource> getNoteContentById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id) {
+        log.info("Handling getting the content of a specific note");
+
+        Resource content = noteService.findNoteContent(userDetails.getUser(), id);
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(content);
+    }
+
     /**
      * Secured PUT /notes/:id endpoint.
      * It modifies a specific note
@@ -91,6 +153,23 @@ public class NoteController {
         return convertNoteToNoteResponse(savedNote);
     }
 
+    /**
+     * Secured PATCH /notes/:id endpoint.
+     * It modifies the fields of a specific note present in a JSON Merge Patch, the other ones are kept
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the to be modified note
+     * @param patchDto {@link fr.lsinquin.postit.domain.dtos.NotePatchRequest NotePatchRequest} representing the parsed payload
+     * @return {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} representing the modified note
+     */
+    @PatchMapping(value = "/{id}", consumes = { NotePatchRequest.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE })
+    public NoteResponse patchNoteById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id, @Valid @RequestBody NotePatchRequest patchDto) {
+        log.info("Handling patching a specific note");
+
+        Note savedNote = noteService.patchNote(userDetails.getUser(), id, patchDto.getPatchedTitle(), patchDto.getPatchedContent());
+
+        return convertNoteToNoteResponse(savedNote);
+    }
+
     /**
      * Secured DELETE /notes/:id endpoint.
      * It deletes a specific note
@@ -104,6 +183,47 @@ public class NoteController {
         noteService.deleteNote(userDetails.getUser(), id);
     }
 
+    /**
+     * Secured POST /notes/batch-delete endpoint.
+     * It deletes several notes of the authenticated user at once
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param batchDto {@link fr.lsinquin.postit.domain.dtos.NoteBatchDeleteRequest NoteBatchDeleteRequest} representing the parsed payload
+     * @return List of {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult NoteBatchResult}, one per id
+     */
+    @PostMapping("/batch-delete")
+    public List<NoteBatchResult> batchDeleteNotes(@AuthenticationPrincipal CustomUserDetails userDetails, @Valid @RequestBody NoteBatchDeleteRequest batchDto) {
+        log.info("Handling deleting a batch of notes");
+
+        return noteService.deleteNotes(userDetails.getUser(), batchDto.getIds());
+    }
+
+    /**
+     * Secured PATCH /notes endpoint.
+     * It sets the same title and/or content to several notes of the authenticated user at once
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param batchDto {@link fr.lsinquin.postit.domain.dtos.NoteBatchPatchRequest NoteBatchPatchRequest} representing the parsed payload
+     * @return List of {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult NoteBatchResult}, one per id
+     */
+    @PatchMapping()
+    public List<NoteBatchResult> batchPatchNotes(@AuthenticationPrincipal CustomUserDetails userDetails, @Valid @RequestBody NoteBatchPatchRequest batchDto) {
+        log.info("Handling patching a batch of notes");
+
+        return noteService.modifyNotes(userDetails.getUser(), batchDto.getIds(), batchDto.getTitle(), batchDto.getContent());
+    }
+
+    /**
+     * Writes a single element of a streamed array.
+     * @param sequenceWriter writer of the response array
+     * @param value {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} or {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse} to write
+     */
+    private void writeValue(SequenceWriter sequenceWriter, Object value) {
+        try {
+            sequenceWriter.write(value);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
     /**
      * Mapper between a {@link fr.lsinquin.postit.domain.entities.Note Note entity} and a {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}
      * @param note {@link fr.lsinquin.postit.domain.entities.Note Note entity}
@@ -0,0 +1,44 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Registers the {@link IdempotencyFilter} when postit.idempotency.enabled is true (default), with the store selected by postit.idempotency.store.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "postit.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "postit.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+    public IdempotencyStore memoryIdempotencyStore(IdempotencyProperties idempotencyProperties) {
+        return new MemoryIdempotencyStore(idempotencyProperties.getTtl(), idempotencyProperties.getMaxEntries(), idempotencyProperties.getLockTimeout());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "postit.idempotency", name = "store", havingValue = "jdbc")
+    public IdempotencyStore jdbcIdempotencyStore(IdempotencyProperties idempotencyProperties, JdbcTemplate jdbcTemplate) {
+        return new JdbcIdempotencyStore(jdbcTemplate, idempotencyProperties.getTtl(), idempotencyProperties.getLockTimeout());
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyProperties idempotencyProperties, IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyStore, idempotencyProperties.getPaths(), idempotencyProperties.getMaxKeyLength(), objectMapper);
+
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(filter);
+        // After the security filter chain : keys are scoped to the authenticated user, and unauthenticated requests never reach the store
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 10);
+
+        return registration;
+    }
+}
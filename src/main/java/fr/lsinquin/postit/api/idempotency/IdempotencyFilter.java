@@ -0,0 +1,167 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.domain.dtos.ErrorCode;
+import fr.lsinquin.postit.domain.dtos.ErrorResponse;
+import fr.lsinquin.postit.domain.exceptions.IdempotencyKeyInUseException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filter making the POST requests sent with an Idempotency-Key header safe to retry.
+ * The first request with a key is processed and its response recorded in the {@link IdempotencyStore}. The retries get the recorded response back,
+ * with an Idempotent-Replayed header, without the request being processed again. The duplicates received while the first request is processed wait for its response.
+ * Keys are scoped to the authenticated user and the endpoint. Reusing a key with another body is answered with a 422.
+ * Anonymous callers (registration) cannot be told apart : their keys are also scoped to the request body, so that two of them sending the same key
+ * never get each other's response, and a key reused with another body starts a new request.
+ * Server errors (5xx) are not recorded : the key is released and the request can be retried.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private final IdempotencyStore idempotencyStore;
+
+    private final List<String> paths;
+
+    private final int maxKeyLength;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !paths.contains(URL_PATH_HELPER.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = httpServletRequest.getHeader(IDEMPOTENCY_KEY_HEADER);
+
+        if (idempotencyKey == null) {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            return;
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > maxKeyLength) {
+            sendError(httpServletResponse, HttpStatus.BAD_REQUEST, ErrorCode.ERR_INVALID_IDEMPOTENCY_KEY);
+            return;
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(httpServletRequest.getInputStream());
+        String fingerprint = sha256(body);
+        String key = sha256(scope(httpServletRequest, idempotencyKey, fingerprint).getBytes(StandardCharsets.UTF_8));
+
+        IdempotentResponse recorded;
+
+        try {
+            recorded = idempotencyStore.claim(key, fingerprint);
+        } catch (IdempotencyKeyInUseException exception) {
+            log.debug("Exception message : {}", exception.getMessage());
+
+            sendError(httpServletResponse, HttpStatus.CONFLICT, ErrorCode.ERR_IDEMPOTENCY_KEY_IN_USE);
+            return;
+        }
+
+        if (recorded != null) {
+            replay(recorded, fingerprint, httpServletResponse);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(httpServletResponse);
+        boolean completed = false;
+
+        try {
+            filterChain.doFilter(new CachedBodyRequestWrapper(httpServletRequest, body), responseWrapper);
+
+            if (!HttpStatus.valueOf(responseWrapper.getStatus()).is5xxServerError()) {
+                idempotencyStore.complete(key, new IdempotentResponse(fingerprint, responseWrapper.getStatus(), responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(key);
+            }
+        }
+
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void replay(IdempotentResponse recorded, String fingerprint, HttpServletResponse httpServletResponse) throws IOException {
+        if (!recorded.getFingerprint().equals(fingerprint)) {
+            sendError(httpServletResponse, HttpStatus.UNPROCESSABLE_ENTITY, ErrorCode.ERR_IDEMPOTENCY_KEY_REUSED);
+            return;
+        }
+
+        log.debug("Replaying the recorded response ({})", recorded.getStatus());
+
+        httpServletResponse.setStatus(recorded.getStatus());
+        httpServletResponse.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+
+        if (recorded.getContentType() != null) {
+            httpServletResponse.setContentType(recorded.getContentType());
+        }
+
+        httpServletResponse.setContentLength(recorded.getBody().length);
+        httpServletResponse.getOutputStream().write(recorded.getBody());
+    }
+
+    private void sendError(HttpServletResponse httpServletResponse, HttpStatus status, ErrorCode errorCode) throws IOException {
+        httpServletResponse.setStatus(status.value());
+        httpServletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(httpServletResponse.getOutputStream(), new ErrorResponse(true, errorCode, Collections.emptyList()));
+    }
+
+    /**
+     * The same key sent by two users, or to two endpoints, identifies two different requests.
+     * Anonymous requests are identified by their body instead of their user.
+     */
+    private String scope(HttpServletRequest request, String idempotencyKey, String fingerprint) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean anonymous = authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken;
+        String owner = anonymous ? "anonymous:" + fingerprint : "user:" + authentication.getName();
+
+        return owner + '\n' + URL_PATH_HELPER.getPathWithinApplication(request) + '\n' + idempotencyKey;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Idempotency-Key support configuration, bound to the postit.idempotency properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Enables the Idempotency-Key header on the configured paths.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Where the recorded responses are kept. MEMORY is local to each instance, JDBC shares them through the idempotency_key table.
+     */
+    @NotNull
+    private Store store = Store.MEMORY;
+
+    /**
+     * Time a response is replayed for after the first request completed.
+     */
+    @NotNull
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Maximum number of responses kept by the MEMORY store. The oldest ones are evicted first.
+     */
+    @Min(1)
+    private int maxEntries = 10_000;
+
+    /**
+     * Time a duplicate request waits for the request holding the same key to complete, before being answered with a 409.
+     */
+    @NotNull
+    private Duration lockTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Maximum length of the Idempotency-Key header.
+     */
+    @Min(1)
+    private int maxKeyLength = 255;
+
+    /**
+     * Paths of the POST requests accepting an Idempotency-Key.
+     */
+    @NotEmpty
+    private List<String> paths = List.of("/notes", "/users");
+
+    public enum Store {
+        MEMORY, JDBC
+    }
+}
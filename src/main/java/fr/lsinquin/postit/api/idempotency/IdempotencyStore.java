@@ -0,0 +1,34 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import fr.lsinquin.postit.domain.exceptions.IdempotencyKeyInUseException;
+
+/**
+ * Keeps the responses of the requests sent with an idempotency key.
+ * A key is first claimed by a request, then either completed with its response or released if the request failed.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims a key for the calling request. While a key is claimed, the requests claiming it again wait for its completion.
+     * If the key is released, one of the waiting requests claims it.
+     * @param key Idempotency key, scoped to the user and the endpoint
+     * @param fingerprint SHA-256 of the request body
+     * @return null if the key was claimed : the caller must then {@link #complete(String, IdempotentResponse) complete} or {@link #release(String) release} it.
+     * Otherwise the response recorded for the key
+     * @throws IdempotencyKeyInUseException if the key is still claimed by another request after the lock timeout
+     */
+    IdempotentResponse claim(String key, String fingerprint);
+
+    /**
+     * Records the response of a claimed key. It is replayed until the key expires.
+     * @param key Claimed idempotency key
+     * @param response Response to replay
+     */
+    void complete(String key, IdempotentResponse response);
+
+    /**
+     * Releases a claimed key without recording a response, so that the request can be retried.
+     * @param key Claimed idempotency key
+     */
+    void release(String key);
+}
@@ -0,0 +1,21 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import lombok.Value;
+
+/**
+ * Response recorded for an idempotency key, replayed to the retries of the request.
+ */
+@Value
+public class IdempotentResponse {
+
+    /**
+     * SHA-256 of the body of the request which produced the response. A retry with another body is rejected.
+     */
+    String fingerprint;
+
+    int status;
+
+    String contentType;
+
+    byte[] body;
+}
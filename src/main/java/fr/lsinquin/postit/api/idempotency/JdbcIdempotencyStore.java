@@ -0,0 +1,138 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import fr.lsinquin.postit.domain.exceptions.IdempotencyKeyInUseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link IdempotencyStore} backed by the idempotency_key table, shared by every instance of the application.
+ * The key is claimed by inserting its row : the primary key collapses the concurrent duplicates, which then poll the row until it is completed.
+ * A claimed row expires after twice the lock timeout : the duplicates give up waiting before, and the key of a crashed instance is eventually reclaimed.
+ * Expired rows are purged at most once per minute, by the requests claiming keys.
+ */
+@Slf4j
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Duration ttl;
+
+    private final Duration lockTimeout;
+
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, Duration ttl, Duration lockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+    }
+
+    @Override
+    public IdempotentResponse claim(String key, String fingerprint) {
+        purgeExpired();
+
+        long deadline = System.currentTimeMillis() + lockTimeout.toMillis();
+
+        while (true) {
+            Instant now = Instant.now();
+
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_key (id, fingerprint, expires_at) VALUES (?, ?, ?)",
+                        key, fingerprint, Timestamp.from(now.plus(lockTimeout.multipliedBy(2))));
+
+                return null;
+            } catch (DuplicateKeyException e) {
+                log.debug("Idempotency key {} already claimed", key);
+            }
+
+            List<StoredRow> rows = jdbcTemplate.query("SELECT fingerprint, status, content_type, body, expires_at FROM idempotency_key WHERE id = ?",
+                    (resultSet, rowNum) -> new StoredRow(
+                            new IdempotentResponse(resultSet.getString(1), resultSet.getInt(2), resultSet.getString(3), resultSet.getBytes(4)),
+                            resultSet.getObject(2) != null,
+                            resultSet.getTimestamp(5)),
+                    key);
+
+            if (rows.isEmpty()) {
+                // Released in the meantime
+                continue;
+            }
+
+            StoredRow row = rows.get(0);
+
+            if (row.expiresAt.toInstant().isBefore(now)) {
+                jdbcTemplate.update("DELETE FROM idempotency_key WHERE id = ? AND expires_at = ?", key, row.expiresAt);
+                continue;
+            }
+
+            if (row.completed) {
+                return row.response;
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IdempotencyKeyInUseException("A request with the same idempotency key is still in progress : " + key);
+            }
+
+            sleep(key);
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        jdbcTemplate.update("UPDATE idempotency_key SET status = ?, content_type = ?, body = ?, expires_at = ? WHERE id = ?",
+                response.getStatus(), response.getContentType(), response.getBody(), Timestamp.from(Instant.now().plus(ttl)), key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE id = ? AND status IS NULL", key);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long scheduled = nextPurge.get();
+
+        if (now < scheduled || !nextPurge.compareAndSet(scheduled, now + PURGE_INTERVAL_MILLIS)) {
+            return;
+        }
+
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_key WHERE expires_at < ?", Timestamp.from(Instant.ofEpochMilli(now)));
+
+        log.debug("{} expired idempotency keys purged", purged);
+    }
+
+    private void sleep(String key) {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IdempotencyKeyInUseException("Interrupted while waiting for the idempotency key " + key);
+        }
+    }
+
+    private static class StoredRow {
+
+        private final IdempotentResponse response;
+
+        private final boolean completed;
+
+        private final Timestamp expiresAt;
+
+        private StoredRow(IdempotentResponse response, boolean completed, Timestamp expiresAt) {
+            this.response = response;
+            this.completed = completed;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import fr.lsinquin.postit.domain.exceptions.IdempotencyKeyInUseException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In memory {@link IdempotencyStore}, local to the instance.
+ * A claimed key holds a future completed with the response, which the concurrent duplicates wait on.
+ * Completed keys are evicted in completion order, once expired or when there are more than maxEntries of them.
+ */
+public class MemoryIdempotencyStore implements IdempotencyStore {
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final long lockTimeoutNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Completed entries, oldest first. As the TTL is the same for every entry, it's also the expiration order.
+     */
+    private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger completionCount = new AtomicInteger();
+
+    public MemoryIdempotencyStore(Duration ttl, int maxEntries, Duration lockTimeout) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.lockTimeoutNanos = lockTimeout.toNanos();
+    }
+
+    @Override
+    public IdempotentResponse claim(String key, String fingerprint) {
+        long deadline = System.nanoTime() + lockTimeoutNanos;
+
+        while (true) {
+            Entry claimed = new Entry();
+            Entry existing = entries.putIfAbsent(key, claimed);
+
+            if (existing == null) {
+                return null;
+            }
+
+            if (existing.isExpired(System.nanoTime())) {
+                entries.remove(key, existing);
+                continue;
+            }
+
+            IdempotentResponse response = await(key, existing, deadline);
+
+            // null : the key was released, the next loop tries to claim it
+            if (response != null) {
+                return response;
+            }
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return;
+        }
+
+        entry.expiresAt = System.nanoTime() + ttlNanos;
+        entry.response.complete(response);
+
+        completions.add(new Completion(key, entry));
+        completionCount.incrementAndGet();
+
+        evict();
+    }
+
+    @Override
+    public void release(String key) {
+        Entry entry = entries.remove(key);
+
+        if (entry != null) {
+            entry.response.complete(null);
+        }
+    }
+
+    /**
+     * @return Number of keys currently claimed or completed
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private IdempotentResponse await(String key, Entry entry, long deadline) {
+        try {
+            return entry.response.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInUseException("A request with the same idempotency key is still in progress : " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IdempotencyKeyInUseException("Interrupted while waiting for the idempotency key " + key);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        Completion oldest;
+
+        while ((oldest = completions.peek()) != null && (completionCount.get() > maxEntries || oldest.entry.isExpired(now))) {
+            if (completions.remove(oldest)) {
+                completionCount.decrementAndGet();
+                entries.remove(oldest.key, oldest.entry);
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final CompletableFuture<IdempotentResponse> response = new CompletableFuture<>();
+
+        /**
+         * Set once the response is recorded. A claimed entry never expires, it is released by its request.
+         */
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt > 0;
+        }
+    }
+
+    private static class Completion {
+
+        private final String key;
+
+        private final Entry entry;
+
+        private Completion(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+}
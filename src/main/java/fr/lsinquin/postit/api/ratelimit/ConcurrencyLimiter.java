@@ -0,0 +1,48 @@
+package fr.lsinquin.postit.api.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the requests in progress of each key and rejects the ones above a maximum.
+ * Counters are updated through ConcurrentHashMap.compute, which only locks the bin of the key, and are removed once back to zero.
+ */
+public class ConcurrencyLimiter {
+
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Admits a request of a key. An admitted request must be {@link #release(String) released} once completed.
+     * @param key User or client address
+     * @param maxConcurrentRequests Maximum number of requests in progress for the key
+     * @return True if the request is admitted. False if the key already has maxConcurrentRequests requests in progress
+     */
+    public boolean tryAcquire(String key, int maxConcurrentRequests) {
+        boolean[] admitted = new boolean[1];
+
+        inFlight.compute(key, (k, count) -> {
+            int current = count == null ? 0 : count;
+            admitted[0] = current < maxConcurrentRequests;
+
+            return admitted[0] ? current + 1 : count;
+        });
+
+        return admitted[0];
+    }
+
+    /**
+     * Releases an admitted request.
+     * @param key User or client address
+     */
+    public void release(String key) {
+        inFlight.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * @param key User or client address
+     * @return Number of requests in progress for the key
+     */
+    int inFlight(String key) {
+        return inFlight.getOrDefault(key, 0);
+    }
+}
@@ -0,0 +1,42 @@
+package fr.lsinquin.postit.api.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link RateLimitFilter} when postit.rate-limit.enabled is true (default).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "postit.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties rateLimitProperties, JwtTokenUtil jwtTokenUtil, ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistry) {
+        RateLimitFilter filter = new RateLimitFilter(
+                new RateLimiter(rateLimitProperties.getMaxTrackedKeys()),
+                new ConcurrencyLimiter(),
+                rateLimitProperties,
+                jwtTokenUtil,
+                objectMapper,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new)
+        );
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        // Before the security filter chain : rejected requests do not reach the JWT verification and the user lookup of the JwtTokenFilter
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+
+        return registration;
+    }
+}
@@ -0,0 +1,168 @@
+package fr.lsinquin.postit.api.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.domain.dtos.ErrorCode;
+import fr.lsinquin.postit.domain.dtos.ErrorResponse;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter limiting the requests of each user : a token bucket bounds their rate ({@link RateLimiter}) and a counter the requests in progress ({@link ConcurrencyLimiter}).
+ * It runs before the security filter chain, so that rejected requests cost neither a JWT verification nor a user lookup.
+ * Requests bearing a JWT are identified by the subject of the token, read without verifying its signature, and by the client address :
+ * a forged token cannot use up the limits of its subject from another address. The other requests (invalid tokens) are identified by the client address,
+ * as well as the requests to the {@link RateLimitProperties#getAddressPaths() address paths} (registration, login), whatever token they bear.
+ * The specific limit of a user is only applied once the token is verified : a forged token gets the default user limit.
+ * Rejected requests get a 429 with a Retry-After header, without reaching the controllers.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RateLimiter rateLimiter;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    private final ObjectMapper objectMapper;
+
+    private final Counter rateRejections;
+
+    private final Counter concurrencyRejections;
+
+    public RateLimitFilter(RateLimiter rateLimiter, ConcurrencyLimiter concurrencyLimiter, RateLimitProperties rateLimitProperties,
+                           JwtTokenUtil jwtTokenUtil, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimitProperties = rateLimitProperties;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.objectMapper = objectMapper;
+        this.rateRejections = rejections(meterRegistry, "rate");
+        this.concurrencyRejections = rejections(meterRegistry, "concurrency");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
+        String jwt = isAddressPath(httpServletRequest) ? null : JwtTokenUtil.extractBearerToken(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION));
+        String subject = unverifiedSubject(jwt);
+        String address = httpServletRequest.getRemoteAddr();
+
+        String key = subject != null ? "user:" + subject + "@" + address : "ip:" + address;
+        RateLimitProperties.Limit limit = subject != null ? userLimit(subject, jwt) : rateLimitProperties.getAnonymous();
+
+        long waitNanos = rateLimiter.tryAcquire(key, limit.getRequestsPerSecond(), limit.getBurst());
+
+        if (waitNanos > 0) {
+            log.debug("Rate limit reached for {}", key);
+            rateRejections.increment();
+
+            reject(httpServletResponse, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire(key, limit.getMaxConcurrentRequests())) {
+            log.debug("Concurrent requests limit reached for {}", key);
+            concurrencyRejections.increment();
+
+            reject(httpServletResponse, 1);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(httpServletRequest, httpServletResponse);
+        } finally {
+            concurrencyLimiter.release(key);
+        }
+    }
+
+    private boolean isAddressPath(HttpServletRequest request) {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+
+        return rateLimitProperties.getAddressPaths().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    /**
+     * @param subject Unverified subject of the token
+     * @param jwt The token
+     * @return The specific limit of the user if there is one and the token is valid, the user limit otherwise
+     */
+    private RateLimitProperties.Limit userLimit(String subject, String jwt) {
+        RateLimitProperties.Limit specificLimit = rateLimitProperties.getUsers().get(subject);
+
+        // Only the few users having a specific limit cost a signature verification here
+        if (specificLimit != null) {
+            Claims claims = jwtTokenUtil.getValidClaims(jwt);
+
+            if (claims != null && subject.equals(claims.getSubject())) {
+                return specificLimit;
+            }
+        }
+
+        return rateLimitProperties.getUser();
+    }
+
+    /**
+     * Reads the subject of a JWT without verifying it : the token is verified afterwards by the JwtTokenFilter.
+     * @param jwt String representing a JWT, may be null
+     * @return The sub claim of the token. null if there is no token, or if it is malformed or has no subject
+     */
+    private String unverifiedSubject(String jwt) {
+        if (jwt == null) {
+            return null;
+        }
+
+        int payloadStart = jwt.indexOf('.') + 1;
+        int payloadEnd = jwt.indexOf('.', payloadStart);
+
+        if (payloadStart == 0 || payloadEnd < 0) {
+            return null;
+        }
+
+        try {
+            JsonNode subject = objectMapper.readTree(Base64.getUrlDecoder().decode(jwt.substring(payloadStart, payloadEnd))).get("sub");
+
+            return subject != null && subject.isTextual() ? subject.asText() : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse httpServletResponse, long retryAfterSeconds) throws IOException {
+        httpServletResponse.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        httpServletResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        httpServletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(httpServletResponse.getOutputStream(), new ErrorResponse(true, ErrorCode.ERR_TOO_MANY_REQUESTS, Collections.emptyList()));
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("postit.rate-limit.rejections")
+                .description("Requests rejected by the rate limiting")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package fr.lsinquin.postit.api.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limiting configuration, bound to the postit.rate-limit properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Enables the rate limiting and the concurrency admission control.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Limit of each authenticated user.
+     */
+    @Valid
+    @NotNull
+    private Limit user = new Limit(50, 100, 20);
+
+    /**
+     * Limit of each client IP address for the requests without authenticated user (registration, login).
+     */
+    @Valid
+    @NotNull
+    private Limit anonymous = new Limit(5, 20, 5);
+
+    /**
+     * Limits of specific users, by mail address. They replace the user limit once the token of the request is verified.
+     */
+    @Valid
+    @NotNull
+    private Map<String, Limit> users = new HashMap<>();
+
+    /**
+     * Paths (Ant patterns) of the endpoints open without authentication. Their requests are limited by client address only,
+     * whatever token they bear : a forged token cannot get a fresh limit.
+     */
+    @NotEmpty
+    private List<String> addressPaths = List.of("/login", "/users/**", "/token/refresh");
+
+    /**
+     * Number of tracked users and addresses above which the idle ones are forgotten.
+     */
+    @Min(1)
+    private int maxTrackedKeys = 100_000;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * Sustained number of requests per second.
+         */
+        @DecimalMin(value = "0", inclusive = false)
+        private double requestsPerSecond;
+
+        /**
+         * Number of requests which can be sent at once, after an idle period.
+         */
+        @Min(1)
+        private int burst;
+
+        /**
+         * Number of requests processed at the same time. The requests above are rejected rather than queued.
+         */
+        @Min(1)
+        private int maxConcurrentRequests;
+    }
+}
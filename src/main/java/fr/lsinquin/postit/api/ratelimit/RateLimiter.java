@@ -0,0 +1,79 @@
+package fr.lsinquin.postit.api.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket rate limiter, implemented with the generic cell rate algorithm (GCRA).
+ * Instead of a token count refilled over time, each key only holds the theoretical arrival time of its next request, updated by compare-and-set.
+ * A request is accepted while that time is less than burst emission intervals ahead of now, which is equivalent to a bucket of burst tokens.
+ * Keys whose bucket is full again are forgotten once more than maxTrackedKeys are tracked, by a single caller at most once per PURGE_INTERVAL_NANOS :
+ * when keys churn (e.g. a flood of spoofed addresses), requests do not scan the whole map each, and the map may exceed maxTrackedKeys until the next purge.
+ */
+public class RateLimiter {
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxTrackedKeys;
+
+    private final Map<String, AtomicLong> theoreticalArrivals = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime());
+
+    public RateLimiter(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    /**
+     * Takes a token from the bucket of a key.
+     * @param key User or client address
+     * @param requestsPerSecond Refill rate of the bucket
+     * @param burst Size of the bucket
+     * @return 0 if the request is accepted. Otherwise the time in nanoseconds before a token is available
+     */
+    public long tryAcquire(String key, double requestsPerSecond, int burst) {
+        long now = System.nanoTime();
+        long emissionInterval = (long) (1_000_000_000L / requestsPerSecond);
+        long tolerance = emissionInterval * burst;
+
+        AtomicLong theoreticalArrival = theoreticalArrivals.get(key);
+
+        if (theoreticalArrival == null) {
+            purgeIdleKeys(now);
+            theoreticalArrival = theoreticalArrivals.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = (current - now > 0 ? current : now) + emissionInterval;
+            long excess = next - now - tolerance;
+
+            if (excess > 0) {
+                return excess;
+            }
+
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return Number of tracked keys
+     */
+    int size() {
+        return theoreticalArrivals.size();
+    }
+
+    private void purgeIdleKeys(long now) {
+        long next = nextPurge.get();
+
+        if (theoreticalArrivals.size() < maxTrackedKeys || now - next < 0 || !nextPurge.compareAndSet(next, now + PURGE_INTERVAL_NANOS)) {
+            return;
+        }
+
+        theoreticalArrivals.values().removeIf(theoreticalArrival -> theoreticalArrival.get() - now <= 0);
+    }
+}
@@ -1,12 +1,15 @@
 package fr.lsinquin.postit.api.security;
 
+import fr.lsinquin.postit.datasource.ReplicaRoutingContext;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Custom implementation of the {@link org.springframework.security.core.userdetails.UserDetailsService UserDetailsService interface}.
@@ -14,19 +17,32 @@ import org.springframework.stereotype.Service;
  */
 @Service
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    private final UserCache userCache;
+
     /**
-     * Loads a user using {@link #userRepository}.
+     * Loads a user from {@link #userCache}, or using {@link #userRepository} when it is not cached.
      * @param s Username of the user. The username is his mail address.
      * @return {@inheritDoc}
      * @throws UsernameNotFoundException {@inheritDoc}
      */
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        User user = userRepository.findByMail(s).orElseThrow(() -> new UsernameNotFoundException("Aucun utilisateur pour le mail " + s));
+        User cachedUser = userCache.get(s);
+
+        if (cachedUser != null) {
+            return new CustomUserDetails(cachedUser);
+        }
+
+        // The lookup is made on behalf of the user himself : a user who just registered is not looked up in a lagging replica
+        User user = ReplicaRoutingContext.callAs(s, () -> userRepository.findByMail(s)).orElseThrow(() -> new UsernameNotFoundException("Aucun utilisateur pour le mail " + s));
+
+        userCache.put(user);
 
         return new CustomUserDetails(user);
     }
@@ -0,0 +1,91 @@
+package fr.lsinquin.postit.api.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Immutable {@link Authentication} of a user authenticated by a JWT, set in the security context on every authenticated request.
+ * Unlike a UsernamePasswordAuthenticationToken, it neither copies the authorities of the user nor holds credentials.
+ */
+public final class JwtAuthentication implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UserDetails principal;
+
+    private final Object details;
+
+    /**
+     * @param principal The authenticated user
+     * @param details Details of the request, may be null
+     */
+    public JwtAuthentication(UserDetails principal, Object details) {
+        this.principal = Objects.requireNonNull(principal);
+        this.details = details;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return principal.getAuthorities();
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return details;
+    }
+
+    @Override
+    public UserDetails getPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException raised when trying to unauthenticate it : it is immutable
+     */
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) throws IllegalArgumentException {
+        if (!isAuthenticated) {
+            throw new IllegalArgumentException("A JwtAuthentication cannot be unauthenticated");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return principal.getUsername();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JwtAuthentication)) return false;
+        JwtAuthentication that = (JwtAuthentication) o;
+        return principal.equals(that.principal) && Objects.equals(details, that.details);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(principal, details);
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication{" +
+                "name='" + getName() + '\'' +
+                ", details=" + details +
+                '}';
+    }
+}
@@ -0,0 +1,19 @@
+package fr.lsinquin.postit.api.security;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * Declares the {@link JwtKeys} shared by the servlet and reactive stacks.
+ */
+@Configuration
+@EnableConfigurationProperties(JwtProperties.class)
+public class JwtConfig {
+
+    @Bean
+    public JwtKeys jwtKeys(JwtProperties jwtProperties, ResourceLoader resourceLoader) {
+        return JwtKeys.load(jwtProperties, resourceLoader);
+    }
+}
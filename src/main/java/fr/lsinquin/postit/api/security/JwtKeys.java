@@ -0,0 +1,259 @@
+package fr.lsinquin.postit.api.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.WeakKeyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keys of the JWT signatures, identified by their id (kid header).
+ * New tokens are signed by the signing key, tokens signed by any of the keys are accepted. Every instance sharing the same keys accepts the tokens of the others.
+ * A key is rotated without downtime by adding the new key to every instance, then making it the signing key, then removing the old key once the tokens it signed expired.
+ * Keys are either HMAC secrets (HS256), or EC key pairs (ES256) whose public keys are published as a JSON Web Key Set, so that other services verify the tokens without any secret.
+ */
+@Slf4j
+public class JwtKeys {
+
+    private final String signingKeyId;
+
+    private final Key signingKey;
+
+    /**
+     * Verification keys by id : secret keys or public keys
+     */
+    private final Map<String, Key> keys;
+
+    private final Map<String, Object> jsonWebKeySet;
+
+    public JwtKeys(String signingKeyId, Key signingKey, Map<String, Key> keys) {
+        if (!keys.containsKey(signingKeyId)) {
+            throw new IllegalStateException("Unknown JWT signing key " + signingKeyId + ", known keys are " + keys.keySet());
+        }
+
+        if (signingKey == null) {
+            throw new IllegalStateException("JWT signing key " + signingKeyId + " has no private key");
+        }
+
+        this.signingKeyId = signingKeyId;
+        this.signingKey = signingKey;
+        this.keys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+        this.jsonWebKeySet = jsonWebKeySet(keys);
+    }
+
+    /**
+     * Loads the keys given in the configuration and in the keystore.
+     * Without any key, a random HMAC one is generated : tokens are then only valid on this instance, until it restarts.
+     * @param jwtProperties postit.jwt properties
+     * @param resourceLoader Loader of the keystore location
+     * @return The loaded keys
+     * @throws IllegalStateException raised when a key cannot be loaded, or when the signing key is unknown, ambiguous or without private key
+     */
+    public static JwtKeys load(JwtProperties jwtProperties, ResourceLoader resourceLoader) {
+        Map<String, Key> keys = new LinkedHashMap<>();
+        Map<String, Key> privateKeys = new LinkedHashMap<>();
+
+        for (JwtProperties.SigningKey signingKey : jwtProperties.getKeys()) {
+            loadKey(keys, privateKeys, signingKey);
+        }
+
+        if (jwtProperties.getKeyStore().getLocation() != null) {
+            loadKeyStore(keys, privateKeys, jwtProperties.getKeyStore(), resourceLoader.getResource(jwtProperties.getKeyStore().getLocation()));
+        }
+
+        if (keys.isEmpty()) {
+            log.warn("No JWT key configured (postit.jwt.keys or postit.jwt.key-store) : a random key is used, tokens will not be valid on other instances nor after a restart");
+
+            String id = UUID.randomUUID().toString();
+            Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+
+            return new JwtKeys(id, key, Map.of(id, key));
+        }
+
+        String signingKeyId = jwtProperties.getSigningKeyId();
+
+        if (signingKeyId == null) {
+            if (keys.size() > 1) {
+                throw new IllegalStateException("Several JWT keys are configured, postit.jwt.signing-key-id must be set");
+            }
+
+            signingKeyId = keys.keySet().iterator().next();
+        }
+
+        log.info("JWT keys {} loaded, tokens signed by {}", keys.keySet(), signingKeyId);
+
+        return new JwtKeys(signingKeyId, privateKeys.get(signingKeyId), keys);
+    }
+
+    /**
+     * @return Id of the key signing the new tokens
+     */
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    /**
+     * @return Key signing the new tokens : a secret key or a private key
+     */
+    public Key getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * @param keyId Key id, from the kid header of a token
+     * @return The verification key, secret or public. null if unknown
+     */
+    public Key getKey(String keyId) {
+        return keyId == null ? null : keys.get(keyId);
+    }
+
+    /**
+     * @return JSON Web Key Set (RFC 7517) of the public keys. Secret keys are never published
+     */
+    public Map<String, Object> getJsonWebKeySet() {
+        return jsonWebKeySet;
+    }
+
+    private static void loadKey(Map<String, Key> keys, Map<String, Key> privateKeys, JwtProperties.SigningKey signingKey) {
+        String id = signingKey.getId();
+
+        if ((signingKey.getSecret() == null) == (signingKey.getPublicKey() == null)) {
+            throw new IllegalStateException("JWT key " + id + " must have either a secret or a public key");
+        }
+
+        try {
+            if (signingKey.getSecret() != null) {
+                Key secretKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(signingKey.getSecret()));
+                addKey(keys, privateKeys, id, secretKey, secretKey);
+                return;
+            }
+
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(signingKey.getPublicKey())));
+            PrivateKey privateKey = signingKey.getPrivateKey() == null ? null : keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(signingKey.getPrivateKey())));
+
+            addKey(keys, privateKeys, id, publicKey, privateKey);
+        } catch (IllegalArgumentException | GeneralSecurityException | WeakKeyException e) {
+            throw new IllegalStateException("Invalid JWT key " + id + " : " + e.getMessage(), e);
+        }
+    }
+
+    private static void loadKeyStore(Map<String, Key> keys, Map<String, Key> privateKeys, JwtProperties.KeyStore keyStoreProperties, Resource location) {
+        char[] password = keyStoreProperties.getPassword().toCharArray();
+
+        try (InputStream inputStream = location.getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance(keyStoreProperties.getType());
+            keyStore.load(inputStream, password);
+
+            Enumeration<String> aliases = keyStore.aliases();
+
+            while (aliases.hasMoreElements()) {
+                String alias = aliases.nextElement();
+
+                if (keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                    Key secretKey = Keys.hmacShaKeyFor(((SecretKey) keyStore.getKey(alias, password)).getEncoded());
+                    addKey(keys, privateKeys, alias, secretKey, secretKey);
+                } else if (keyStore.entryInstanceOf(alias, KeyStore.PrivateKeyEntry.class)) {
+                    addKey(keys, privateKeys, alias, keyStore.getCertificate(alias).getPublicKey(), keyStore.getKey(alias, password));
+                } else {
+                    Certificate certificate = keyStore.getCertificate(alias);
+                    addKey(keys, privateKeys, alias, certificate.getPublicKey(), null);
+                }
+            }
+        } catch (IOException | GeneralSecurityException | WeakKeyException e) {
+            throw new IllegalStateException("JWT keystore " + location + " cannot be loaded : " + e.getMessage(), e);
+        }
+    }
+
+    private static void addKey(Map<String, Key> keys, Map<String, Key> privateKeys, String id, Key verificationKey, Key signingKey) {
+        if (verificationKey instanceof PublicKey && !(verificationKey instanceof ECPublicKey)) {
+            throw new IllegalStateException("JWT key " + id + " : only EC public keys are supported, not " + verificationKey.getAlgorithm());
+        }
+
+        if (keys.putIfAbsent(id, verificationKey) != null) {
+            throw new IllegalStateException("Duplicate JWT key " + id);
+        }
+
+        if (signingKey != null) {
+            privateKeys.put(id, signingKey);
+        }
+    }
+
+    /**
+     * Decodes a PEM key, or a base64 DER one.
+     */
+    private static byte[] decodePem(String pem) {
+        return Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+    }
+
+    private static Map<String, Object> jsonWebKeySet(Map<String, Key> keys) {
+        List<Map<String, Object>> jsonWebKeys = new ArrayList<>();
+
+        keys.forEach((id, key) -> {
+            if (key instanceof ECPublicKey) {
+                jsonWebKeys.add(jsonWebKey(id, (ECPublicKey) key));
+            }
+        });
+
+        return Map.of("keys", Collections.unmodifiableList(jsonWebKeys));
+    }
+
+    private static Map<String, Object> jsonWebKey(String id, ECPublicKey publicKey) {
+        int fieldSize = publicKey.getParams().getCurve().getField().getFieldSize();
+        int length = (fieldSize + 7) / 8;
+        // P-521 keys sign with ES512
+        int hashSize = fieldSize == 521 ? 512 : fieldSize;
+
+        Map<String, Object> jsonWebKey = new LinkedHashMap<>();
+        jsonWebKey.put("kty", "EC");
+        jsonWebKey.put("kid", id);
+        jsonWebKey.put("use", "sig");
+        jsonWebKey.put("alg", "ES" + hashSize);
+        jsonWebKey.put("crv", "P-" + fieldSize);
+        jsonWebKey.put("x", coordinate(publicKey.getW().getAffineX(), length));
+        jsonWebKey.put("y", coordinate(publicKey.getW().getAffineY(), length));
+
+        return Collections.unmodifiableMap(jsonWebKey);
+    }
+
+    /**
+     * Encodes a curve coordinate as base64url of its unsigned big-endian bytes, left-padded to the field length (RFC 7518, section 6.2.1).
+     */
+    private static String coordinate(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[length];
+
+        if (bytes.length > length) {
+            bytes = Arrays.copyOfRange(bytes, bytes.length - length, bytes.length);
+        }
+
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
@@ -0,0 +1,109 @@
+package fr.lsinquin.postit.api.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access and refresh tokens configuration, bound to the postit.jwt properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.jwt")
+public class JwtProperties {
+
+    /**
+     * Lifetime of the access tokens. A revoked access token is kept in the revocation list until it expires : the shorter, the smaller the list.
+     */
+    @NotNull
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
+
+    /**
+     * Lifetime of the access tokens issued by the reactive stack, which has neither refresh tokens nor revocation : its clients log in again when their token expires.
+     */
+    @NotNull
+    private Duration reactiveAccessTokenTtl = Duration.ofDays(1);
+
+    /**
+     * Lifetime of the refresh tokens.
+     */
+    @NotNull
+    private Duration refreshTokenTtl = Duration.ofDays(30);
+
+    /**
+     * Interval between two loads of the revocations made by the other instances.
+     */
+    @NotNull
+    private Duration revocationSyncInterval = Duration.ofSeconds(10);
+
+    /**
+     * Id (kid) of the key signing the new tokens. Tokens signed by any of the other keys are still accepted.
+     * Optional when a single key is configured.
+     */
+    private String signingKeyId;
+
+    /**
+     * Keys given in the configuration : HMAC secrets, or EC key pairs (ES256 with a P-256 key).
+     */
+    @Valid
+    private List<SigningKey> keys = new ArrayList<>();
+
+    /**
+     * Keystore holding keys, in addition to the configured ones.
+     */
+    @Valid
+    private KeyStore keyStore = new KeyStore();
+
+    @Data
+    public static class SigningKey {
+
+        /**
+         * Key id, written in the kid header of the tokens.
+         */
+        @NotBlank
+        private String id;
+
+        /**
+         * Base64 encoded HMAC secret, of at least 256 bits. Not to be set along with a public key.
+         */
+        private String secret;
+
+        /**
+         * EC private key, PKCS#8 PEM or base64 DER. Only needed for the signing key : a key with only its public key is kept to verify the tokens it signed.
+         */
+        private String privateKey;
+
+        /**
+         * EC public key, X.509 PEM or base64 DER. Published by the JWKS endpoint.
+         */
+        private String publicKey;
+    }
+
+    @Data
+    public static class KeyStore {
+
+        /**
+         * Location of the keystore, e.g. file:/etc/post-it/jwt.p12. Entries are loaded with their alias as key id : secret keys (HMAC),
+         * EC private keys with their certificate, and EC certificates alone (verification only).
+         */
+        private String location;
+
+        /**
+         * Password of the keystore, also used for its entries.
+         */
+        private String password = "";
+
+        /**
+         * Type of the keystore.
+         */
+        @NotBlank
+        private String type = "PKCS12";
+    }
+}
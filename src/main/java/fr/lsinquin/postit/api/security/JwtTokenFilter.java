@@ -1,8 +1,9 @@
 package fr.lsinquin.postit.api.security;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,19 +19,27 @@ import java.io.IOException;
 
 /**
  * Spring security filter responsible for collecting and validating JWTs.
- * If a JWT is successfully collected and validated, the appropriate User is set in the Security Context.
+ * If a JWT is successfully collected and validated, and was not revoked, the appropriate User is set in the Security Context.
  */
 @Component
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class JwtTokenFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
 
     private final JwtTokenUtil jwtTokenUtil;
 
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * Stateless, shared by all requests
+     */
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
     /**
      * Filters incoming HTTP requests.
-     * It looks for a JWT in the Authorization header of the incoming request. If the JWT is valid, it sets a complete authenticated user in the security context.
+     * It looks for a JWT in the Authorization header of the incoming request. If the JWT is valid and not revoked, it sets a complete authenticated user in the security context.
      * @param httpServletRequest {@inheritDoc}
      * @param httpServletResponse {@inheritDoc}
      * @param filterChain {@inheritDoc}
@@ -39,68 +48,38 @@ public class JwtTokenFilter extends OncePerRequestFilter {
      */
     @Override
     protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
-        final String header = httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION);
+        final String jwtToken = JwtTokenUtil.extractBearerToken(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION));
 
         // If no JWT is present, the Spring security chain carries on.
-        if (!isJWTPresent(header)) {
+        if (jwtToken == null) {
             filterChain.doFilter(httpServletRequest, httpServletResponse);
             return;
         }
 
-        final String jwtToken = parseHeader(header);
+        final Claims claims = jwtTokenUtil.getValidClaims(jwtToken);
 
-        // If The JWT is not valid, the Spring security chain carries on.
-        if (!jwtTokenUtil.validate(jwtToken)) {
+        // If The JWT is not valid or was revoked, the Spring security chain carries on.
+        if (claims == null || tokenRevocationList.isRevoked(claims.getId())) {
             filterChain.doFilter(httpServletRequest, httpServletResponse);
             return;
         }
 
-        setSecurityContext(httpServletRequest, jwtToken);
+        setSecurityContext(httpServletRequest, claims.getSubject());
 
         // The Spring security filter chain carries on with a authenticated User in his Security Context.
         filterChain.doFilter(httpServletRequest, httpServletResponse);
     }
 
     /**
-     * Checks if a JWT token is correctly put in a String.
-     * The JWT token must be specified as a Bearer token.
-     * @param header String representing a header field value.
-     * @return True if a JWT token is present. False otherwise
-     */
-    private boolean isJWTPresent(String header) {
-        return header != null && header.startsWith("Bearer ");
-    }
-
-    /**
-     * Retrieves a JWT from a String representing a Bearer token.
-     * Usually, {@link #isJWTPresent(String) isJWTPresent} is called before to verify the presence of a JWT in this String.
-     * @param header String representing a header field value.
-     * @return String representing a JWT
-     */
-    private String parseHeader(String header) {
-        return header.split(" ")[1].trim();
-    }
-
-    /**
-     * Retrieves the user from a JWT and put it in the security context.
+     * Retrieves the user of a valid JWT and put it in the security context.
      * @param request Current HTTP request
-     * @param validatedJwtToken String representing a valid JWT
+     * @param username Subject of a valid JWT
      */
-    private void setSecurityContext(HttpServletRequest request, String validatedJwtToken) {
-        // Retrieves the username from the JWT
-        String username = jwtTokenUtil.getUserSubject(validatedJwtToken);
-
+    private void setSecurityContext(HttpServletRequest request, String username) {
         // Retrieves the complete user thanks to his name
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-        // Create a authenticated User Token containing the UserDetails instance
-        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails,null, userDetails.getAuthorities());
-
-        authentication.setDetails(
-                new WebAuthenticationDetailsSource().buildDetails(request)
-        );
-
-        // Include the authenticated user in the security context
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        // Include the authenticated user in the security context, with the details of the request
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(userDetails, authenticationDetailsSource.buildDetails(request)));
     }
 }
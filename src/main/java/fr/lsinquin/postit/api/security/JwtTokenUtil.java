@@ -1,41 +1,87 @@
 package fr.lsinquin.postit.api.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import lombok.NoArgsConstructor;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * Util class for JWT handling concerns : generation, validation, decoding
  */
 @Component
-@NoArgsConstructor
+@Slf4j
 public class JwtTokenUtil {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Keys of the signatures : HMAC secrets (HS256) or EC key pairs (ES256), see {@link JwtKeys}.
+     * Tokens are signed by the signing key, whose id is written in their kid header, and verified by the key of their kid.
+     */
+    private final JwtKeys jwtKeys;
+
+    private final JwtProperties jwtProperties;
+
     /**
-     * Secret key used for the signature algorithm. The util class is based on the HS256 signature algorithm.
-     * The key is generated at the start the application. It means that all tokens generated before a restart are not valid.
+     * Thread-safe parser, resolving the verification key by the kid header
      */
-    private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final JwtParser parser;
+
+    public JwtTokenUtil(JwtKeys jwtKeys, JwtProperties jwtProperties) {
+        this.jwtKeys = jwtKeys;
+        this.jwtProperties = jwtProperties;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = jwtKeys.getKey(header.getKeyId());
+
+                        if (key == null) {
+                            throw new JwtException("Unknown key " + header.getKeyId());
+                        }
+
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     /**
-     * Generates a new JWT token for a specific user
+     * Generates a new JWT token for a specific user.
+     * The token expires after postit.jwt.access-token-ttl and carries a unique id (jti claim), by which it can be revoked.
      * @param subject The user represented by his mail address
      * @return String representing the generated JWT
      */
     public String generateAccessToken(String subject) {
-        Date expirationDate = new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000); // 1 Day
+        return generateAccessToken(subject, jwtProperties.getAccessTokenTtl());
+    }
+
+    /**
+     * Generates a new JWT token for a specific user, expiring after a given lifetime.
+     * @param subject The user represented by his mail address
+     * @param ttl Lifetime of the token
+     * @return String representing the generated JWT
+     */
+    public String generateAccessToken(String subject, Duration ttl) {
+        long now = System.currentTimeMillis();
 
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, jwtKeys.getSigningKeyId())
+                .setId(UUID.randomUUID().toString())
                 .setIssuer("post-it.com")
                 .setSubject(subject)
-                .setExpiration(expirationDate)
-                .signWith(key)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + ttl.toMillis()))
+                .signWith(jwtKeys.getSigningKey())
                 .compact();
     }
 
@@ -46,7 +92,47 @@ public class JwtTokenUtil {
      * @return The user represented by his mail address
      */
     public String getUserSubject(String jwt) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody().getSubject();
+        return parser.parseClaimsJws(jwt).getBody().getSubject();
+    }
+
+    /**
+     * Validates a JWT and retrieves its claims, with a single parsing of the token.
+     * @param jws String representing a JWT
+     * @return The claims of the token. null if it is not a valid JWT
+     */
+    public Claims getValidClaims(String jws) {
+        try {
+            return parser.parseClaimsJws(jws).getBody();
+        } catch (JwtException e) {
+            log.debug("Invalid JWT : {}", e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves a JWT from a String representing a Bearer token (RFC 6750), with a single allocation : the returned JWT.
+     * The scheme is case insensitive, the spaces around the JWT are ignored.
+     * @param header String representing a header field value, may be null
+     * @return String representing a JWT. null if the header is not a Bearer token
+     */
+    public static String extractBearerToken(String header) {
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+
+        int start = BEARER_PREFIX.length();
+        int end = header.length();
+
+        while (start < end && header.charAt(start) == ' ') {
+            start++;
+        }
+
+        while (end > start && header.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        return start == end ? null : header.substring(start, end);
     }
 
     /**
@@ -56,11 +142,11 @@ public class JwtTokenUtil {
      */
     public boolean validate(String jws) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jws);
+            parser.parseClaimsJws(jws);
 
             return true;
         } catch (JwtException e) {
-            System.out.println(e.getMessage());
+            log.debug("Invalid JWT : {}", e.getMessage());
 
             return false;
         }
@@ -0,0 +1,189 @@
+package fr.lsinquin.postit.api.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the failed logins of each account and client address, and blocks them with an exponential backoff once they exceed their free failures.
+ * A blocked login is rejected before the authentication manager is called, so that brute force attempts do not cost a BCrypt verification.
+ * The state of a key is packed in a single long : the number of failures in the 8 high bits, the time of the last failure (epoch millis) in the others.
+ * Once maxTrackedKeys keys are tracked, a new key makes a single caller at most once per PURGE_INTERVAL_NANOS purge the keys without failure for resetAfter,
+ * then evict the least recently failed ones until there is room : the failures of new accounts are always tracked, and the map may exceed maxTrackedKeys until the next purge.
+ */
+@Slf4j
+public class LoginThrottle {
+
+    private static final int TIME_BITS = 56;
+
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private static final int MAX_FAILURES = 255;
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LoginThrottleProperties properties;
+
+    private final Map<String, Long> failures = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime());
+
+    private final Counter blockedAccounts;
+
+    private final Counter blockedAddresses;
+
+    private final Counter failedLogins;
+
+    public LoginThrottle(LoginThrottleProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.blockedAccounts = blocked(meterRegistry, "account");
+        this.blockedAddresses = blocked(meterRegistry, "address");
+        this.failedLogins = Counter.builder("postit.login.failures")
+                .description("Failed logins")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks if a login attempt is currently blocked, by its account or by its client address.
+     * A blocked attempt is counted but does not extend the block.
+     * @param mail Mail address of the account
+     * @param address Client address
+     * @return 0 if the attempt is allowed. Otherwise the time in milliseconds before the block ends
+     */
+    public long blockedFor(String mail, String address) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long accountBlock = remainingBlock(accountKey(mail), properties.getAccountFreeFailures(), now);
+        long addressBlock = remainingBlock(addressKey(address), properties.getAddressFreeFailures(), now);
+
+        if (accountBlock > 0) {
+            blockedAccounts.increment();
+        } else if (addressBlock > 0) {
+            blockedAddresses.increment();
+        }
+
+        return Math.max(accountBlock, addressBlock);
+    }
+
+    /**
+     * Records a failed login for its account and its client address.
+     * @param mail Mail address of the account
+     * @param address Client address
+     */
+    public void recordFailure(String mail, String address) {
+        failedLogins.increment();
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        recordFailure(accountKey(mail), now);
+        recordFailure(addressKey(address), now);
+    }
+
+    /**
+     * Forgets the failures of an account after a successful login. The failures of the address are kept : a valid account must not unblock an address.
+     * @param mail Mail address of the account
+     */
+    public void recordSuccess(String mail) {
+        failures.remove(accountKey(mail));
+    }
+
+    /**
+     * @return Number of tracked accounts and addresses
+     */
+    int size() {
+        return failures.size();
+    }
+
+    private long remainingBlock(String key, int freeFailures, long now) {
+        Long state = failures.get(key);
+
+        if (state == null || isExpired(state, now)) {
+            return 0;
+        }
+
+        int count = (int) (state >>> TIME_BITS);
+
+        if (count < freeFailures) {
+            return 0;
+        }
+
+        long backoff = properties.getInitialBackoff().toMillis() << Math.min(count - freeFailures, 30);
+        long block = Math.min(backoff, properties.getMaxBackoff().toMillis());
+
+        return Math.max(0, (state & TIME_MASK) + block - now);
+    }
+
+    private void recordFailure(String key, long now) {
+        if (!failures.containsKey(key)) {
+            purge(now);
+        }
+
+        failures.merge(key, pack(1, now), (state, first) -> {
+            if (isExpired(state, now)) {
+                return first;
+            }
+
+            return pack(Math.min((int) (state >>> TIME_BITS) + 1, MAX_FAILURES), now);
+        });
+    }
+
+    private void purge(long now) {
+        long next = nextPurge.get();
+        long nanoTime = System.nanoTime();
+
+        if (failures.size() < properties.getMaxTrackedKeys() || nanoTime - next < 0 || !nextPurge.compareAndSet(next, nanoTime + PURGE_INTERVAL_NANOS)) {
+            return;
+        }
+
+        failures.values().removeIf(state -> isExpired(state, now));
+
+        int excess = failures.size() - properties.getMaxTrackedKeys() + 1;
+
+        if (excess > 0) {
+            log.warn("Login throttle full ({} keys) : evicting the {} least recently failed", failures.size(), excess);
+            failures.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue() & TIME_MASK))
+                    .limit(excess)
+                    .collect(Collectors.toList())
+                    .forEach(entry -> failures.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private boolean isExpired(long state, long now) {
+        return now - (state & TIME_MASK) > properties.getResetAfter().toMillis();
+    }
+
+    private static long pack(int count, long time) {
+        return ((long) count << TIME_BITS) | (time & TIME_MASK);
+    }
+
+    private static String accountKey(String mail) {
+        return "account:" + mail.toLowerCase(Locale.ROOT);
+    }
+
+    private static String addressKey(String address) {
+        return "address:" + address;
+    }
+
+    private static Counter blocked(MeterRegistry meterRegistry, String by) {
+        return Counter.builder("postit.login.blocked")
+                .description("Login attempts rejected by the throttle, before any password verification")
+                .tag("by", by)
+                .register(meterRegistry);
+    }
+}
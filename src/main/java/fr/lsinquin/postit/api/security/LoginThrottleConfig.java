@@ -0,0 +1,21 @@
+package fr.lsinquin.postit.api.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declares the {@link LoginThrottle} shared by the servlet and reactive login endpoints.
+ */
+@Configuration
+@EnableConfigurationProperties(LoginThrottleProperties.class)
+public class LoginThrottleConfig {
+
+    @Bean
+    public LoginThrottle loginThrottle(LoginThrottleProperties loginThrottleProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LoginThrottle(loginThrottleProperties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
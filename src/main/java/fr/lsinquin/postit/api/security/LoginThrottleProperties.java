@@ -0,0 +1,62 @@
+package fr.lsinquin.postit.api.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Login throttling configuration, bound to the postit.login-throttle properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.login-throttle")
+public class LoginThrottleProperties {
+
+    /**
+     * Enables the throttling of failed logins.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Failed logins of an account before it is blocked.
+     */
+    @Min(1)
+    @Max(254)
+    private int accountFreeFailures = 5;
+
+    /**
+     * Failed logins from a client address before it is blocked. Higher than the account one, as an address may be shared (NAT, proxies).
+     */
+    @Min(1)
+    @Max(254)
+    private int addressFreeFailures = 20;
+
+    /**
+     * Block after the first failure above the free ones. It doubles with each further failure.
+     */
+    @NotNull
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Upper bound of the block.
+     */
+    @NotNull
+    private Duration maxBackoff = Duration.ofMinutes(15);
+
+    /**
+     * Time without failure after which the failures of an account or address are forgotten.
+     */
+    @NotNull
+    private Duration resetAfter = Duration.ofHours(1);
+
+    /**
+     * Maximum number of tracked accounts and addresses.
+     */
+    @Min(1)
+    private int maxTrackedKeys = 100_000;
+}
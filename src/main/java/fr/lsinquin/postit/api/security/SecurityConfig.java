@@ -1,6 +1,7 @@
 package fr.lsinquin.postit.api.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -17,6 +18,7 @@ import javax.servlet.http.HttpServletResponse;
 
 @EnableWebSecurity
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final UserDetailsService userDetailsService;
@@ -47,6 +49,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and();
 
+        // POST /logout is handled by the AuthController, which revokes the JWT
+        http = http.logout().disable();
+
         http = http
                 .exceptionHandling()
                 .authenticationEntryPoint(
@@ -62,6 +67,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.authorizeRequests()
                 .antMatchers("/users/**").permitAll()
                 .antMatchers("/login").permitAll()
+                .antMatchers("/token/refresh").permitAll()
+                .antMatchers("/.well-known/jwks.json").permitAll()
                 .anyRequest().authenticated();
 
         http.addFilterBefore(
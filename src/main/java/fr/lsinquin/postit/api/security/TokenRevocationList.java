@@ -0,0 +1,96 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.RevokedToken;
+import fr.lsinquin.postit.repositories.RevokedTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access tokens revoked before their expiration, checked by the {@link JwtTokenFilter} on every request without any database query.
+ * Revocations are persisted in the revoked_token table and kept in memory until the token expires. As access tokens are short-lived,
+ * the list only holds the revocations of the last postit.jwt.access-token-ttl and stays small : an exact set is kept rather than a Bloom filter,
+ * whose false positives would reject valid tokens.
+ * The revocations made by the other instances are loaded at most once per postit.jwt.revocation-sync-interval, by the requests checking tokens.
+ */
+@Component
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long syncIntervalMillis;
+
+    /**
+     * Expiration (epoch millis) of the revoked tokens, by token id
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSync = new AtomicLong();
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository, JwtProperties jwtProperties) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.syncIntervalMillis = jwtProperties.getRevocationSyncInterval().toMillis();
+    }
+
+    /**
+     * Revokes an access token until its expiration.
+     * @param tokenId Id of the token (jti claim)
+     * @param expiresAt Expiration of the token
+     */
+    @Transactional
+    public void revoke(String tokenId, Instant expiresAt) {
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        revokedTokens.put(tokenId, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * @param tokenId Id of the token (jti claim)
+     * @return True if the token was revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        syncIfDue();
+
+        return tokenId != null && revokedTokens.containsKey(tokenId);
+    }
+
+    /**
+     * @return Number of revoked tokens kept in memory
+     */
+    int size() {
+        return revokedTokens.size();
+    }
+
+    /**
+     * Loads the unexpired revocations and forgets the expired ones, if the last sync is older than the sync interval.
+     * A single caller syncs, the others carry on with the current list. A failed sync keeps the current list and is retried after the interval.
+     */
+    private void syncIfDue() {
+        long now = System.currentTimeMillis();
+        long next = nextSync.get();
+
+        if (now < next || !nextSync.compareAndSet(next, now + syncIntervalMillis)) {
+            return;
+        }
+
+        try {
+            Instant instant = Instant.ofEpochMilli(now);
+
+            for (RevokedToken revokedToken : revokedTokenRepository.findUnexpired(instant)) {
+                revokedTokens.put(revokedToken.getId(), revokedToken.getExpiresAt().toEpochMilli());
+            }
+
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+            revokedTokenRepository.deleteExpired(instant);
+        } catch (RuntimeException e) {
+            log.warn("Revoked tokens could not be loaded : {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Users loaded by the {@link CustomUserDetailsService}, by mail address, kept for ttl.
+ * Users are never modified once registered : a cached user only goes stale if its row is changed outside the application, until its ttl ends.
+ * Unknown mail addresses are not cached, so that a user who just registered is found at once.
+ * Once maxSize users are cached, a new user makes a single caller at most once per PURGE_INTERVAL_NANOS purge the expired users, then evict the oldest ones until there is room :
+ * new users are always cached, and the cache may exceed maxSize until the next purge.
+ */
+@Slf4j
+public class UserCache {
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final UserCacheProperties properties;
+
+    private final Map<String, Entry> users = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime());
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public UserCache(UserCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+
+        Gauge.builder("postit.user-cache.size", users, Map::size)
+                .description("Cached users")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param mail Mail address of the user
+     * @return The cached user, or null if it is not cached, expired, or if the cache is disabled
+     */
+    public User get(String mail) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+
+        Entry entry = users.get(mail);
+
+        if (entry == null || isExpired(entry, System.currentTimeMillis())) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+
+        return entry.user;
+    }
+
+    /**
+     * Caches a user loaded from the database, by its mail address.
+     * @param user Loaded user
+     */
+    public void put(User user) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        if (!users.containsKey(user.getMail())) {
+            purge(now);
+        }
+
+        users.put(user.getMail(), new Entry(user, now));
+    }
+
+    /**
+     * @return Mail addresses of the unexpired cached users, the working set saved by the {@link UserCacheSnapshot}
+     */
+    public List<String> mails() {
+        long now = System.currentTimeMillis();
+        List<String> mails = new ArrayList<>(users.size());
+
+        users.forEach((mail, entry) -> {
+            if (!isExpired(entry, now)) {
+                mails.add(mail);
+            }
+        });
+
+        return mails;
+    }
+
+    /**
+     * @return Number of cached users
+     */
+    int size() {
+        return users.size();
+    }
+
+    private void purge(long now) {
+        long next = nextPurge.get();
+        long nanoTime = System.nanoTime();
+
+        if (users.size() < properties.getMaxSize() || nanoTime - next < 0 || !nextPurge.compareAndSet(next, nanoTime + PURGE_INTERVAL_NANOS)) {
+            return;
+        }
+
+        users.values().removeIf(entry -> isExpired(entry, now));
+
+        int excess = users.size() - properties.getMaxSize() + 1;
+
+        if (excess > 0) {
+            log.debug("User cache full ({} users) : evicting the {} oldest", users.size(), excess);
+            users.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().loadedAt))
+                    .limit(excess)
+                    .collect(Collectors.toList())
+                    .forEach(entry -> users.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.loadedAt > properties.getTtl().toMillis();
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("postit.user-cache.lookups")
+                .description("User lookups of the authenticated requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static class Entry {
+
+        private final User user;
+
+        private final long loadedAt;
+
+        private Entry(User user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declares the {@link UserCache} of the servlet stack, and its {@link UserCacheSnapshot} when the cache is enabled with a snapshot file.
+ */
+@Configuration
+@EnableConfigurationProperties(UserCacheProperties.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserCacheConfig {
+
+    @Bean
+    public UserCache userCache(UserCacheProperties userCacheProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new UserCache(userCacheProperties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean
+    @ConditionalOnExpression("${postit.user-cache.enabled:false} and '${postit.user-cache.snapshot-path:}' != ''")
+    public UserCacheSnapshot userCacheSnapshot(UserCache userCache, UserRepository userRepository, UserCacheProperties userCacheProperties) {
+        return new UserCacheSnapshot(userCache, userRepository, userCacheProperties);
+    }
+}
@@ -0,0 +1,53 @@
+package fr.lsinquin.postit.api.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Cache of the authenticated users, bound to the postit.user-cache properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.user-cache")
+public class UserCacheProperties {
+
+    /**
+     * Keeps the users loaded by the {@link CustomUserDetailsService}, so that authenticated requests do not look their user up in the database.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Time after which a cached user is loaded again from the database.
+     */
+    @NotNull
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * Maximum number of cached users.
+     */
+    @Min(1)
+    private int maxSize = 10_000;
+
+    /**
+     * File where the mail addresses of the cached users are saved, and from which the cache is warmed up at startup. No snapshot when not set.
+     */
+    private Path snapshotPath;
+
+    /**
+     * Delay between two snapshots. A last one is written on shutdown.
+     */
+    @NotNull
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * Number of users loaded by each query of the warm-up.
+     */
+    @Min(1)
+    private int warmUpBatchSize = 500;
+}
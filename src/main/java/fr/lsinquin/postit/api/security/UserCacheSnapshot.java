@@ -0,0 +1,202 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the working set of the {@link UserCache} to a local file every snapshotInterval and on shutdown, and warms the cache up from it at startup,
+ * before the web server accepts requests : the first requests after a deploy do not all look their user up in the database.
+ * Only the mail addresses are saved : the users are loaded again from the database by a few batched queries, so that the warm-up never restores
+ * a stale or deleted user, and no password hash is written to the disk.
+ * The file is a magic number, a version, the number of addresses, then each address as its UTF-8 length (2 bytes) and bytes.
+ * It is memory-mapped to be read, and replaced atomically when written. A missing, truncated or unknown file is ignored.
+ */
+@Slf4j
+public class UserCacheSnapshot implements SmartLifecycle {
+
+    static final int MAGIC = 0x50535543;
+
+    static final int VERSION = 1;
+
+    private static final int MAX_LENGTH = 0xFFFF;
+
+    private final UserCache userCache;
+
+    private final UserRepository userRepository;
+
+    private final UserCacheProperties properties;
+
+    private ScheduledExecutorService executor;
+
+    public UserCacheSnapshot(UserCache userCache, UserRepository userRepository, UserCacheProperties properties) {
+        this.userCache = userCache;
+        this.userRepository = userRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the users of the snapshot file into the cache.
+     * @return Number of cached users
+     */
+    public int warmUp() {
+        List<String> mails = read(properties.getSnapshotPath());
+        int batchSize = properties.getWarmUpBatchSize();
+        int loaded = 0;
+
+        for (int from = 0; from < mails.size(); from += batchSize) {
+            for (User user : userRepository.findByMailIn(mails.subList(from, Math.min(from + batchSize, mails.size())))) {
+                userCache.put(user);
+                loaded++;
+            }
+        }
+
+        log.info("User cache warmed up with {} users of the {} saved in {}", loaded, mails.size(), properties.getSnapshotPath());
+
+        return loaded;
+    }
+
+    /**
+     * Saves the mail addresses of the cached users.
+     * @return Number of saved addresses
+     * @throws IOException If the file cannot be written. The previous snapshot is then kept
+     */
+    public synchronized int write() throws IOException {
+        Path path = properties.getSnapshotPath();
+        List<byte[]> mails = new ArrayList<>();
+
+        for (String mail : userCache.mails()) {
+            byte[] encoded = mail.getBytes(StandardCharsets.UTF_8);
+
+            if (encoded.length <= MAX_LENGTH) {
+                mails.add(encoded);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + mails.size() * 32);
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(mails.size());
+
+            for (byte[] mail : mails) {
+                output.writeShort(mail.length);
+                output.write(mail);
+            }
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        Files.write(temporary, bytes.toByteArray());
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return mails.size();
+    }
+
+    /**
+     * Reads the mail addresses of a snapshot file.
+     * @param path Snapshot file
+     * @return The saved addresses. Empty if the file is missing, truncated or of an unknown format
+     */
+    static List<String> read(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return Collections.emptyList();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignoring the user cache snapshot {} : unknown format", path);
+                return Collections.emptyList();
+            }
+
+            int count = buffer.getInt();
+            List<String> mails = new ArrayList<>(Math.min(count, buffer.remaining() / 2));
+            byte[] encoded = new byte[MAX_LENGTH];
+
+            for (int i = 0; i < count; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+
+                buffer.get(encoded, 0, length);
+                mails.add(new String(encoded, 0, length, StandardCharsets.UTF_8));
+            }
+
+            return mails;
+        } catch (BufferUnderflowException e) {
+            log.warn("Ignoring the user cache snapshot {} : truncated", path);
+        } catch (IOException e) {
+            log.warn("Ignoring the user cache snapshot {} : not readable", path, e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            warmUp();
+        } catch (RuntimeException e) {
+            log.error("User cache warm-up failed, the cache starts empty", e);
+        }
+
+        long interval = properties.getSnapshotInterval().toMillis();
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-cache-snapshot");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::writeSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        executor.shutdownNow();
+        executor = null;
+
+        writeSafely();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Started before the web server, so that the cache is warm when the first requests come in.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void writeSafely() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.error("User cache snapshot failed", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package fr.lsinquin.postit.api.serializers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Hand-written serializer for {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}.
+ * Notes lists are the biggest payloads of the API : this serializer avoids the reflection based bean serializer and uses pre-encoded field names.
+ */
+@JsonComponent
+public class NoteResponseSerializer extends StdSerializer<NoteResponse> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString CONTENT = new SerializedString("content");
+
+    public NoteResponseSerializer() {
+        super(NoteResponse.class);
+    }
+
+    @Override
+    public void serialize(NoteResponse noteResponse, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+        jsonGenerator.writeStartObject(noteResponse);
+
+        jsonGenerator.writeFieldName(ID);
+        if (noteResponse.getId() == null) {
+            jsonGenerator.writeNull();
+        } else {
+            jsonGenerator.writeNumber(noteResponse.getId());
+        }
+
+        jsonGenerator.writeFieldName(TITLE);
+        jsonGenerator.writeString(noteResponse.getTitle());
+
+        jsonGenerator.writeFieldName(CONTENT);
+        jsonGenerator.writeString(noteResponse.getContent());
+
+        jsonGenerator.writeEndObject();
+    }
+}
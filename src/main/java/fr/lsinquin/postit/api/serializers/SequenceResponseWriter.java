@@ -0,0 +1,80 @@
+package fr.lsinquin.postit.api.serializers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Opens streamed arrays on servlet responses, in the format negotiated with the Accept header.
+ * It picks the same Jackson converter as Spring MVC would for a returned value, so streamed endpoints support every wire format of the API.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SequenceResponseWriter {
+
+    private final HttpMessageConverters httpMessageConverters;
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    /**
+     * Sets the negotiated content type on the response and opens an array in its body.
+     * The returned writer must be closed to end the array, the response stream itself is left open.
+     * @param request request holding the Accept header
+     * @param response response in which the array is written
+     * @param type type of the elements of the array
+     * @return {@link com.fasterxml.jackson.databind.SequenceWriter SequenceWriter} writing the elements
+     * @throws HttpMediaTypeNotAcceptableException if no wire format matches the Accept header
+     * @throws IOException if the response can't be written
+     */
+    public SequenceWriter writeValuesAsArray(HttpServletRequest request, HttpServletResponse response, Class<?> type) throws HttpMediaTypeNotAcceptableException, IOException {
+        List<MediaType> acceptedMediaTypes = contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request));
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+
+        Set<MediaType> producibleMediaTypes = new LinkedHashSet<>();
+
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (HttpMessageConverter<?> converter : httpMessageConverters.getConverters()) {
+                if (!(converter instanceof AbstractJackson2HttpMessageConverter) || !converter.canWrite(type, null)) {
+                    continue;
+                }
+
+                for (MediaType producibleMediaType : converter.getSupportedMediaTypes(type)) {
+                    if (!producibleMediaType.isConcrete()) {
+                        continue;
+                    }
+
+                    if (acceptedMediaType.isCompatibleWith(producibleMediaType)) {
+                        response.setContentType(producibleMediaType.toString());
+
+                        return ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper()
+                                .writerFor(type)
+                                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                                .writeValuesAsArray(response.getOutputStream());
+                    }
+
+                    producibleMediaTypes.add(producibleMediaType);
+                }
+            }
+        }
+
+        throw new HttpMediaTypeNotAcceptableException(new ArrayList<>(producibleMediaTypes));
+    }
+}
@@ -0,0 +1,45 @@
+package fr.lsinquin.postit.api.server;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+
+/**
+ * Adds the HTTP/2 upgrade protocol to the Tomcat connector, which enables h2c on cleartext connections.
+ * When server.http2.enabled already added it (TLS), only its settings are applied.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class Http2ConnectorCustomizer implements TomcatConnectorCustomizer {
+
+    private final Http2Properties http2Properties;
+
+    @Override
+    public void customize(Connector connector) {
+        Http2Protocol http2Protocol = findHttp2Protocol(connector);
+
+        if (http2Protocol == null) {
+            http2Protocol = new Http2Protocol();
+            connector.addUpgradeProtocol(http2Protocol);
+        }
+
+        http2Protocol.setMaxConcurrentStreams(http2Properties.getMaxConcurrentStreams());
+        http2Protocol.setMaxConcurrentStreamExecution(http2Properties.getMaxConcurrentStreamExecution());
+        http2Protocol.setKeepAliveTimeout(http2Properties.getKeepAliveTimeout().toMillis());
+
+        log.info("HTTP/2 enabled on port {} : {} concurrent streams per connection", connector.getPort(), http2Properties.getMaxConcurrentStreams());
+    }
+
+    private Http2Protocol findHttp2Protocol(Connector connector) {
+        for (UpgradeProtocol upgradeProtocol : connector.findUpgradeProtocols()) {
+            if (upgradeProtocol instanceof Http2Protocol) {
+                return (Http2Protocol) upgradeProtocol;
+            }
+        }
+
+        return null;
+    }
+}
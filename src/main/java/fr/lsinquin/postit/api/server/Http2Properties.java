@@ -0,0 +1,36 @@
+package fr.lsinquin.postit.api.server;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cleartext HTTP/2 (h2c) settings of the embedded Tomcat, read from the postit.server.http2 properties.
+ * The other connector settings (threads, max connections, accept count, keep-alive) are Spring Boot's server.tomcat properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "postit.server.http2")
+public class Http2Properties {
+
+    /**
+     * Accepts HTTP/2 over cleartext connections, with prior knowledge or through an HTTP/1.1 Upgrade: h2c request.
+     * HTTP/1.1 clients are not affected.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Streams a client may open at the same time on a single connection.
+     */
+    private int maxConcurrentStreams = 100;
+
+    /**
+     * Streams of a single connection processed at the same time by the container threads.
+     */
+    private int maxConcurrentStreamExecution = 20;
+
+    /**
+     * Time an idle HTTP/2 connection is kept open.
+     */
+    private Duration keepAliveTimeout = Duration.ofSeconds(20);
+}
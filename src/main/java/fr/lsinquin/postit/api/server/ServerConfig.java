@@ -0,0 +1,24 @@
+package fr.lsinquin.postit.api.server;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Embedded Tomcat customization : h2c when postit.server.http2.enabled is true (default).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "postit.server.http2", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(Http2Properties.class)
+public class ServerConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> http2WebServerFactoryCustomizer(Http2Properties http2Properties) {
+        return factory -> factory.addConnectorCustomizers(new Http2ConnectorCustomizer(http2Properties));
+    }
+}
@@ -0,0 +1,115 @@
+package fr.lsinquin.postit.api.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21 while the application is compiled for Java 11.
+ * The API is looked up by reflection once : on older runtimes (or Java 19 and 20 without --enable-preview) virtual threads are reported as not supported.
+ */
+@Slf4j
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = lookUp(Thread.class, "ofVirtual");
+
+    private static final Method BUILDER_NAME = lookUp(builderClass(), "name", String.class, long.class);
+
+    private static final Method BUILDER_FACTORY = lookUp(builderClass(), "factory");
+
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = lookUp(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private static final Method IS_VIRTUAL = lookUp(Thread.class, "isVirtual");
+
+    private static final boolean SUPPORTED = probe();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the running JVM can create virtual threads
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * @param thread A thread
+     * @return true if the thread is a virtual thread. Always false when virtual threads are not supported
+     */
+    public static boolean isVirtual(Thread thread) {
+        return SUPPORTED && (boolean) invoke(IS_VIRTUAL, thread);
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task, named namePrefix followed by a counter.
+     * The executor is unbounded : the concurrency has to be limited by the resources the tasks use (connections, pools).
+     * @param namePrefix Prefix of the thread names
+     * @return The executor, to be shut down by the caller
+     * @throws UnsupportedOperationException if virtual threads are not supported, see {@link #isSupported()}
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!SUPPORTED) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by Java " + Runtime.version());
+        }
+
+        Object builder = invoke(BUILDER_NAME, invoke(OF_VIRTUAL, null), namePrefix, 0L);
+
+        return (ExecutorService) invoke(NEW_THREAD_PER_TASK_EXECUTOR, null, invoke(BUILDER_FACTORY, builder));
+    }
+
+    private static boolean probe() {
+        if (OF_VIRTUAL == null || BUILDER_NAME == null || BUILDER_FACTORY == null || NEW_THREAD_PER_TASK_EXECUTOR == null || IS_VIRTUAL == null) {
+            return false;
+        }
+
+        try {
+            // Preview API on Java 19 and 20 : throws UnsupportedOperationException unless --enable-preview is set
+            invoke(OF_VIRTUAL, null);
+
+            return true;
+        } catch (UnsupportedOperationException e) {
+            log.debug("Virtual threads not available : {}", e.getMessage());
+
+            return false;
+        }
+    }
+
+    private static Class<?> builderClass() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method lookUp(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
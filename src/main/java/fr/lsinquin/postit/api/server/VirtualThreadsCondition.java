@@ -0,0 +1,32 @@
+package fr.lsinquin.postit.api.server;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when postit.server.virtual-threads.enabled is true and the runtime supports virtual threads.
+ * When they are enabled but not supported, a warning is logged and the platform threads are kept.
+ */
+@Slf4j
+public class VirtualThreadsCondition extends SpringBootCondition {
+
+    static final String ENABLED_PROPERTY = "postit.server.virtual-threads.enabled";
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        if (!context.getEnvironment().getProperty(ENABLED_PROPERTY, Boolean.class, false)) {
+            return ConditionOutcome.noMatch(ENABLED_PROPERTY + " is false");
+        }
+
+        if (!VirtualThreads.isSupported()) {
+            log.warn("{} is true but Java {} has no virtual threads : falling back to platform threads", ENABLED_PROPERTY, Runtime.version());
+
+            return ConditionOutcome.noMatch("Virtual threads are not supported by Java " + Runtime.version());
+        }
+
+        return ConditionOutcome.match("Virtual threads enabled");
+    }
+}
@@ -0,0 +1,56 @@
+package fr.lsinquin.postit.api.server;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the Tomcat request processing and the application task executor (@Async methods, asynchronous MVC requests) on virtual threads.
+ * Opt-in through postit.server.virtual-threads.enabled, only applied when the runtime supports virtual threads (Java 21+).
+ * server.tomcat.threads.* no longer apply : the number of requests processed at the same time is bounded by server.tomcat.max-connections,
+ * and the database work by the connection pool.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Conditional(VirtualThreadsCondition.class)
+@Slf4j
+public class VirtualThreadsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatVirtualThreadExecutor() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor("http-vt-");
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsWebServerFactoryCustomizer(ExecutorService tomcatVirtualThreadExecutor) {
+        return factory -> factory.addProtocolHandlerCustomizers(protocolHandler -> {
+            protocolHandler.setExecutor(tomcatVirtualThreadExecutor);
+
+            log.info("Tomcat requests processed on virtual threads");
+        });
+    }
+
+    /**
+     * Replaces the pooled executor of Spring Boot, which backs off as soon as an Executor bean exists.
+     */
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME },
+            destroyMethod = "")
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService taskVirtualThreadExecutor) {
+        return new TaskExecutorAdapter(taskVirtualThreadExecutor);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService taskVirtualThreadExecutor() {
+        return VirtualThreads.newVirtualThreadPerTaskExecutor("task-vt-");
+    }
+}
@@ -0,0 +1,79 @@
+package fr.lsinquin.postit.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+
+import java.util.Objects;
+
+/**
+ * Applies the {@link PoolProperties pool configuration} to HikariCP pools.
+ * As a BeanPostProcessor, it configures the auto-configured pool once its spring.datasource.hikari properties are bound. Pools created outside of the
+ * context (read replicas) are configured by calling {@link #configure(HikariConfig)} directly.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class HikariPoolConfigurer implements BeanPostProcessor {
+
+    /**
+     * Tomcat default maximum number of threads.
+     */
+    private static final int DEFAULT_SERVLET_THREADS = 200;
+
+    private final ObjectProvider<PoolProperties> poolProperties;
+
+    private final Environment environment;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            configure((HikariDataSource) bean);
+        }
+
+        return bean;
+    }
+
+    /**
+     * Configures a not yet started pool.
+     * @param hikariConfig pool configuration
+     */
+    public void configure(HikariConfig hikariConfig) {
+        PoolProperties properties = poolProperties.getObject();
+
+        int maximumPoolSize = properties.getMaximumPoolSize() != null ? properties.getMaximumPoolSize() : PoolSizing.derivePoolSize(
+                Runtime.getRuntime().availableProcessors(),
+                properties.getEffectiveSpindleCount(),
+                getServletThreads(),
+                properties.getThreadsPerConnection()
+        );
+
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
+        hikariConfig.setMinimumIdle(properties.getMinimumIdle() != null ? Math.min(properties.getMinimumIdle(), maximumPoolSize) : maximumPoolSize);
+        hikariConfig.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        hikariConfig.setLeakDetectionThreshold(properties.getLeakDetectionThreshold().toMillis());
+
+        if (isPostgres(hikariConfig.getJdbcUrl())) {
+            hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", properties.getStatementCacheQueries());
+            hikariConfig.addDataSourceProperty("prepareThreshold", properties.getPrepareThreshold());
+            hikariConfig.addDataSourceProperty("reWriteBatchedInserts", properties.isRewriteBatchedInserts());
+        }
+
+        log.info("Pool {} configured with {} connections at most", Objects.requireNonNullElse(hikariConfig.getPoolName(), "default"), maximumPoolSize);
+    }
+
+    /**
+     * Retrieves the maximum number of servlet threads.
+     * @return value of server.tomcat.threads.max, Tomcat default otherwise
+     */
+    int getServletThreads() {
+        return environment.getProperty("server.tomcat.threads.max", Integer.class, DEFAULT_SERVLET_THREADS);
+    }
+
+    private boolean isPostgres(String jdbcUrl) {
+        return jdbcUrl != null && jdbcUrl.startsWith("jdbc:postgresql:");
+    }
+}
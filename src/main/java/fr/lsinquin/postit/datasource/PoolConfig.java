@@ -0,0 +1,31 @@
+package fr.lsinquin.postit.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Connection pools configuration. See {@link PoolProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(PoolProperties.class)
+public class PoolConfig {
+
+    /**
+     * Declared static as BeanPostProcessors are instantiated before regular beans.
+     */
+    @Bean
+    public static HikariPoolConfigurer hikariPoolConfigurer(ObjectProvider<PoolProperties> poolProperties, Environment environment) {
+        return new HikariPoolConfigurer(poolProperties, environment);
+    }
+
+    @Bean
+    public PoolSizeCheck poolSizeCheck(List<DataSource> dataSources, PoolProperties poolProperties, HikariPoolConfigurer hikariPoolConfigurer) {
+        return new PoolSizeCheck(dataSources, poolProperties, hikariPoolConfigurer);
+    }
+}
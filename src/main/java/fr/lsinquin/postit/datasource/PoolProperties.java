@@ -0,0 +1,77 @@
+package fr.lsinquin.postit.datasource;
+
+import lombok.Data;
+import org.hibernate.validator.constraints.time.DurationMin;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Connection pool configuration, bound to the postit.datasource.pool properties.
+ * It is applied to every HikariCP pool of the application (primary and replicas) by {@link HikariPoolConfigurer}.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.datasource.pool")
+public class PoolProperties {
+
+    /**
+     * Maximum number of connections of each pool. Derived from the number of cores and servlet threads when not set.
+     */
+    @Min(1)
+    private Integer maximumPoolSize;
+
+    /**
+     * Minimum number of idle connections. Defaults to the maximum pool size, making the pool a fixed size pool.
+     */
+    @Min(0)
+    private Integer minimumIdle;
+
+    /**
+     * Effective number of disks used in the pool size derivation : connections = cores * 2 + spindles.
+     */
+    @Min(0)
+    private int effectiveSpindleCount = 1;
+
+    /**
+     * Number of servlet threads a single connection is expected to serve.
+     * The derived pool size is never smaller than servlet threads / threads-per-connection and the startup check warns about pools smaller than that.
+     */
+    @Min(1)
+    private int threadsPerConnection = 10;
+
+    /**
+     * Maximum time a request waits for a connection before failing.
+     */
+    @NotNull
+    @DurationMin(millis = 250)
+    private Duration connectionTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Time a connection can be out of the pool before a possible leak is logged. Zero disables the leak detection.
+     */
+    @NotNull
+    private Duration leakDetectionThreshold = Duration.ofSeconds(30);
+
+    /**
+     * Number of prepared statements cached per connection by the PostgreSQL driver (preparedStatementCacheQueries).
+     */
+    @Min(0)
+    @Max(10_000)
+    private int statementCacheQueries = 256;
+
+    /**
+     * Number of executions after which the PostgreSQL driver switches to a server side prepared statement (prepareThreshold).
+     */
+    @Min(0)
+    private int prepareThreshold = 5;
+
+    /**
+     * Lets the PostgreSQL driver rewrite batched inserts into multi-values inserts (reWriteBatchedInserts).
+     */
+    private boolean rewriteBatchedInserts = true;
+}
@@ -0,0 +1,54 @@
+package fr.lsinquin.postit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Startup check warning when a connection pool is undersized for the servlet thread pool.
+ * A pool is undersized when each of its connections has to serve more than postit.datasource.pool.threads-per-connection servlet threads.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class PoolSizeCheck {
+
+    private final List<DataSource> dataSources;
+
+    private final PoolProperties poolProperties;
+
+    private final HikariPoolConfigurer hikariPoolConfigurer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPoolSizes() {
+        int servletThreads = hikariPoolConfigurer.getServletThreads();
+        int minimumPoolSize = PoolSizing.minimumPoolSize(servletThreads, poolProperties.getThreadsPerConnection());
+
+        for (DataSource dataSource : dataSources) {
+            ReplicaRoutingDataSource routingDataSource = unwrap(dataSource, ReplicaRoutingDataSource.class);
+            List<DataSource> pools = routingDataSource != null ? routingDataSource.getTargets() : List.of(dataSource);
+
+            for (DataSource pool : pools) {
+                HikariDataSource hikariDataSource = unwrap(pool, HikariDataSource.class);
+
+                if (hikariDataSource != null && hikariDataSource.getMaximumPoolSize() < minimumPoolSize) {
+                    log.warn("Pool {} is undersized : {} connections for {} servlet threads, at least {} are advised",
+                            hikariDataSource.getPoolName(), hikariDataSource.getMaximumPoolSize(), servletThreads, minimumPoolSize);
+                }
+            }
+        }
+    }
+
+    private <T> T unwrap(DataSource dataSource, Class<T> type) {
+        try {
+            return dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+        } catch (SQLException exception) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package fr.lsinquin.postit.datasource;
+
+/**
+ * Connection pool sizing rules.
+ */
+public final class PoolSizing {
+
+    private PoolSizing() {
+    }
+
+    /**
+     * Derives a pool size from the machine and the servlet thread pool.
+     * It starts from the usual connections = cores * 2 + spindles formula, raised so that each connection serves at most threadsPerConnection servlet threads,
+     * and capped by the number of servlet threads since more connections than threads can't be used.
+     * @param cores number of available processors
+     * @param spindles effective number of disks
+     * @param servletThreads maximum number of servlet threads
+     * @param threadsPerConnection number of servlet threads a connection is expected to serve
+     * @return derived maximum pool size
+     */
+    public static int derivePoolSize(int cores, int spindles, int servletThreads, int threadsPerConnection) {
+        int size = Math.max(cores * 2 + spindles, minimumPoolSize(servletThreads, threadsPerConnection));
+
+        return Math.max(1, Math.min(size, servletThreads));
+    }
+
+    /**
+     * Computes the smallest pool size fitting a servlet thread pool.
+     * @param servletThreads maximum number of servlet threads
+     * @param threadsPerConnection number of servlet threads a connection is expected to serve
+     * @return minimum pool size
+     */
+    public static int minimumPoolSize(int servletThreads, int threadsPerConnection) {
+        return (servletThreads + threadsPerConnection - 1) / threadsPerConnection;
+    }
+}
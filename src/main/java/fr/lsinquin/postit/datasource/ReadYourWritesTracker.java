@@ -0,0 +1,80 @@
+package fr.lsinquin.postit.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which subjects recently wrote to the primary database.
+ * During the read-your-writes window following a write, the reads of a subject are sent to the primary so that he never reads stale data from a lagging replica.
+ * A zero window disables the tracking.
+ * Above PURGE_THRESHOLD subjects, the expired entries are purged by a single caller at most once per PURGE_INTERVAL_NANOS, so that the writes do not scan the whole map each.
+ */
+public class ReadYourWritesTracker {
+
+    /**
+     * Number of tracked subjects above which expired entries are purged.
+     */
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long windowNanos;
+
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextPurge = new AtomicLong(System.nanoTime());
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Records a write made by a subject.
+     * @param subject The user represented by his mail address
+     */
+    public void recordWrite(String subject) {
+        if (windowNanos <= 0 || subject == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        lastWrites.put(subject, now);
+        purgeExpired(now);
+    }
+
+    /**
+     * Decides if a subject wrote recently enough for his reads to be sent to the primary.
+     * @param subject The user represented by his mail address
+     * @return True if the subject wrote during the read-your-writes window. False otherwise
+     */
+    public boolean isWithinWindow(String subject) {
+        if (windowNanos <= 0 || subject == null) {
+            return false;
+        }
+
+        Long writtenAt = lastWrites.get(subject);
+
+        return writtenAt != null && System.nanoTime() - writtenAt <= windowNanos;
+    }
+
+    /**
+     * @return Number of tracked subjects
+     */
+    int size() {
+        return lastWrites.size();
+    }
+
+    private void purgeExpired(long now) {
+        long next = nextPurge.get();
+
+        if (lastWrites.size() <= PURGE_THRESHOLD || now - next < 0 || !nextPurge.compareAndSet(next, now + PURGE_INTERVAL_NANOS)) {
+            return;
+        }
+
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt > windowNanos);
+    }
+}
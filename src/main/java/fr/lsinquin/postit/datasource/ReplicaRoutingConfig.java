@@ -0,0 +1,99 @@
+package fr.lsinquin.postit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource by a {@link ReplicaRoutingDataSource} when postit.datasource.routing.enabled is true.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "postit.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@Slf4j
+public class ReplicaRoutingConfig {
+
+    /**
+     * The application DataSource. Connections are fetched lazily, once the transaction (and its read-only flag) is known.
+     * @param primaryProperties primary connection settings (spring.datasource properties)
+     * @param routingProperties replicas connection settings
+     * @param hikariPoolConfigurer configurer applying the postit.datasource.pool properties
+     * @param meterRegistry registry the pools metrics are published to, if any
+     * @return DataSource used by JPA, Flyway, etc.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties, ReplicaRoutingProperties routingProperties,
+                                 HikariPoolConfigurer hikariPoolConfigurer, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        configurePool(primary, hikariPoolConfigurer, meterRegistry);
+
+        List<DataSource> replicas = new ArrayList<>();
+
+        for (ReplicaRoutingProperties.Replica replicaProperties : routingProperties.getReplicas()) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replicaProperties.getUrl())
+                    .username(replicaProperties.getUsername())
+                    .password(replicaProperties.getPassword())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            configurePool(replica, hikariPoolConfigurer, meterRegistry);
+
+            replicas.add(replica);
+        }
+
+        log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(
+                primary,
+                replicas,
+                new ReadYourWritesTracker(routingProperties.getReadYourWritesWindow())
+        );
+        routingDataSource.afterPropertiesSet();
+
+        return new ClosingLazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private void configurePool(HikariDataSource pool, HikariPoolConfigurer hikariPoolConfigurer, ObjectProvider<MeterRegistry> meterRegistry) {
+        hikariPoolConfigurer.configure(pool);
+
+        meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+    }
+
+    /**
+     * LazyConnectionDataSourceProxy closing the pools of the routing DataSource on application shutdown.
+     */
+    private static class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final ReplicaRoutingDataSource routingDataSource;
+
+        ClosingLazyConnectionDataSourceProxy(ReplicaRoutingDataSource routingDataSource) {
+            super(routingDataSource);
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Override
+        public void close() throws IOException {
+            routingDataSource.close();
+        }
+    }
+}
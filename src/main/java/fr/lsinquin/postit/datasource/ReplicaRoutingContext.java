@@ -0,0 +1,60 @@
+package fr.lsinquin.postit.datasource;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the subject (user mail address) on whose behalf database work is currently done.
+ * The subject is used by {@link ReplicaRoutingDataSource} to apply the read-your-writes window.
+ * By default the subject is the authenticated user, never the anonymous one : the writes of anonymous requests must not send the reads of all the others to the primary. {@link #callAs(String, Supplier)} allows to specify it when no user is authenticated yet (login, registration).
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<String> SUBJECT = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    /**
+     * Runs an action on behalf of a specific subject.
+     * @param subject The user represented by his mail address
+     * @param action action to run
+     * @param <T> type of the action result
+     * @return the action result
+     */
+    public static <T> T callAs(String subject, Supplier<T> action) {
+        String previous = SUBJECT.get();
+        SUBJECT.set(subject);
+
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SUBJECT.remove();
+            } else {
+                SUBJECT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current subject.
+     * @return The user represented by his mail address. Null if there is no current subject, or if the user is anonymous
+     */
+    static String currentSubject() {
+        String subject = SUBJECT.get();
+
+        if (subject != null) {
+            return subject;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        boolean anonymous = authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken;
+
+        return anonymous ? null : authentication.getName();
+    }
+}
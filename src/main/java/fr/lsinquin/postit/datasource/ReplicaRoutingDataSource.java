@@ -0,0 +1,100 @@
+package fr.lsinquin.postit.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource routing read-only transactions to replicas and everything else to the primary.
+ * Replicas are used in a round robin fashion. Reads of a subject who wrote during the {@link ReadYourWritesTracker read-your-writes window} stay on the primary.
+ * The routing decision is made when a connection is requested : this DataSource is meant to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy LazyConnectionDataSourceProxy} so that the transaction is started before a connection is fetched.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    private static final String REPLICA_PREFIX = "replica-";
+
+    private final int replicaCount;
+
+    private final List<DataSource> targets = new ArrayList<>();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker readYourWritesTracker) {
+        this.replicaCount = replicas.size();
+        this.readYourWritesTracker = readYourWritesTracker;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.targets.add(primary);
+        this.targets.addAll(replicas);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String subject = ReplicaRoutingContext.currentSubject();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Only actual read-write transactions count as writes. Statements run outside of any transaction are not tracked.
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.recordWrite(subject);
+            }
+
+            return PRIMARY;
+        }
+
+        if (replicaCount == 0 || readYourWritesTracker.isWithinWindow(subject)) {
+            return PRIMARY;
+        }
+
+        String replica = REPLICA_PREFIX + Math.floorMod(nextReplica.getAndIncrement(), replicaCount);
+
+        log.trace("Routing read-only transaction to {}", replica);
+
+        return replica;
+    }
+
+    /**
+     * Retrieves the routed DataSources.
+     * @return the primary followed by the replicas
+     */
+    public List<DataSource> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Closes the primary and replicas pools.
+     * @throws IOException {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataSource target : targets) {
+            if (target instanceof Closeable) {
+                ((Closeable) target).close();
+            }
+        }
+    }
+}
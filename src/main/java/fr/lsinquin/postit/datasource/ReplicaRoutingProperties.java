@@ -0,0 +1,39 @@
+package fr.lsinquin.postit.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas configuration, bound to the postit.datasource.routing properties.
+ * The primary database is still configured through the spring.datasource properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "postit.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    /**
+     * Enables the routing of read-only transactions to the replicas.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Replicas connection settings. Read-only transactions are spread over them in a round robin fashion.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Duration after a write during which the reads of the same user are sent to the primary. Zero disables it.
+     */
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
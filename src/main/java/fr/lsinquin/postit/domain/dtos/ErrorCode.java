@@ -4,5 +4,5 @@ import lombok.Getter;
 
 @Getter
 public enum ErrorCode {
-    ERR_EXISTING_USER, ERR_INPUT_VALIDATION;
+    ERR_EXISTING_USER, ERR_INPUT_VALIDATION, ERR_INVALID_IDEMPOTENCY_KEY, ERR_IDEMPOTENCY_KEY_IN_USE, ERR_IDEMPOTENCY_KEY_REUSED, ERR_TOO_MANY_REQUESTS;
 }
@@ -0,0 +1,23 @@
+package fr.lsinquin.postit.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class NoteBatchDeleteRequest {
+
+    @NotEmpty(message = "Le champ ids est obligatoire")
+    @Size(max = 1000, message = "Le champ ids comporte au maximum 1000 identifiants")
+    private final List<@NotNull(message = "Les identifiants ne peuvent pas être nuls") Integer> ids;
+
+    @JsonCreator
+    public NoteBatchDeleteRequest(@JsonProperty("ids") List<Integer> ids) {
+        this.ids = ids;
+    }
+}
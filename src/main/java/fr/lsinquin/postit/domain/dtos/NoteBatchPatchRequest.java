@@ -0,0 +1,31 @@
+package fr.lsinquin.postit.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Same title and/or content applied to several notes. A field left null is not modified.
+ */
+@Data
+public class NoteBatchPatchRequest {
+
+    @NotEmpty(message = "Le champ ids est obligatoire")
+    @Size(max = 1000, message = "Le champ ids comporte au maximum 1000 identifiants")
+    private final List<@NotNull(message = "Les identifiants ne peuvent pas être nuls") Integer> ids;
+
+    private final String title;
+
+    private final String content;
+
+    @JsonIgnore
+    @AssertTrue(message = "Au moins un des champs title et content est obligatoire")
+    public boolean isModifying() {
+        return title != null || content != null;
+    }
+}
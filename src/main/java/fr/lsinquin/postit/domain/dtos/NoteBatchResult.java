@@ -0,0 +1,9 @@
+package fr.lsinquin.postit.domain.dtos;
+
+import lombok.Data;
+
+@Data
+public class NoteBatchResult {
+    private final Integer id;
+    private final NoteBatchStatus status;
+}
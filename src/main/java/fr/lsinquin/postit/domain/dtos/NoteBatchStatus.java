@@ -0,0 +1,8 @@
+package fr.lsinquin.postit.domain.dtos;
+
+/**
+ * Result of a batch operation for one note. As for the single note endpoints, the notes of other users are reported as not found.
+ */
+public enum NoteBatchStatus {
+    DELETED, UPDATED, NOT_FOUND;
+}
@@ -0,0 +1,47 @@
+package fr.lsinquin.postit.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import java.util.Optional;
+
+/**
+ * JSON Merge Patch (RFC 7396) of a note. A field absent from the payload is not modified : it stays null here.
+ * A field set to null would remove it, which a note does not allow : it is bound to an empty Optional and rejected by the validation.
+ * Fields are bound by setters, which Jackson only calls for the fields present in the payload.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NotePatchRequest {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private Optional<@NotNull(message = "Le champ title ne peut pas être supprimé") String> title;
+
+    private Optional<@NotNull(message = "Le champ content ne peut pas être supprimé") String> content;
+
+    public NotePatchRequest(Optional<String> title, Optional<String> content) {
+        this.title = title;
+        this.content = content;
+    }
+
+    /**
+     * @return New title, null if the title is not modified
+     */
+    @JsonIgnore
+    public String getPatchedTitle() {
+        return title == null ? null : title.orElse(null);
+    }
+
+    /**
+     * @return New content, null if the content is not modified
+     */
+    @JsonIgnore
+    public String getPatchedContent() {
+        return content == null ? null : content.orElse(null);
+    }
+}
@@ -0,0 +1,14 @@
+package fr.lsinquin.postit.domain.dtos;
+
+import lombok.Data;
+
+/**
+ * Note as shown in lists : its content is reduced to a preview of its first characters, along with its length in characters.
+ */
+@Data
+public class NoteSummaryResponse {
+    private final Integer id;
+    private final String title;
+    private final String preview;
+    private final Integer length;
+}
@@ -0,0 +1,19 @@
+package fr.lsinquin.postit.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+public class RefreshTokenRequest {
+
+    @NotBlank(message = "Le champ refreshToken est obligatoire")
+    private final String refreshToken;
+
+    @JsonCreator
+    public RefreshTokenRequest(@JsonProperty("refreshToken") String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
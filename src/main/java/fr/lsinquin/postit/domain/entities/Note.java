@@ -1,13 +1,28 @@
 package fr.lsinquin.postit.domain.entities;
 
+import fr.lsinquin.postit.storage.ContentChunking;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.StoredContent;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
+/**
+ * Note of a user. Updates only write the modified columns : changing the title does not rewrite a large content.
+ * Long contents are stored compressed (see {@link fr.lsinquin.postit.storage.ContentCompression ContentCompression}) and decompressed on their first read.
+ * The length and, for compressed contents, the preview of the content are stored for the note summaries.
+ * A content may also be shared with other notes in a {@link NoteBlob}, the note then only stores its length and preview.
+ * Very large contents are stored as chunks (see {@link fr.lsinquin.postit.storage.ContentChunking ContentChunking}), only loaded if the whole content is read.
+ */
 @Entity
+@DynamicUpdate
 @Getter @Setter @NoArgsConstructor
 public class Note {
     @Id
@@ -20,35 +35,196 @@ public class Note {
 
     private String title;
 
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
     private String content;
 
+    @Setter(AccessLevel.NONE)
+    @Column(name = "compressed_content")
+    private byte[] compressedContent;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "content_length")
+    private Integer contentLength;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "content_preview")
+    private String contentPreview;
+
+    @Transient
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private String decompressedContent;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_hash")
+    @Setter(AccessLevel.NONE)
+    private NoteBlob blob;
+
+    /**
+     * Number of bytes of the content when it is stored as chunks, null otherwise
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "content_size")
+    private Long contentSize;
+
+    /**
+     * Version of the chunks, a new random value every time they are replaced or removed. Chunks are read along with it (see {@link fr.lsinquin.postit.storage.ChunkedContentResource ChunkedContentResource})
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "content_version")
+    private long contentVersion;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "note_chunk", joinColumns = @JoinColumn(name = "note_id"))
+    @OrderColumn(name = "seq")
+    @Column(name = "data")
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private List<byte[]> chunks = new ArrayList<>();
+
     @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
+    /**
+     * New note, its content stored as plain text : see {@link #setContent(String, ContentCompression, ContentChunking)} to store it compressed or chunked.
+     */
     public Note(String title, String content, User user) {
         this.title = title;
-        this.content = content;
         this.user = user;
+        storeContent(content, StoredContent.of(content, null), null);
     }
 
+    /**
+     * Note with an id, its content stored as plain text : see {@link #setContent(String, ContentCompression, ContentChunking)} to store it compressed or chunked.
+     */
     public Note(Integer id, String title, String content, User user) {
+        this.id = id;
+        this.title = title;
+        this.user = user;
+        storeContent(content, StoredContent.of(content, null), null);
+    }
+
+    /**
+     * Note as stored : the content is either plain or compressed.
+     */
+    public Note(Integer id, String title, String content, byte[] compressedContent, User user) {
         this.id = id;
         this.title = title;
         this.content = content;
+        this.compressedContent = compressedContent;
         this.user = user;
     }
 
+    /**
+     * @return the content, read from its blob or chunks, or decompressed if it is stored so
+     */
+    public String getContent() {
+        if (blob != null) {
+            return blob.getContent();
+        }
+
+        if (contentSize != null) {
+            if (decompressedContent == null) {
+                decompressedContent = ContentChunking.join(chunks);
+            }
+
+            return decompressedContent;
+        }
+
+        if (compressedContent == null) {
+            return content;
+        }
+
+        if (decompressedContent == null) {
+            decompressedContent = ContentCompression.decompress(compressedContent);
+        }
+
+        return decompressedContent;
+    }
+
+    /**
+     * Sets the content, stored in the note and compressed if it is long enough, along with its length and preview.
+     * @param content the content
+     * @param contentCompression compression of the long contents
+     */
+    public void setContent(String content, ContentCompression contentCompression) {
+        storeContent(content, contentCompression.store(content), null);
+    }
+
+    /**
+     * Sets the content, compressed or chunked if it is long enough, along with its length and preview.
+     * @param content the content
+     * @param contentCompression compression of the long contents
+     * @param contentChunking chunking of the very long contents
+     */
+    public void setContent(String content, ContentCompression contentCompression, ContentChunking contentChunking) {
+        List<byte[]> contentChunks = contentChunking.split(content);
+
+        storeContent(content, contentChunks == null ? contentCompression.store(content) : StoredContent.external(content), contentChunks);
+    }
+
+    private void storeContent(String content, StoredContent storedContent, List<byte[]> contentChunks) {
+        this.content = storedContent.getContent();
+        this.compressedContent = storedContent.getCompressedContent();
+        this.contentLength = storedContent.getLength();
+        this.contentPreview = storedContent.getPreview();
+        this.decompressedContent = storedContent.getContent() == null ? content : null;
+        this.blob = null;
+        setChunks(contentChunks);
+    }
+
+    /**
+     * Sets the content as stored in a shared blob : only its length and preview are stored in the note.
+     * @param blob {@link NoteBlob blob} of the content
+     * @param content the content
+     */
+    public void setBlob(NoteBlob blob, String content) {
+        StoredContent storedContent = StoredContent.external(content);
+
+        this.content = null;
+        this.compressedContent = null;
+        this.contentLength = storedContent.getLength();
+        this.contentPreview = storedContent.getPreview();
+        this.decompressedContent = null;
+        this.blob = blob;
+        setChunks(null);
+    }
+
+    /**
+     * @return True if the content is stored as chunks
+     */
+    public boolean isChunked() {
+        return contentSize != null;
+    }
+
+    /**
+     * Replaces the chunks of the content. The previous chunks are deleted without being loaded.
+     * @param contentChunks chunks of the content, null if it is not chunked
+     */
+    private void setChunks(List<byte[]> contentChunks) {
+        if (contentChunks != null) {
+            this.chunks = new ArrayList<>(contentChunks);
+            this.contentSize = ContentChunking.size(contentChunks);
+            this.contentVersion = ContentChunking.newVersion();
+        } else if (contentSize != null) {
+            this.chunks = new ArrayList<>();
+            this.contentSize = null;
+            this.contentVersion = ContentChunking.newVersion();
+        }
+    }
+
+    /**
+     * Notes are equal if they have the same id. The content is neither compared nor loaded : it may be compressed, in a blob or in chunks.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Note)) return false;
         Note note = (Note) o;
-        return Objects.equals(id, note.id) && Objects.equals(title, note.title) && Objects.equals(content, note.content);
+        return id != null && Objects.equals(id, note.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, content);
+        return Objects.hashCode(id);
     }
 
     @Override
@@ -56,7 +232,7 @@ public class Note {
         return "Note{" +
                 "id=" + id +
                 ", title='" + title + '\'' +
-                ", content='" + content + '\'' +
+                ", contentLength=" + contentLength +
                 '}';
     }
 }
@@ -0,0 +1,130 @@
+package fr.lsinquin.postit.domain.entities;
+
+import fr.lsinquin.postit.storage.ContentCompression;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+import org.springframework.security.crypto.codec.Hex;
+
+import javax.persistence.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Content shared by the notes having the same content, stored once and identified by its hash.
+ * Its reference count is only updated by queries (see {@link fr.lsinquin.postit.repositories.NoteBlobRepository NoteBlobRepository}) : the entity is never modified once inserted.
+ * Long contents are stored compressed, as the contents of the notes.
+ */
+@Entity
+@Table(name = "note_blob")
+@Getter @NoArgsConstructor
+public class NoteBlob implements Persistable<String> {
+
+    /**
+     * Hexadecimal SHA-256 of the UTF-8 content
+     */
+    @Id
+    private String hash;
+
+    @Getter(AccessLevel.NONE)
+    private String content;
+
+    @Column(name = "compressed_content")
+    private byte[] compressedContent;
+
+    @Column(name = "ref_count")
+    private int refCount;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private String decompressedContent;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean inserted;
+
+    /**
+     * New blob, without reference
+     * @param content the content
+     * @param contentCompression compression of the content, if it is long enough
+     */
+    public NoteBlob(String content, ContentCompression contentCompression) {
+        this.hash = hashOf(content);
+        this.compressedContent = contentCompression.compress(content);
+        this.content = compressedContent == null ? content : null;
+        this.decompressedContent = compressedContent == null ? null : content;
+        this.inserted = true;
+    }
+
+    /**
+     * @return the content, decompressed if it is stored compressed
+     */
+    public String getContent() {
+        if (compressedContent == null) {
+            return content;
+        }
+
+        if (decompressedContent == null) {
+            decompressedContent = ContentCompression.decompress(compressedContent);
+        }
+
+        return decompressedContent;
+    }
+
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    /**
+     * A blob created by its constructor is inserted, never merged : two transactions inserting the same content conflict on the primary key instead of overwriting each other.
+     */
+    @Override
+    public boolean isNew() {
+        return inserted;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markStored() {
+        inserted = false;
+    }
+
+    /**
+     * @param content a content
+     * @return the hexadecimal SHA-256 of its UTF-8 bytes
+     */
+    public static String hashOf(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+
+            return new String(Hex.encode(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NoteBlob)) return false;
+        NoteBlob noteBlob = (NoteBlob) o;
+        return Objects.equals(getHash(), noteBlob.getHash());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getHash());
+    }
+
+    @Override
+    public String toString() {
+        return "NoteBlob{" +
+                "hash='" + hash + '\'' +
+                ", refCount=" + refCount +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package fr.lsinquin.postit.domain.entities;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Refresh token of a user. Only the SHA-256 of the token is stored, the token itself is only known by the client.
+ */
+@Entity
+@Table(name = "refresh_token")
+@Getter @Setter @NoArgsConstructor
+public class RefreshToken {
+
+    /**
+     * Hexadecimal SHA-256 of the token
+     */
+    @Id
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private User user;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    public RefreshToken(String id, User user, Instant expiresAt) {
+        this.id = id;
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RefreshToken)) return false;
+        RefreshToken refreshToken = (RefreshToken) o;
+        return Objects.equals(id, refreshToken.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshToken{" +
+                "expiresAt=" + expiresAt +
+                '}';
+    }
+}
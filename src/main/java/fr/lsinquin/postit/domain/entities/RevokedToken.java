@@ -0,0 +1,50 @@
+package fr.lsinquin.postit.domain.entities;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Access token revoked before its expiration, identified by its jti claim.
+ */
+@Entity
+@Table(name = "revoked_token")
+@Getter @Setter @NoArgsConstructor
+public class RevokedToken {
+
+    @Id
+    private String id;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    public RevokedToken(String id, Instant expiresAt) {
+        this.id = id;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RevokedToken)) return false;
+        RevokedToken revokedToken = (RevokedToken) o;
+        return Objects.equals(id, revokedToken.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+                "id='" + id + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -3,6 +3,9 @@ package fr.lsinquin.postit.domain.entities;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.Objects;
@@ -12,13 +15,20 @@ import java.util.Objects;
 @Getter @Setter @NoArgsConstructor
 public class User {
 
+    /**
+     * Allocated by blocks of 50 from app_user_id_seq (see the V9 Flyway migration) : a single query of the sequence for 50 new users
+     */
     @Id
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "user_id_seq",
-            sequenceName = "app_user_id_seq",
-            allocationSize = 1
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "app_user_id_seq"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+                    @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+            }
     )
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_seq")
+    @GeneratedValue(generator = "user_id_seq")
     private Integer id;
 
     private String mail;
@@ -0,0 +1,11 @@
+package fr.lsinquin.postit.domain.exceptions;
+
+/**
+ * Exception to be raised when a request with the same idempotency key is still being processed after the lock timeout.
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package fr.lsinquin.postit.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Embedded server of the reactive stack (reactive profile).
+ * Tomcat is also on the classpath for the servlet stack and would be preferred by Spring Boot : Netty is declared explicitly,
+ * so that connections are served by a few event loop threads instead of a thread per in-flight request.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,85 @@
+package fr.lsinquin.postit.reactive.controllers;
+
+import fr.lsinquin.postit.api.security.JwtProperties;
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.api.security.LoginThrottle;
+import fr.lsinquin.postit.domain.dtos.UserRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reactive counterpart of {@link fr.lsinquin.postit.api.controllers.AuthController AuthController}, without refresh tokens nor logout :
+ * they rely on the JPA repositories of the servlet stack. Its access tokens expire after postit.jwt.reactive-access-token-ttl.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    private final JwtProperties jwtProperties;
+
+    private final ReactiveAuthenticationManager authenticationManager;
+
+    private final LoginThrottle loginThrottle;
+
+    /**
+     * POST /login endpoint.
+     * It logs in a user retrieving a JWT to use.
+     * Attempts blocked by the {@link LoginThrottle} after too many failures are answered with a 429, without the password being verified.
+     * @param userDto {@link fr.lsinquin.postit.domain.dtos.UserRequest UserRequest} representing the parsed payload
+     * @param exchange Current exchange, giving the client address
+     * @return Mono of the String representing a JWT.
+     */
+    @PostMapping("login")
+    public Mono<ResponseEntity<String>> login(@Valid @RequestBody UserRequest userDto, ServerWebExchange exchange) {
+        log.info("Handling login request");
+
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        String address = remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "";
+        long blockedFor = loginThrottle.blockedFor(userDto.getMail(), address);
+
+        if (blockedFor > 0) {
+            log.debug("Login attempt blocked for {} ms", blockedFor);
+
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(blockedFor + 999)))
+                    .build());
+        }
+
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(userDto.getMail(), userDto.getPassword()))
+                .doOnNext(authentication -> loginThrottle.recordSuccess(userDto.getMail()))
+                .map(authentication -> jwtTokenUtil.generateAccessToken(((UserDetails) authentication.getPrincipal()).getUsername(), jwtProperties.getReactiveAccessTokenTtl()))
+                .map(token -> ResponseEntity.ok()
+                        .header(
+                                HttpHeaders.AUTHORIZATION,
+                                token
+                        )
+                        .body(token))
+                .onErrorResume(BadCredentialsException.class, exception -> {
+                    log.debug("Authentication failed with message : {}", exception.getMessage());
+                    loginThrottle.recordFailure(userDto.getMail(), address);
+
+                    return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+                });
+    }
+}
@@ -0,0 +1,198 @@
+package fr.lsinquin.postit.reactive.controllers;
+
+import fr.lsinquin.postit.api.security.CustomUserDetails;
+import fr.lsinquin.postit.domain.dtos.NoteBatchDeleteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchPatchRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchResult;
+import fr.lsinquin.postit.domain.dtos.NotePatchRequest;
+import fr.lsinquin.postit.domain.dtos.NoteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
+import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.reactive.services.ReactiveNoteService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link fr.lsinquin.postit.api.controllers.NoteController NoteController}.
+ */
+@RestController
+@RequestMapping("/notes")
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNoteController {
+
+    private final ReactiveNoteService noteService;
+
+    /**
+     * Secured GET /notes endpoint.
+     * It retrieves authenticated user's notes. The notes are written to the response while they are read from the database.
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @return Flux of {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}
+     */
+    @GetMapping()
+    public Flux<NoteResponse> getNotesByUser(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        log.info("Handling getting user's notes");
+
+        return noteService.findUserNotes(userDetails.getUser())
+                .map(this::convertNoteToNoteResponse);
+    }
+
+    /**
+     * Secured GET /notes?view=summary endpoint.
+     * It retrieves the summaries of authenticated user's notes : the contents are reduced to a preview and a length, the full contents come from GET /notes/:id.
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @return Flux of {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse}
+     */
+    @GetMapping(params = "view=summary")
+    public Flux<NoteSummaryResponse> getNoteSummariesByUser(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        log.info("Handling getting user's note summaries");
+
+        return noteService.findUserNoteSummaries(userDetails.getUser());
+    }
+
+    /**
+     * Secured POST /notes endpoint.
+     * It created a new note for the authenticated user
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param noteDto {@link fr.lsinquin.postit.domain.dtos.NoteRequest NoteRequest} representing the parsed payload
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} representing the created note
+     */
+    @PostMapping()
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<NoteResponse> postNote(@AuthenticationPrincipal CustomUserDetails userDetails, @Valid @RequestBody NoteRequest noteDto) {
+        log.info("Handling posting new note");
+
+        return noteService.createNote(userDetails.getUser(), noteDto.getTitle(), noteDto.getContent())
+                .map(this::convertNoteToNoteResponse);
+    }
+
+    /**
+     * Secured GET /notes/:id endpoint.
+     * It retrieves a specific note
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the wanted note
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} representing wanted note
+     */
+    @GetMapping("/{id}")
+    public Mono<NoteResponse> getNoteById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id) {
+        log.info("Handling getting a specific note");
+
+        return noteService.findNote(userDetails.getUser(), id)
+                .map(this::convertNoteToNoteResponse);
+    }
+
+    /**
+     * Secured GET /notes/:id/content endpoint.
+     * It retrieves the content of a specific note as plain text. Range requests are supported : the ranges are byte offsets in the UTF-8 content.
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the wanted note
+     * @return Mono of the {@link org.springframework.core.io.Resource Resource} of the content
+     */
+    @GetMapping("/{id}/content")
+    public Mono<ResponseEntity<Resource>> getNoteContentById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id) {
+        log.info("Handling getting the content of a specific note");
+
+        return noteService.findNoteContent(userDetails.getUser(), id)
+                .map(content -> ResponseEntity.ok()
+                        .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                        .body(content));
+    }
+
+    /**
+     * Secured PUT /notes/:id endpoint.
+     * It modifies a specific note
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the to be modifid note
+     * @param noteDto {@link fr.lsinquin.postit.domain.dtos.NoteRequest NoteRequest} representing the parsed payload
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} representing the modified note
+     */
+    @PutMapping("/{id}")
+    public Mono<NoteResponse> putNoteById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id, @Valid @RequestBody NoteRequest noteDto) {
+        log.info("Handling putting a specific note");
+
+        return noteService.modifyNote(userDetails.getUser(), id, noteDto.getTitle(), noteDto.getContent())
+                .map(this::convertNoteToNoteResponse);
+    }
+
+    /**
+     * Secured PATCH /notes/:id endpoint.
+     * It modifies the fields of a specific note present in a JSON Merge Patch, the other ones are kept
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the to be modified note
+     * @param patchDto {@link fr.lsinquin.postit.domain.dtos.NotePatchRequest NotePatchRequest} representing the parsed payload
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} representing the modified note
+     */
+    @PatchMapping(value = "/{id}", consumes = { NotePatchRequest.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE })
+    public Mono<NoteResponse> patchNoteById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id, @Valid @RequestBody NotePatchRequest patchDto) {
+        log.info("Handling patching a specific note");
+
+        return noteService.patchNote(userDetails.getUser(), id, patchDto.getPatchedTitle(), patchDto.getPatchedContent())
+                .map(this::convertNoteToNoteResponse);
+    }
+
+    /**
+     * Secured DELETE /notes/:id endpoint.
+     * It deletes a specific note
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param id id of the to be deleted note
+     * @return Mono completing once the note is deleted
+     */
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteNoteById(@AuthenticationPrincipal CustomUserDetails userDetails, @PathVariable Integer id) {
+        log.info("Handling deleting a specific note");
+
+        return noteService.deleteNote(userDetails.getUser(), id);
+    }
+
+    /**
+     * Secured POST /notes/batch-delete endpoint.
+     * It deletes several notes of the authenticated user at once
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param batchDto {@link fr.lsinquin.postit.domain.dtos.NoteBatchDeleteRequest NoteBatchDeleteRequest} representing the parsed payload
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult NoteBatchResult} of each id
+     */
+    @PostMapping("/batch-delete")
+    public Mono<List<NoteBatchResult>> batchDeleteNotes(@AuthenticationPrincipal CustomUserDetails userDetails, @Valid @RequestBody NoteBatchDeleteRequest batchDto) {
+        log.info("Handling deleting a batch of notes");
+
+        return noteService.deleteNotes(userDetails.getUser(), batchDto.getIds());
+    }
+
+    /**
+     * Secured PATCH /notes endpoint.
+     * It sets the same title and/or content to several notes of the authenticated user at once
+     * @param userDetails {@link fr.lsinquin.postit.api.security.CustomUserDetails Authenticated user}
+     * @param batchDto {@link fr.lsinquin.postit.domain.dtos.NoteBatchPatchRequest NoteBatchPatchRequest} representing the parsed payload
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult NoteBatchResult} of each id
+     */
+    @PatchMapping()
+    public Mono<List<NoteBatchResult>> batchPatchNotes(@AuthenticationPrincipal CustomUserDetails userDetails, @Valid @RequestBody NoteBatchPatchRequest batchDto) {
+        log.info("Handling patching a batch of notes");
+
+        return noteService.modifyNotes(userDetails.getUser(), batchDto.getIds(), batchDto.getTitle(), batchDto.getContent());
+    }
+
+    /**
+     * Mapper between a {@link fr.lsinquin.postit.domain.entities.Note Note entity} and a {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}
+     * @param note {@link fr.lsinquin.postit.domain.entities.Note Note entity}
+     * @return mapped {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}
+     */
+    private NoteResponse convertNoteToNoteResponse(Note note) {
+        return new NoteResponse(note.getId(), note.getTitle(), note.getContent());
+    }
+}
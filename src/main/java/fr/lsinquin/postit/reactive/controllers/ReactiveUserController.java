@@ -0,0 +1,41 @@
+package fr.lsinquin.postit.reactive.controllers;
+
+import fr.lsinquin.postit.domain.dtos.UserRequest;
+import fr.lsinquin.postit.domain.dtos.UserResponse;
+import fr.lsinquin.postit.reactive.services.ReactiveUserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Reactive counterpart of {@link fr.lsinquin.postit.api.controllers.UserController UserController}.
+ */
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    /**
+     * POST /users endpoint.
+     * It creates a new user
+     * @param userDto {@link fr.lsinquin.postit.domain.dtos.UserRequest UserRequest} representing the parsed payload
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.UserResponse UserResponse} representing the created user
+     */
+    @PostMapping("")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<UserResponse> postUser(@Valid @RequestBody UserRequest userDto) {
+        log.info("Handling posting new user");
+
+        return userService.createUser(userDto.getMail(), userDto.getPassword())
+                .map(savedUser -> new UserResponse(savedUser.getMail()));
+    }
+}
@@ -0,0 +1,250 @@
+package fr.lsinquin.postit.reactive.repositories;
+
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
+import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.storage.ContentChunking;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.StoredContent;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * R2DBC access to the note table, for the reactive stack.
+ * Rows are mapped to the {@link fr.lsinquin.postit.domain.entities.Note Note entity}, used here as a plain object : its user only holds the user id.
+ * Long contents are stored compressed as by the servlet stack, see {@link fr.lsinquin.postit.storage.ContentCompression ContentCompression}.
+ * Contents shared in blobs by the servlet stack are read, but the contents written here are always stored in the notes : a note leaving a blob does not release it,
+ * its reference count is repaired by the {@link fr.lsinquin.postit.storage.NoteBlobVerifier verifier}.
+ * Chunked contents are read as well, by a query per chunked note, and their chunks are deleted once a note is written with a content stored in the note.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNoteRepository {
+
+    private static final String SELECT_NOTES = "SELECT note.id, note.title, COALESCE(note.content, note_blob.content) AS content, COALESCE(note.compressed_content, note_blob.compressed_content) AS compressed_content, note.content_size, note.user_id " +
+            "FROM note LEFT JOIN note_blob ON note_blob.hash = note.blob_hash ";
+
+    private final DatabaseClient databaseClient;
+
+    private final ContentCompression contentCompression;
+
+    /**
+     * Looks for a note by id.
+     * @param id id of the note
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.Note Note}, empty if there is no note for this id
+     */
+    public Mono<Note> findById(Integer id) {
+        return databaseClient.sql(SELECT_NOTES + "WHERE note.id = :id")
+                .bind("id", id)
+                .map(this::mapNote)
+                .one()
+                .flatMap(this::readChunks);
+    }
+
+    /**
+     * Looks for all notes of a user. The rows are emitted while they are read.
+     * @param userId id of the user
+     * @return Flux of {@link fr.lsinquin.postit.domain.entities.Note Note} ordered by id
+     */
+    public Flux<Note> findNotesByUser(Integer userId) {
+        return databaseClient.sql(SELECT_NOTES + "WHERE note.user_id = :userId ORDER BY note.id")
+                .bind("userId", userId)
+                .map(this::mapNote)
+                .all()
+                .concatMap(this::readChunks);
+    }
+
+    /**
+     * Looks for the summaries of all notes of a user. The contents are not read : only the first characters of the plain contents, and the stored previews of the compressed ones.
+     * @param userId id of the user
+     * @return Flux of {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse} ordered by id
+     */
+    public Flux<NoteSummaryResponse> findNoteSummariesByUser(Integer userId) {
+        return databaseClient.sql("SELECT id, title, COALESCE(SUBSTRING(content, 1, " + StoredContent.PREVIEW_LENGTH + "), content_preview) AS preview, CAST(COALESCE(content_length, LENGTH(content)) AS INTEGER) AS length " +
+                        "FROM note WHERE user_id = :userId ORDER BY id")
+                .bind("userId", userId)
+                .map(row -> new NoteSummaryResponse(row.get("id", Integer.class), row.get("title", String.class), row.get("preview", String.class), row.get("length", Integer.class)))
+                .all();
+    }
+
+    /**
+     * Inserts a new note. Its id is taken from note_id_seq.
+     * @param note {@link fr.lsinquin.postit.domain.entities.Note Note} to insert, without id
+     * @return Mono of the inserted {@link fr.lsinquin.postit.domain.entities.Note Note}
+     */
+    public Mono<Note> insert(Note note) {
+        return databaseClient.sql("SELECT nextval('note_id_seq')")
+                .map(row -> row.get(0, Long.class).intValue())
+                .one()
+                .flatMap(id -> bindContent(databaseClient.sql("INSERT INTO note (id, title, content, compressed_content, content_length, content_preview, user_id) VALUES (:id, :title, :content, :compressedContent, :contentLength, :contentPreview, :userId)"), note)
+                        .bind("id", id)
+                        .bind("title", note.getTitle())
+                        .bind("userId", note.getUser().getId())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(new Note(id, note.getTitle(), note.getContent(), note.getCompressedContent(), note.getUser())));
+    }
+
+    /**
+     * Updates the title and the content of a note.
+     * @param note {@link fr.lsinquin.postit.domain.entities.Note Note} to update
+     * @return Mono of the updated {@link fr.lsinquin.postit.domain.entities.Note Note}
+     */
+    public Mono<Note> update(Note note) {
+        return bindContent(databaseClient.sql("UPDATE note SET title = :title, content = :content, compressed_content = :compressedContent, content_length = :contentLength, content_preview = :contentPreview, blob_hash = NULL, content_size = NULL WHERE id = :id"), note)
+                .bind("title", note.getTitle())
+                .bind("id", note.getId())
+                .fetch()
+                .rowsUpdated()
+                .then(deleteChunks(List.of(note.getId())))
+                .thenReturn(note);
+    }
+
+    /**
+     * Deletes a note.
+     * @param id id of the note
+     * @return Mono completing once the note is deleted
+     */
+    public Mono<Void> deleteById(Integer id) {
+        return databaseClient.sql("DELETE FROM note WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    /**
+     * Keeps, among some note ids, the ids of the notes of a user.
+     * @param userId id of the user
+     * @param ids ids of the notes
+     * @return Flux of the ids of the user's notes
+     */
+    public Flux<Integer> findIdsByUserAndIdIn(Integer userId, Collection<Integer> ids) {
+        return databaseClient.sql("SELECT id FROM note WHERE user_id = :userId AND id IN (:ids)")
+                .bind("userId", userId)
+                .bind("ids", ids)
+                .map(row -> row.get("id", Integer.class))
+                .all();
+    }
+
+    /**
+     * Deletes some notes of a user in one statement.
+     * @param userId id of the user
+     * @param ids ids of the notes
+     * @return Mono of the number of deleted notes
+     */
+    public Mono<Integer> deleteByUserAndIdIn(Integer userId, Collection<Integer> ids) {
+        return databaseClient.sql("DELETE FROM note WHERE user_id = :userId AND id IN (:ids)")
+                .bind("userId", userId)
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Sets the same title and/or content to some notes of a user in one statement.
+     * @param userId id of the user
+     * @param ids ids of the notes
+     * @param title title. null to keep the title of each note
+     * @param content content. null to keep the content of each note
+     * @return Mono of the number of updated notes
+     */
+    public Mono<Integer> updateByUserAndIdIn(Integer userId, Collection<Integer> ids, String title, String content) {
+        List<String> assignments = new ArrayList<>(2);
+
+        if (title != null) {
+            assignments.add("title = :title");
+        }
+        if (content != null) {
+            assignments.add("content = :content");
+            assignments.add("compressed_content = :compressedContent");
+            assignments.add("content_length = :contentLength");
+            assignments.add("content_preview = :contentPreview");
+            assignments.add("blob_hash = NULL");
+            assignments.add("content_size = NULL");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("UPDATE note SET " + StringUtils.collectionToDelimitedString(assignments, ", ") + " WHERE user_id = :userId AND id IN (:ids)")
+                .bind("userId", userId)
+                .bind("ids", ids);
+
+        if (title != null) {
+            spec = spec.bind("title", title);
+        }
+        if (content == null) {
+            return spec.fetch().rowsUpdated();
+        }
+
+        return bindContent(spec, contentCompression.store(content))
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> deleteChunks(ids).thenReturn(updated));
+    }
+
+    /**
+     * Deletes the chunks of notes whose content is now stored in the note. It runs after the update : a failure leaves unused chunks, never a chunked note without chunks.
+     */
+    private Mono<Integer> deleteChunks(Collection<Integer> ids) {
+        return databaseClient.sql("DELETE FROM note_chunk WHERE note_id IN (:ids)")
+                .bind("ids", ids)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Reads the content of a chunked note, the other notes are returned as they are.
+     * @param row {@link fr.lsinquin.postit.domain.entities.Note Note} and True if its content is chunked
+     */
+    private Mono<Note> readChunks(Tuple2<Note, Boolean> row) {
+        Note note = row.getT1();
+
+        if (!row.getT2()) {
+            return Mono.just(note);
+        }
+
+        return databaseClient.sql("SELECT data FROM note_chunk WHERE note_id = :noteId ORDER BY seq")
+                .bind("noteId", note.getId())
+                .map(chunk -> chunk.get("data", byte[].class))
+                .all()
+                .collectList()
+                .map(chunks -> new Note(note.getId(), note.getTitle(), ContentChunking.join(chunks), null, note.getUser()));
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindContent(DatabaseClient.GenericExecuteSpec spec, Note note) {
+        return bindContent(spec, StoredContent.of(note.getContent(), note.getCompressedContent()));
+    }
+
+    private DatabaseClient.GenericExecuteSpec bindContent(DatabaseClient.GenericExecuteSpec spec, StoredContent storedContent) {
+        spec = bindNullable(spec, "content", storedContent.getContent(), String.class);
+        spec = bindNullable(spec, "compressedContent", storedContent.getCompressedContent(), byte[].class);
+        spec = bindNullable(spec, "contentLength", storedContent.getLength(), Integer.class);
+
+        return bindNullable(spec, "contentPreview", storedContent.getPreview(), String.class);
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, T value, Class<T> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private Tuple2<Note, Boolean> mapNote(Row row) {
+        User user = new User();
+        user.setId(row.get("user_id", Integer.class));
+
+        Note note = new Note(row.get("id", Integer.class), row.get("title", String.class), row.get("content", String.class), row.get("compressed_content", byte[].class), user);
+
+        return Tuples.of(note, row.get("content_size", Long.class) != null);
+    }
+}
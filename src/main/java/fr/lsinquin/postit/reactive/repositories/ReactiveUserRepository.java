@@ -0,0 +1,56 @@
+package fr.lsinquin.postit.reactive.repositories;
+
+import fr.lsinquin.postit.domain.entities.User;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the app_user table, for the reactive stack.
+ * Rows are mapped to the {@link fr.lsinquin.postit.domain.entities.User User entity}, used here as a plain object.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Looks for a user by mail.
+     * @param mail mail address
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.User User}, empty if there is no user for this mail
+     */
+    public Mono<User> findByMail(String mail) {
+        return databaseClient.sql("SELECT id, mail, password, enabled FROM app_user WHERE mail = :mail")
+                .bind("mail", mail)
+                .map(this::mapUser)
+                .one();
+    }
+
+    /**
+     * Inserts a new user. Its id is taken from app_user_id_seq.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User User} to insert, without id
+     * @return Mono of the inserted {@link fr.lsinquin.postit.domain.entities.User User}
+     */
+    public Mono<User> insert(User user) {
+        return databaseClient.sql("SELECT nextval('app_user_id_seq')")
+                .map(row -> row.get(0, Long.class).intValue())
+                .one()
+                .flatMap(id -> databaseClient.sql("INSERT INTO app_user (id, mail, password, enabled) VALUES (:id, :mail, :password, :enabled)")
+                        .bind("id", id)
+                        .bind("mail", user.getMail())
+                        .bind("password", user.getPassword())
+                        .bind("enabled", user.getIsEnabled())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(new User(id, user.getMail(), user.getPassword(), user.getIsEnabled())));
+    }
+
+    private User mapUser(Row row) {
+        return new User(row.get("id", Integer.class), row.get("mail", String.class), row.get("password", String.class), row.get("enabled", Boolean.class));
+    }
+}
@@ -0,0 +1,32 @@
+package fr.lsinquin.postit.reactive.security;
+
+import fr.lsinquin.postit.api.security.CustomUserDetails;
+import fr.lsinquin.postit.reactive.repositories.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link fr.lsinquin.postit.api.security.CustomUserDetailsService CustomUserDetailsService}.
+ * It's responsible of loading a user from a username.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomUserDetailsService implements ReactiveUserDetailsService {
+
+    private final ReactiveUserRepository userRepository;
+
+    /**
+     * Loads a user using {@link #userRepository}.
+     * @param username Username of the user. The username is his mail address.
+     * @return Mono of the {@link fr.lsinquin.postit.api.security.CustomUserDetails user}, empty if there is no user for this mail
+     */
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return userRepository.findByMail(username).map(CustomUserDetails::new);
+    }
+}
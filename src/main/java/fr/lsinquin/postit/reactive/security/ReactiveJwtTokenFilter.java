@@ -0,0 +1,57 @@
+package fr.lsinquin.postit.reactive.security;
+
+import fr.lsinquin.postit.api.security.JwtAuthentication;
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Reactive port of {@link fr.lsinquin.postit.api.security.JwtTokenFilter JwtTokenFilter}, added to the security web filter chain by {@link ReactiveSecurityConfig}.
+ * If a JWT is successfully collected and validated, the appropriate User is set in the reactive Security Context.
+ * It's not a bean : WebFlux would also apply every WebFilter bean outside of the security chain.
+ */
+@RequiredArgsConstructor
+public class ReactiveJwtTokenFilter implements WebFilter {
+
+    private final ReactiveUserDetailsService userDetailsService;
+
+    private final JwtTokenUtil jwtTokenUtil;
+
+    /**
+     * Filters incoming HTTP requests.
+     * It looks for a JWT in the Authorization header of the incoming request. If the JWT is valid, it sets a complete authenticated user in the security context.
+     * @param exchange {@inheritDoc}
+     * @param chain {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String jwtToken = JwtTokenUtil.extractBearerToken(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+
+        // If no JWT is present, the Spring security chain carries on.
+        if (jwtToken == null) {
+            return chain.filter(exchange);
+        }
+
+        final Claims claims = jwtTokenUtil.getValidClaims(jwtToken);
+
+        // If The JWT is not valid, the Spring security chain carries on.
+        if (claims == null) {
+            return chain.filter(exchange);
+        }
+
+        // The Spring security filter chain carries on with a authenticated User in his Security Context, or anonymously if the user no longer exists.
+        return userDetailsService.findByUsername(claims.getSubject())
+                .map(userDetails -> ReactiveSecurityContextHolder.withAuthentication(new JwtAuthentication(userDetails, null)))
+                .defaultIfEmpty(Context.empty())
+                .flatMap(securityContext -> chain.filter(exchange).contextWrite(securityContext));
+    }
+}
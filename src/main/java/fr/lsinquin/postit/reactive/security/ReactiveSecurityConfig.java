@@ -0,0 +1,68 @@
+package fr.lsinquin.postit.reactive.security;
+
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Security of the reactive stack, mirroring {@link fr.lsinquin.postit.api.security.SecurityConfig SecurityConfig} : stateless, JWT authenticated except for /users and /login.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    /**
+     * Authentication manager used by the login endpoint. The password is checked on the bounded elastic scheduler, out of the event loop.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveUserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+
+        return authenticationManager;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, ReactiveUserDetailsService userDetailsService, JwtTokenUtil jwtTokenUtil) {
+        http = http.csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable();
+
+        http = http.securityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        http = http
+                .exceptionHandling()
+                .authenticationEntryPoint((exchange, ex) -> Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED)))
+                .and();
+
+        http.authorizeExchange()
+                .pathMatchers("/users/**").permitAll()
+                .pathMatchers("/login").permitAll()
+                .pathMatchers("/.well-known/jwks.json").permitAll()
+                .anyExchange().authenticated();
+
+        http.addFilterAt(new ReactiveJwtTokenFilter(userDetailsService, jwtTokenUtil), SecurityWebFiltersOrder.AUTHENTICATION);
+
+        return http.build();
+    }
+}
@@ -0,0 +1,234 @@
+package fr.lsinquin.postit.reactive.services;
+
+import fr.lsinquin.postit.domain.dtos.NoteBatchResult;
+import fr.lsinquin.postit.domain.dtos.NoteBatchStatus;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
+import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.domain.exceptions.AuthorizationException;
+import fr.lsinquin.postit.domain.exceptions.NoteNotFoundException;
+import fr.lsinquin.postit.reactive.repositories.ReactiveNoteRepository;
+import fr.lsinquin.postit.storage.ContentCompression;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Note service of the reactive stack. See {@link fr.lsinquin.postit.services.NoteService NoteService} for the servlet stack.
+ * The owner of a note never changes : checking it before an update or a delete needs no transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveNoteService {
+
+    private final ReactiveNoteRepository noteRepository;
+
+    private final ContentCompression contentCompression;
+
+    /**
+     * Creates and persists a new note
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param title title. It can be blank
+     * @param content content. It can be blank
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.Note created note}
+     */
+    public Mono<Note> createNote(User user, String title, String content) {
+        log.info("Creating new note for user {}", user.getMail());
+
+        Note note = new Note();
+        note.setTitle(title);
+        note.setContent(content, contentCompression);
+        note.setUser(user);
+
+        return noteRepository.insert(note);
+    }
+
+    /**
+     * Looks for for a specific note
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the wanted note
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.Note wanted note}, failing with a {@link fr.lsinquin.postit.domain.exceptions.NoteNotFoundException NoteNotFoundException}
+     * if no note was found or an {@link fr.lsinquin.postit.domain.exceptions.AuthorizationException AuthorizationException} if it is not one of the user's notes
+     */
+    public Mono<Note> findNote(User user, Integer id) {
+        log.info("Finding note of id {} for user {}", id, user.getMail());
+
+        return findAuthorizedNote(user, id);
+    }
+
+    /**
+     * Looks for the content of a specific note, as UTF-8 bytes. A chunked content is read whole : ranges are cut from it.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the wanted note
+     * @return Mono of the {@link org.springframework.core.io.Resource Resource} of the content, failing as {@link #findNote(User, Integer) findNote}
+     */
+    public Mono<Resource> findNoteContent(User user, Integer id) {
+        log.info("Finding content of note of id {} for user {}", id, user.getMail());
+
+        return findAuthorizedNote(user, id)
+                .map(note -> new ByteArrayResource(note.getContent() == null ? new byte[0] : note.getContent().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Looks for all notes of a specific user
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @return Flux of {@link fr.lsinquin.postit.domain.entities.Note Note}
+     */
+    public Flux<Note> findUserNotes(User user) {
+        log.info("Finding notes for user {}", user.getMail());
+
+        return noteRepository.findNotesByUser(user.getId());
+    }
+
+    /**
+     * Looks for the summaries of all notes of a specific user. The contents are not read.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @return Flux of {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse}
+     */
+    public Flux<NoteSummaryResponse> findUserNoteSummaries(User user) {
+        log.info("Finding note summaries for user {}", user.getMail());
+
+        return noteRepository.findNoteSummariesByUser(user.getId());
+    }
+
+    /**
+     * Modifies a specific note.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the to be modified note
+     * @param title title. It can be blank
+     * @param content content. It can be blank
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.Note modified note}, failing as {@link #findNote(User, Integer) findNote}
+     */
+    public Mono<Note> modifyNote(User user, Integer id, String title, String content) {
+        log.info("Modifying note of id {} for user {}", id, user.getMail());
+
+        return findAuthorizedNote(user, id)
+                .flatMap(note -> {
+                    note.setTitle(title);
+                    note.setContent(content, contentCompression);
+
+                    return noteRepository.update(note);
+                });
+    }
+
+    /**
+     * Modifies some fields of a specific note. Only the modified columns are updated.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the to be modified note
+     * @param title title. It can be blank. null to keep the title
+     * @param content content. It can be blank. null to keep the content
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.Note modified note}, failing as {@link #findNote(User, Integer) findNote}
+     */
+    public Mono<Note> patchNote(User user, Integer id, String title, String content) {
+        log.info("Patching note of id {} for user {}", id, user.getMail());
+
+        return findAuthorizedNote(user, id)
+                .flatMap(note -> {
+                    if (title == null && content == null) {
+                        return Mono.just(note);
+                    }
+                    if (title != null) {
+                        note.setTitle(title);
+                    }
+                    if (content != null) {
+                        note.setContent(content, contentCompression);
+                    }
+
+                    return noteRepository.updateByUserAndIdIn(user.getId(), List.of(id), title, content)
+                            .thenReturn(note);
+                });
+    }
+
+    /**
+     * Deleted a specific note
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the to be deleted note
+     * @return Mono completing once the note is deleted, failing as {@link #findNote(User, Integer) findNote}
+     */
+    public Mono<Void> deleteNote(User user, Integer id) {
+        log.info("Deleting note of id {} for user {}", id, user.getMail());
+
+        return findAuthorizedNote(user, id)
+                .flatMap(note -> noteRepository.deleteById(id));
+    }
+
+    /**
+     * Deletes several notes of a user with set-based statements : one query selecting the user's notes among the ids, one delete scoped to the user.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param ids ids of the to be deleted notes. Duplicates are ignored
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult result} of each id, in the order of the ids : DELETED, or NOT_FOUND if it is not one of the user's notes
+     */
+    public Mono<List<NoteBatchResult>> deleteNotes(User user, List<Integer> ids) {
+        log.info("Deleting {} notes for user {}", ids.size(), user.getMail());
+
+        return applyToUserNotes(user, ids, NoteBatchStatus.DELETED, noteRepository::deleteByUserAndIdIn);
+    }
+
+    /**
+     * Modifies several notes of a user with the same title and/or content, with set-based statements : one query selecting the user's notes among the ids, one update scoped to the user.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param ids ids of the to be modified notes. Duplicates are ignored
+     * @param title title. It can be blank. null to keep the title of each note
+     * @param content content. It can be blank. null to keep the content of each note
+     * @return Mono of the {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult result} of each id, in the order of the ids : UPDATED, or NOT_FOUND if it is not one of the user's notes
+     */
+    public Mono<List<NoteBatchResult>> modifyNotes(User user, List<Integer> ids, String title, String content) {
+        log.info("Modifying {} notes for user {}", ids.size(), user.getMail());
+
+        return applyToUserNotes(user, ids, NoteBatchStatus.UPDATED, (userId, userNoteIds) -> noteRepository.updateByUserAndIdIn(userId, userNoteIds, title, content));
+    }
+
+    private Mono<List<NoteBatchResult>> applyToUserNotes(User user, List<Integer> ids, NoteBatchStatus status, BiFunction<Integer, Set<Integer>, Mono<Integer>> operation) {
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+
+        return noteRepository.findIdsByUserAndIdIn(user.getId(), uniqueIds)
+                .collect(Collectors.toCollection(HashSet::new))
+                .flatMap(userNoteIds -> {
+                    Mono<Integer> applied = userNoteIds.isEmpty() ? Mono.just(0) : operation.apply(user.getId(), userNoteIds);
+
+                    return applied.thenReturn(uniqueIds.stream()
+                            .map(id -> new NoteBatchResult(id, userNoteIds.contains(id) ? status : NoteBatchStatus.NOT_FOUND))
+                            .collect(Collectors.toList()));
+                });
+    }
+
+    private Mono<Note> findAuthorizedNote(User user, Integer id) {
+        return noteRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NoteNotFoundException(id)))
+                .flatMap(note -> {
+                    if (isNotAuthorized(user, note)) {
+                        log.debug("User {} not authorized", user.getMail());
+
+                        return Mono.error(new AuthorizationException(user.getMail()));
+                    }
+
+                    return Mono.just(note);
+                });
+    }
+
+    /**
+     * Decides if a user is authorized to access a note.
+     * A user is authorized to access a note only if it is one of his notes
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param note {@link fr.lsinquin.postit.domain.entities.Note to be accessed note}
+     * @return True if the user authorized to access the note. False otherwise
+     */
+    private boolean isNotAuthorized(User user, Note note) {
+        return !(note.getUser().getId().equals(user.getId()));
+    }
+}
@@ -0,0 +1,70 @@
+package fr.lsinquin.postit.reactive.services;
+
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.domain.exceptions.ExistingUserException;
+import fr.lsinquin.postit.reactive.repositories.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * User service of the reactive stack. See {@link fr.lsinquin.postit.services.UserService UserService} for the servlet stack.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ReactiveUserRepository userRepository;
+
+    /**
+     * Name of the unique index on app_user(mail). See the V2 Flyway migration.
+     */
+    private static final String MAIL_UNIQUE_INDEX = "app_user_mail_idx";
+
+    /**
+     * Creates and persists a new user.
+     * The uniqueness of the mail address is enforced by the database unique index on the mail column.
+     * @param mail mail address
+     * @param password raw password
+     * @return Mono of the {@link fr.lsinquin.postit.domain.entities.User created user}, failing with an {@link fr.lsinquin.postit.domain.exceptions.ExistingUserException ExistingUserException}
+     * when a user with the same mail address already exists
+     */
+    public Mono<User> createUser(String mail, String password) {
+        log.info("Creating new user {}", mail);
+
+        // BCrypt is slow by design : the hashing must not hold an event loop thread
+        return Mono.fromCallable(() -> passwordEncoder.encode(password))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(hashedPassword -> userRepository.insert(new User(mail, hashedPassword, true)))
+                .onErrorMap(this::isMailUniqueViolation, exception -> {
+                    log.debug("A user of mail {} already exists", mail);
+
+                    return new ExistingUserException(exception, mail);
+                });
+    }
+
+    /**
+     * Decides if an error was caused by the unique index on the mail column.
+     * R2DBC drivers don't expose the violated constraint : it is looked for in the driver message.
+     * @param exception the raised exception
+     * @return True if the violated constraint is the mail unique index. False otherwise
+     */
+    private boolean isMailUniqueViolation(Throwable exception) {
+        if (!(exception instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+
+        String message = ((DataIntegrityViolationException) exception).getMostSpecificCause().getMessage();
+
+        return message != null && message.toLowerCase().contains(MAIL_UNIQUE_INDEX);
+    }
+}
@@ -0,0 +1,38 @@
+package fr.lsinquin.postit.repositories;
+
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface NoteBlobRepository extends JpaRepository<NoteBlob, String> {
+
+    /**
+     * Adds references to a blob, in one statement : concurrent calls do not lose updates.
+     * @param hash hash of the blob
+     * @param count number of added references
+     * @return 1 if the blob exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE NoteBlob blob SET blob.refCount = blob.refCount + :count WHERE blob.hash = :hash")
+    public int addReferences(String hash, int count);
+
+    /**
+     * Removes references from a blob.
+     * @param hash hash of the blob
+     * @param count number of removed references
+     * @return 1 if the blob exists, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE NoteBlob blob SET blob.refCount = blob.refCount - :count WHERE blob.hash = :hash")
+    public int removeReferences(String hash, int count);
+
+    /**
+     * Deletes a blob once no note references it anymore. A blob still referenced by a note is kept whatever its reference count.
+     * @param hash hash of the blob
+     * @return 1 if the blob was deleted, 0 otherwise
+     */
+    @Modifying
+    @Query("DELETE FROM NoteBlob blob WHERE blob.hash = :hash AND blob.refCount <= 0 AND NOT EXISTS (SELECT note.id FROM Note note WHERE note.blob.hash = :hash)")
+    public int deleteUnreferenced(String hash);
+}
@@ -1,13 +1,189 @@
 package fr.lsinquin.postit.repositories;
 
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
 import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import fr.lsinquin.postit.storage.ContentChunking;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.StoredContent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface NoteRepository extends JpaRepository<Note, Integer> {
 
     @Query("SELECT note FROM Note note, User user WHERE note.user = user AND user.id = :id ")
     public List<Note> findNotesByUser(Integer id);
+
+    /**
+     * Streams the notes of a user directly as {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse}.
+     * The rows are fetched by batches and the projections are not managed by the persistence context : memory stays bounded whatever the number of notes.
+     * It must be called inside a transaction and the stream must be closed.
+     * Compressed contents are decompressed one note at a time, while the stream is consumed. Shared contents are read from their blob by the same query,
+     * chunked contents by a query per note.
+     * @param id id of the user
+     * @return Stream of {@link fr.lsinquin.postit.domain.dtos.NoteResponse NoteResponse} ordered by id
+     */
+    public default Stream<NoteResponse> streamNoteResponsesByUser(Integer id) {
+        return streamNoteRowsByUser(id)
+                .map(row -> new NoteResponse((Integer) row[0], (String) row[1], readContent(row)));
+    }
+
+    private String readContent(Object[] row) {
+        if (row[4] != null) {
+            return ContentChunking.join(findChunks((Integer) row[0]));
+        }
+
+        return row[3] == null ? (String) row[2] : ContentCompression.decompress((byte[]) row[3]);
+    }
+
+    /**
+     * Streams the stored columns of the notes of a user : id, title, content and compressed content, taken from the blob of the shared contents, and size of the chunked contents.
+     * @param id id of the user
+     * @return Stream of rows ordered by id
+     */
+    @Query("SELECT note.id, note.title, COALESCE(note.content, blob.content), COALESCE(note.compressedContent, blob.compressedContent), note.contentSize FROM Note note LEFT JOIN note.blob blob WHERE note.user.id = :id ORDER BY note.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "256"))
+    public Stream<Object[]> streamNoteRowsByUser(Integer id);
+
+    /**
+     * Streams the summaries of the notes of a user, as {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse}.
+     * Only the first characters of the plain contents are read, and the stored previews of the compressed ones : the contents themselves are never loaded.
+     * It must be called inside a transaction and the stream must be closed.
+     * @param id id of the user
+     * @return Stream of {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse} ordered by id
+     */
+    @Query("SELECT new fr.lsinquin.postit.domain.dtos.NoteSummaryResponse(note.id, note.title, COALESCE(SUBSTRING(note.content, 1, " + StoredContent.PREVIEW_LENGTH + "), note.contentPreview), COALESCE(note.contentLength, LENGTH(note.content))) " +
+            "FROM Note note WHERE note.user.id = :id ORDER BY note.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "256"))
+    public Stream<NoteSummaryResponse> streamNoteSummariesByUser(Integer id);
+
+    /**
+     * @param noteId id of a chunked note
+     * @return chunks of its content, in order
+     */
+    @Query(value = "SELECT data FROM note_chunk WHERE note_id = :noteId ORDER BY seq", nativeQuery = true)
+    public List<byte[]> findChunks(Integer noteId);
+
+    /**
+     * Reads a single chunk, to read a range of a content. The chunk and the version of the note are read by the same statement, so that the chunk is of that version.
+     * @param noteId id of a chunked note
+     * @param seq sequence number of the chunk, from 0
+     * @param contentVersion {@link Note#getContentVersion() version} of the chunks read so far
+     * @return the chunk, null if there is none or if the chunks were rewritten since
+     */
+    @Query(value = "SELECT chunk.data FROM note_chunk chunk JOIN note ON note.id = chunk.note_id WHERE chunk.note_id = :noteId AND chunk.seq = :seq AND note.content_version = :contentVersion", nativeQuery = true)
+    public byte[] findChunk(Integer noteId, Integer seq, Long contentVersion);
+
+    /**
+     * Deletes the chunks of some notes, before their content is replaced by a set-based update.
+     * @param ids ids of the notes
+     * @return Number of deleted chunks
+     */
+    @Modifying
+    @Query(value = "DELETE FROM note_chunk WHERE note_id IN (:ids)", nativeQuery = true)
+    public int deleteChunksByNoteIdIn(Collection<Integer> ids);
+
+    /**
+     * Keeps, among some note ids, the ids of the notes of a user. Batch operations are scoped by these queries to the notes of the asking user.
+     * @param userId id of the user
+     * @param ids ids of the notes
+     * @return ids of the user's notes
+     */
+    @Query("SELECT note.id FROM Note note WHERE note.user.id = :userId AND note.id IN :ids")
+    public List<Integer> findIdsByUserAndIdIn(Integer userId, Collection<Integer> ids);
+
+    /**
+     * Counts, among some notes of a user, the notes referencing each blob. Batch operations release these references.
+     * @param userId id of the user
+     * @param ids ids of the notes
+     * @return rows of a blob hash and its number of references
+     */
+    @Query("SELECT note.blob.hash, COUNT(note) FROM Note note WHERE note.user.id = :userId AND note.id IN :ids AND note.blob IS NOT NULL GROUP BY note.blob.hash")
+    public List<Object[]> countBlobReferencesByUserAndIdIn(Integer userId, Collection<Integer> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Note note WHERE note.user.id = :userId AND note.id IN :ids")
+    public int deleteByUserAndIdIn(Integer userId, Collection<Integer> ids);
+
+    /**
+     * Sets the same title and content to some notes of a user, the content being shared in a blob if there is one. The references of the blob are not counted here.
+     * The content is not chunked : see {@link #updateChunkedContentByUserAndIdIn(Integer, Collection, String, List)}.
+     * @param storedContent columns storing the content : {@link ContentCompression#store(String) stored} in the notes,
+     * or {@link StoredContent#external(String) external} if it is shared in the blob
+     */
+    public default int updateByUserAndIdIn(Integer userId, Collection<Integer> ids, String title, StoredContent storedContent, NoteBlob blob) {
+        deleteChunksByNoteIdIn(ids);
+
+        return updateByUserAndIdIn(userId, ids, title, storedContent.getContent(), storedContent.getCompressedContent(), storedContent.getLength(), storedContent.getPreview(), blob);
+    }
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Note note SET note.title = :title, note.content = :content, note.compressedContent = :compressedContent, note.contentLength = :contentLength, note.contentPreview = :contentPreview, note.blob = :blob, note.contentSize = NULL " +
+            "WHERE note.user.id = :userId AND note.id IN :ids")
+    public int updateByUserAndIdIn(Integer userId, Collection<Integer> ids, String title, String content, byte[] compressedContent, Integer contentLength, String contentPreview, NoteBlob blob);
+
+    /**
+     * Sets the same chunked content to some notes of a user. The previous chunks are deleted, then each chunk is written to all the notes
+     * by a single INSERT ... SELECT : the content is held once in memory, whatever the number of notes. The references of the previous blobs are not counted here.
+     * @param userId id of the user
+     * @param ids ids of the notes
+     * @param content the content
+     * @param chunks the content {@link ContentChunking#split(String) split} in chunks
+     * @return Number of updated notes
+     */
+    public default int updateChunkedContentByUserAndIdIn(Integer userId, Collection<Integer> ids, String content, List<byte[]> chunks) {
+        StoredContent storedContent = StoredContent.external(content);
+
+        deleteChunksByNoteIdIn(ids);
+
+        for (int seq = 0; seq < chunks.size(); seq++) {
+            insertChunkByUserAndIdIn(userId, ids, seq, chunks.get(seq));
+        }
+
+        return updateChunkedContentByUserAndIdIn(userId, ids, storedContent.getLength(), storedContent.getPreview(), ContentChunking.size(chunks), ContentChunking.newVersion());
+    }
+
+    /**
+     * Writes the same chunk to some notes of a user.
+     * @return Number of written chunks
+     */
+    @Modifying
+    @Query(value = "INSERT INTO note_chunk (note_id, seq, data) SELECT id, :seq, :data FROM note WHERE user_id = :userId AND id IN (:ids)", nativeQuery = true)
+    public int insertChunkByUserAndIdIn(Integer userId, Collection<Integer> ids, Integer seq, byte[] data);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Note note SET note.content = NULL, note.compressedContent = NULL, note.contentLength = :contentLength, note.contentPreview = :contentPreview, note.blob = NULL, note.contentSize = :contentSize, note.contentVersion = :contentVersion " +
+            "WHERE note.user.id = :userId AND note.id IN :ids")
+    public int updateChunkedContentByUserAndIdIn(Integer userId, Collection<Integer> ids, Integer contentLength, String contentPreview, Long contentSize, Long contentVersion);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Note note SET note.title = :title WHERE note.user.id = :userId AND note.id IN :ids")
+    public int updateTitleByUserAndIdIn(Integer userId, Collection<Integer> ids, String title);
+
+    /**
+     * Sets the same content to some notes of a user, shared in a blob if there is one. The references of the blob are not counted here.
+     * The content is not chunked : see {@link #updateChunkedContentByUserAndIdIn(Integer, Collection, String, List)}.
+     * @param storedContent columns storing the content : {@link ContentCompression#store(String) stored} in the notes,
+     * or {@link StoredContent#external(String) external} if it is shared in the blob
+     */
+    public default int updateContentByUserAndIdIn(Integer userId, Collection<Integer> ids, StoredContent storedContent, NoteBlob blob) {
+        deleteChunksByNoteIdIn(ids);
+
+        return updateContentByUserAndIdIn(userId, ids, storedContent.getContent(), storedContent.getCompressedContent(), storedContent.getLength(), storedContent.getPreview(), blob);
+    }
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Note note SET note.content = :content, note.compressedContent = :compressedContent, note.contentLength = :contentLength, note.contentPreview = :contentPreview, note.blob = :blob, note.contentSize = NULL " +
+            "WHERE note.user.id = :userId AND note.id IN :ids")
+    public int updateContentByUserAndIdIn(Integer userId, Collection<Integer> ids, String content, byte[] compressedContent, Integer contentLength, String contentPreview, NoteBlob blob);
 }
@@ -0,0 +1,28 @@
+package fr.lsinquin.postit.repositories;
+
+import fr.lsinquin.postit.domain.entities.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    @Query("SELECT token FROM RefreshToken token JOIN FETCH token.user WHERE token.id = :id")
+    public Optional<RefreshToken> findWithUserById(String id);
+
+    /**
+     * Deletes a token. Used to consume a token : only one of concurrent calls with the same token gets 1.
+     * @param id SHA-256 of the token
+     * @return Number of deleted tokens
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken token WHERE token.id = :id")
+    public int deleteTokenById(String id);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken token WHERE token.user.id = :userId AND token.expiresAt < :now")
+    public int deleteExpiredByUser(Integer userId, Instant now);
+}
@@ -0,0 +1,21 @@
+package fr.lsinquin.postit.repositories;
+
+import fr.lsinquin.postit.domain.entities.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("SELECT token FROM RevokedToken token WHERE token.expiresAt > :now")
+    public List<RevokedToken> findUnexpired(Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken token WHERE token.expiresAt <= :now")
+    public int deleteExpired(Instant now);
+}
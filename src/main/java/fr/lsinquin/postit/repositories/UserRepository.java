@@ -4,6 +4,8 @@ import fr.lsinquin.postit.domain.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
@@ -13,4 +15,7 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     @Query("SELECT user from User user WHERE user.mail = :mail")
     public Optional<User> findByMail(String mail);
+
+    @Query("SELECT user from User user WHERE user.mail IN :mails")
+    public List<User> findByMailIn(Collection<String> mails);
 }
@@ -0,0 +1,94 @@
+package fr.lsinquin.postit.services;
+
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import fr.lsinquin.postit.repositories.NoteBlobRepository;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.ContentDedupProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Shared note contents : the notes having the same long content reference a single {@link fr.lsinquin.postit.domain.entities.NoteBlob NoteBlob}.
+ * The reference count of a blob is updated by each note acquiring or releasing it, and a blob is deleted with its last reference.
+ * Its methods must be called inside the transaction modifying the notes, so that the counts are rolled back with the notes.
+ */
+@Service
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class NoteBlobService {
+
+    private static final int MAX_ACQUIRE_ATTEMPTS = 3;
+
+    private final NoteBlobRepository noteBlobRepository;
+
+    private final ContentDedupProperties contentDedupProperties;
+
+    private final ContentCompression contentCompression;
+
+    private final TransactionTemplate newTransaction;
+
+    public NoteBlobService(NoteBlobRepository noteBlobRepository, ContentDedupProperties contentDedupProperties, ContentCompression contentCompression, PlatformTransactionManager transactionManager) {
+        this.noteBlobRepository = noteBlobRepository;
+        this.contentDedupProperties = contentDedupProperties;
+        this.contentCompression = contentCompression;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @param content content of a note. It can be null
+     * @return True if the content is to be shared in a blob. False if it is to be stored in the note
+     */
+    public boolean accepts(String content) {
+        return contentDedupProperties.isEnabled() && content != null && content.length() >= contentDedupProperties.getMinLength();
+    }
+
+    /**
+     * Adds references to the blob of a content, created if no note has this content yet.
+     * A new blob is inserted in its own transaction, without reference, so that concurrent acquisitions of the same content all reference the same blob.
+     * If the calling transaction is rolled back, the blob stays without reference until the verifier deletes it.
+     * @param content the content
+     * @param references number of notes referencing the content
+     * @return {@link fr.lsinquin.postit.domain.entities.NoteBlob blob} of the content
+     */
+    public NoteBlob acquire(String content, int references) {
+        String hash = NoteBlob.hashOf(content);
+
+        for (int attempt = 0; attempt < MAX_ACQUIRE_ATTEMPTS; attempt++) {
+            if (noteBlobRepository.addReferences(hash, references) == 1) {
+                return noteBlobRepository.getOne(hash);
+            }
+
+            insert(content);
+        }
+
+        throw new IllegalStateException("Blob " + hash + " could not be acquired");
+    }
+
+    /**
+     * Removes references from a blob, and deletes it if no note references it anymore.
+     * The notes must no longer reference the blob : they are flushed before the blob is deleted.
+     * @param hash hash of the blob
+     * @param references number of notes no longer referencing the blob
+     */
+    public void release(String hash, int references) {
+        noteBlobRepository.removeReferences(hash, references);
+
+        if (noteBlobRepository.deleteUnreferenced(hash) == 1) {
+            log.debug("Deleted blob {}", hash);
+        }
+    }
+
+    private void insert(String content) {
+        try {
+            newTransaction.executeWithoutResult(status -> noteBlobRepository.saveAndFlush(new NoteBlob(content, contentCompression)));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Blob inserted concurrently", e);
+        }
+    }
+}
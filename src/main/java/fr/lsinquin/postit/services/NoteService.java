@@ -1,28 +1,55 @@
 package fr.lsinquin.postit.services;
 
+import fr.lsinquin.postit.domain.dtos.NoteBatchResult;
+import fr.lsinquin.postit.domain.dtos.NoteBatchStatus;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
 import fr.lsinquin.postit.domain.exceptions.AuthorizationException;
 import fr.lsinquin.postit.domain.exceptions.NoteNotFoundException;
 import fr.lsinquin.postit.repositories.NoteRepository;
+import fr.lsinquin.postit.storage.ChunkedContentResource;
+import fr.lsinquin.postit.storage.ContentChunking;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.StoredContent;
 import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.NoteBlob;
 import fr.lsinquin.postit.domain.entities.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Note service
  * All the methods of this class need a {@link fr.lsinquin.postit.domain.entities.User asking user} as a parameter to be able to decide if the user is authorized or not.
+ * The contents shared in blobs are acquired and released by the methods writing or deleting notes, in their transaction (see {@link NoteBlobService}).
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class NoteService {
 
     private final NoteRepository noteRepository;
 
+    private final NoteBlobService noteBlobService;
+
+    private final ContentCompression contentCompression;
+
+    private final ContentChunking contentChunking;
+
     /**
      * Creates and persists a new note
      * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
@@ -30,12 +57,13 @@ public class NoteService {
      * @param content content. It can be blank
      * @return {@link fr.lsinquin.postit.domain.entities.Note created note}
      */
+    @Transactional
     public Note createNote(User user, String title, String content) {
         log.info("Creating new note for user {}", user.getMail());
 
         Note note = new Note();
         note.setTitle(title);
-        note.setContent(content);
+        storeContent(note, content);
         note.setUser(user);
 
         return noteRepository.saveAndFlush(note);
@@ -49,6 +77,7 @@ public class NoteService {
      * @throws NoteNotFoundException raised if no note was found
      * @throws AuthorizationException raised if the asking user can't access this note : if it is not one of his notes
      */
+    @Transactional(readOnly = true)
     public Note findNote(User user, Integer id) throws NoteNotFoundException, AuthorizationException {
         log.info("Finding note of id {} for user {}", id, user.getMail());
 
@@ -63,17 +92,79 @@ public class NoteService {
         return note;
     }
 
+    /**
+     * Looks for the content of a specific note, as UTF-8 bytes.
+     * A chunked content is not loaded : its chunks are read while the returned resource is, only those overlapping the read range.
+     * They are read along with the version of the chunks found here : reading the resource fails if the content is rewritten meanwhile.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the wanted note
+     * @return {@link org.springframework.core.io.Resource Resource} of the content, empty if the note has no content
+     * @throws NoteNotFoundException raised if no note was found
+     * @throws AuthorizationException raised if the asking user can't access this note : if it is not one of his notes
+     */
+    @Transactional(readOnly = true)
+    public Resource findNoteContent(User user, Integer id) throws NoteNotFoundException, AuthorizationException {
+        log.info("Finding content of note of id {} for user {}", id, user.getMail());
+
+        Note note = noteRepository.findById(id).orElseThrow(() -> new NoteNotFoundException(id));
+
+        if(isNotAuthorized(user, note)) {
+            log.debug("User {} not authorized", user.getMail());
+
+            throw new AuthorizationException(user.getMail());
+        }
+
+        if (note.isChunked()) {
+            long contentVersion = note.getContentVersion();
+
+            return new ChunkedContentResource(note.getContentSize(), seq -> noteRepository.findChunk(id, seq, contentVersion), "content of note " + id);
+        }
+
+        String content = note.getContent();
+
+        return new ByteArrayResource(content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Looks for all notes of a specific user
      * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
      * @return List of {@link fr.lsinquin.postit.domain.entities.Note Note}
      */
+    @Transactional(readOnly = true)
     public List<Note> findUserNotes(User user) {
         log.info("Finding notes for user {}", user.getMail());
 
         return noteRepository.findNotesByUser(user.getId());
     }
 
+    /**
+     * Streams all notes of a specific user to an action, without loading them all in memory.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param action action called for each {@link fr.lsinquin.postit.domain.dtos.NoteResponse note}, ordered by id
+     */
+    @Transactional(readOnly = true)
+    public void forEachUserNote(User user, Consumer<NoteResponse> action) {
+        log.info("Streaming notes for user {}", user.getMail());
+
+        try (Stream<NoteResponse> notes = noteRepository.streamNoteResponsesByUser(user.getId())) {
+            notes.forEach(action);
+        }
+    }
+
+    /**
+     * Calls an action on the summary of each note of a specific user, while the notes are read from the database. The contents are not read.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param action action called on each {@link fr.lsinquin.postit.domain.dtos.NoteSummaryResponse NoteSummaryResponse}, in the order of the ids
+     */
+    @Transactional(readOnly = true)
+    public void forEachUserNoteSummary(User user, Consumer<NoteSummaryResponse> action) {
+        log.info("Streaming note summaries for user {}", user.getMail());
+
+        try (Stream<NoteSummaryResponse> summaries = noteRepository.streamNoteSummariesByUser(user.getId())) {
+            summaries.forEach(action);
+        }
+    }
+
     /**
      * Modifies a specific note.
      * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
@@ -84,7 +175,7 @@ public class NoteService {
      * @throws NoteNotFoundException raised if no note exists for this id
      * @throws AuthorizationException raised if the asking user can't access this note : if it is not one of his notes
      */
-    @Transactional(dontRollbackOn = { NoteNotFoundException.class })
+    @Transactional(noRollbackFor = { NoteNotFoundException.class })
     public Note modifyNote(User user, Integer id, String title, String content) throws NoteNotFoundException, AuthorizationException {
         log.info("Modifying note of id {} for user {}", id, user.getMail());
 
@@ -97,7 +188,39 @@ public class NoteService {
         }
 
         note.setTitle(title);
-        note.setContent(content);
+        storeContent(note, content);
+
+        return noteRepository.saveAndFlush(note);
+    }
+
+    /**
+     * Modifies some fields of a specific note. Only the modified columns are updated.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param id id of the to be modified note
+     * @param title title. It can be blank. null to keep the title
+     * @param content content. It can be blank. null to keep the content
+     * @return {@link fr.lsinquin.postit.domain.entities.Note modified note}
+     * @throws NoteNotFoundException raised if no note exists for this id
+     * @throws AuthorizationException raised if the asking user can't access this note : if it is not one of his notes
+     */
+    @Transactional(noRollbackFor = { NoteNotFoundException.class })
+    public Note patchNote(User user, Integer id, String title, String content) throws NoteNotFoundException, AuthorizationException {
+        log.info("Patching note of id {} for user {}", id, user.getMail());
+
+        Note note = noteRepository.findById(id).orElseThrow(() -> new NoteNotFoundException(id));
+
+        if(isNotAuthorized(user, note)) {
+            log.debug("User {} not authorized", user.getMail());
+
+            throw new AuthorizationException(user.getMail());
+        }
+
+        if (title != null) {
+            note.setTitle(title);
+        }
+        if (content != null) {
+            storeContent(note, content);
+        }
 
         return noteRepository.saveAndFlush(note);
     }
@@ -109,7 +232,7 @@ public class NoteService {
      * @throws NoteNotFoundException raised if no note exists for this id
      * @throws AuthorizationException raised if the asking user can't access this note : if it is not one of his notes
      */
-    @Transactional(dontRollbackOn = { NoteNotFoundException.class })
+    @Transactional(noRollbackFor = { NoteNotFoundException.class })
     public void deleteNote(User user, Integer id) throws NoteNotFoundException, AuthorizationException {
         log.info("Deleting note of id {} for user {}", id, user.getMail());
 
@@ -123,6 +246,110 @@ public class NoteService {
 
         noteRepository.deleteById(id);
 
+        if (note.getBlob() != null) {
+            noteBlobService.release(note.getBlob().getHash(), 1);
+        }
+    }
+
+    /**
+     * Deletes several notes of a user, with set-based statements in a single transaction : one query selecting the user's notes among the ids, one delete.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param ids ids of the to be deleted notes. Duplicates are ignored
+     * @return {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult Result} of each id, in the order of the ids : DELETED, or NOT_FOUND if it is not one of the user's notes
+     */
+    @Transactional
+    public List<NoteBatchResult> deleteNotes(User user, List<Integer> ids) {
+        log.info("Deleting {} notes for user {}", ids.size(), user.getMail());
+
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        Set<Integer> userNoteIds = new HashSet<>(noteRepository.findIdsByUserAndIdIn(user.getId(), uniqueIds));
+
+        if (!userNoteIds.isEmpty()) {
+            List<Object[]> blobReferences = noteRepository.countBlobReferencesByUserAndIdIn(user.getId(), userNoteIds);
+
+            noteRepository.deleteByUserAndIdIn(user.getId(), userNoteIds);
+            releaseBlobs(blobReferences);
+        }
+
+        return batchResults(uniqueIds, userNoteIds, NoteBatchStatus.DELETED);
+    }
+
+    /**
+     * Modifies several notes of a user with the same title and/or content, with set-based statements in a single transaction : one query selecting the user's notes among the ids, one update.
+     * A content to be chunked is split once, each chunk being written to all the notes by a single statement.
+     * @param user {@link fr.lsinquin.postit.domain.entities.User asking user}
+     * @param ids ids of the to be modified notes. Duplicates are ignored
+     * @param title title. It can be blank. null to keep the title of each note
+     * @param content content. It can be blank. null to keep the content of each note
+     * @return {@link fr.lsinquin.postit.domain.dtos.NoteBatchResult Result} of each id, in the order of the ids : UPDATED, or NOT_FOUND if it is not one of the user's notes
+     */
+    @Transactional
+    public List<NoteBatchResult> modifyNotes(User user, List<Integer> ids, String title, String content) {
+        log.info("Modifying {} notes for user {}", ids.size(), user.getMail());
+
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        Set<Integer> userNoteIds = new HashSet<>(noteRepository.findIdsByUserAndIdIn(user.getId(), uniqueIds));
+
+        if (!userNoteIds.isEmpty()) {
+            if (content == null) {
+                if (title != null) {
+                    noteRepository.updateTitleByUserAndIdIn(user.getId(), userNoteIds, title);
+                }
+            } else if (contentChunking.accepts(content)) {
+                List<Object[]> blobReferences = noteRepository.countBlobReferencesByUserAndIdIn(user.getId(), userNoteIds);
+
+                if (title != null) {
+                    noteRepository.updateTitleByUserAndIdIn(user.getId(), userNoteIds, title);
+                }
+                noteRepository.updateChunkedContentByUserAndIdIn(user.getId(), userNoteIds, content, contentChunking.split(content));
+                releaseBlobs(blobReferences);
+            } else {
+                List<Object[]> blobReferences = noteRepository.countBlobReferencesByUserAndIdIn(user.getId(), userNoteIds);
+                NoteBlob blob = noteBlobService.accepts(content) ? noteBlobService.acquire(content, userNoteIds.size()) : null;
+                StoredContent storedContent = blob == null ? contentCompression.store(content) : StoredContent.external(content);
+
+                if (title != null) {
+                    noteRepository.updateByUserAndIdIn(user.getId(), userNoteIds, title, storedContent, blob);
+                } else {
+                    noteRepository.updateContentByUserAndIdIn(user.getId(), userNoteIds, storedContent, blob);
+                }
+                releaseBlobs(blobReferences);
+            }
+        }
+
+        return batchResults(uniqueIds, userNoteIds, NoteBatchStatus.UPDATED);
+    }
+
+    /**
+     * Sets the content of a note : shared in a blob if it is long enough, stored in the note otherwise, as chunks if it is very long. The previous blob of the note is released.
+     */
+    private void storeContent(Note note, String content) {
+        NoteBlob previousBlob = note.getBlob();
+
+        if (noteBlobService.accepts(content) && !contentChunking.accepts(content)) {
+            note.setBlob(noteBlobService.acquire(content, 1), content);
+        } else {
+            note.setContent(content, contentCompression, contentChunking);
+        }
+
+        if (previousBlob != null) {
+            noteBlobService.release(previousBlob.getHash(), 1);
+        }
+    }
+
+    /**
+     * @param blobReferences rows of a blob hash and its number of released references
+     */
+    private void releaseBlobs(List<Object[]> blobReferences) {
+        for (Object[] blobReference : blobReferences) {
+            noteBlobService.release((String) blobReference[0], ((Long) blobReference[1]).intValue());
+        }
+    }
+
+    private List<NoteBatchResult> batchResults(Set<Integer> ids, Set<Integer> userNoteIds, NoteBatchStatus status) {
+        return ids.stream()
+                .map(id -> new NoteBatchResult(id, userNoteIds.contains(id) ? status : NoteBatchStatus.NOT_FOUND))
+                .collect(Collectors.toList());
     }
 
     /**
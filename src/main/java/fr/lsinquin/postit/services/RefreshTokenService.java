@@ -0,0 +1,115 @@
+package fr.lsinquin.postit.services;
+
+import fr.lsinquin.postit.api.security.JwtProperties;
+import fr.lsinquin.postit.domain.entities.RefreshToken;
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.repositories.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues, rotates and revokes the refresh tokens, which are exchanged for new access tokens.
+ * A refresh token is a random value : only its SHA-256 is stored, so that the stored tokens cannot be used if the database leaks.
+ * Each token is single-use : it is deleted when exchanged, and a new one is issued along with the new access token.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final JwtProperties jwtProperties;
+
+    /**
+     * Issues a new refresh token for a user, and purges his expired ones.
+     * @param user The user the token is issued for
+     * @return The refresh token to give to the client
+     */
+    @Transactional
+    public String createRefreshToken(User user) {
+        Instant now = Instant.now();
+        refreshTokenRepository.deleteExpiredByUser(user.getId(), now);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(new RefreshToken(hash(token), user, now.plus(jwtProperties.getRefreshTokenTtl())));
+
+        return token;
+    }
+
+    /**
+     * Exchanges a refresh token for a new one. The given token is consumed : when it is used concurrently, only one of the calls succeeds.
+     * @param token The refresh token given by the client
+     * @return The user and his new refresh token. Empty if the token is unknown, already used or expired
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String token) {
+        String id = hash(token);
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findWithUserById(id);
+
+        if (refreshToken.isEmpty() || refreshTokenRepository.deleteTokenById(id) == 0) {
+            log.debug("Unknown or already used refresh token");
+            return Optional.empty();
+        }
+
+        if (refreshToken.get().getExpiresAt().isBefore(Instant.now())) {
+            log.debug("Expired refresh token");
+            return Optional.empty();
+        }
+
+        User user = refreshToken.get().getUser();
+
+        return Optional.of(new Rotation(user, createRefreshToken(user)));
+    }
+
+    /**
+     * Revokes a refresh token.
+     * @param token The refresh token given by the client
+     */
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.deleteTokenById(hash(token));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+
+            return new String(Hex.encode(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Result of a refresh token rotation
+     */
+    @Value
+    public static class Rotation {
+
+        User user;
+
+        String refreshToken;
+    }
+}
@@ -1,18 +1,22 @@
 package fr.lsinquin.postit.services;
 
+import fr.lsinquin.postit.datasource.ReplicaRoutingContext;
 import fr.lsinquin.postit.domain.exceptions.ExistingUserException;
 import fr.lsinquin.postit.repositories.UserRepository;
 import fr.lsinquin.postit.domain.entities.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserService {
 
     private final PasswordEncoder passwordEncoder;
@@ -20,28 +24,56 @@ public class UserService {
     private final UserRepository userRepository;
 
     /**
-     * Creates and persists a new user
+     * Name of the unique index on app_user(mail). See the V2 Flyway migration.
+     */
+    private static final String MAIL_UNIQUE_INDEX = "app_user_mail_idx";
+
+    /**
+     * Creates and persists a new user.
+     * The uniqueness of the mail address is enforced by the database unique index on the mail column and the ids are allocated by blocks :
+     * a single insert is issued for most registrations, which is also correct when two users concurrently register with the same mail.
+     * The password is hashed before the insert, so a registration with an existing mail still costs a hash.
      * @param mail mail address
      * @param password raw password
      * @return {@link fr.lsinquin.postit.domain.entities.User created user}
      * @throws ExistingUserException raised when a user with the same mail address already exists
      */
-    @Transactional(dontRollbackOn = { ExistingUserException.class })
+    @Transactional
     public User createUser(String mail, String password) throws ExistingUserException {
         log.info("Creating new user {}", mail);
 
-        if(userRepository.existsByMail(mail)) {
-            log.debug("A user of mail {} already exists", mail);
-
-            throw new ExistingUserException(mail);
-        }
-
         String hashedPassword = passwordEncoder.encode(password);
 
         User user = new User();
         user.setMail(mail);
         user.setPassword(hashedPassword);
 
-        return userRepository.saveAndFlush(user);
+        try {
+            // The insert is made on behalf of the new user so that his first reads are not sent to a lagging replica
+            return ReplicaRoutingContext.callAs(mail, () -> userRepository.saveAndFlush(user));
+        } catch (DataIntegrityViolationException exception) {
+            if (!isMailUniqueViolation(exception)) {
+                throw exception;
+            }
+
+            log.debug("A user of mail {} already exists", mail);
+
+            throw new ExistingUserException(exception, mail);
+        }
+    }
+
+    /**
+     * Decides if a DataIntegrityViolationException was caused by the unique index on the mail column.
+     * @param exception the raised exception
+     * @return True if the violated constraint is the mail unique index. False otherwise
+     */
+    private boolean isMailUniqueViolation(DataIntegrityViolationException exception) {
+        if (!(exception.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+
+        String constraintName = ((ConstraintViolationException) exception.getCause()).getConstraintName();
+
+        return constraintName != null && constraintName.toLowerCase().contains(MAIL_UNIQUE_INDEX);
     }
 }
@@ -0,0 +1,132 @@
+package fr.lsinquin.postit.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntFunction;
+
+/**
+ * Content stored as chunks, read as a {@link org.springframework.core.io.Resource Resource} of UTF-8 bytes.
+ * Its streams fetch one chunk at a time, while they are read, and skip the chunks before an offset without fetching them :
+ * a range of the content is served with the memory of a single chunk, whatever the size of the content.
+ * The chunks are read when the stream is, after the transaction which found the note. The chunk reader only returns the chunks of the version found with the note,
+ * and every chunk must have the length expected from the size : a content rewritten or deleted meanwhile fails the read with an IOException,
+ * it is never read partly old, partly new.
+ */
+public class ChunkedContentResource extends AbstractResource {
+
+    private final long size;
+
+    private final IntFunction<byte[]> chunkReader;
+
+    private final String description;
+
+    /**
+     * @param size number of bytes of the content
+     * @param chunkReader reads a chunk from its sequence number, null if it is missing or of another version
+     * @param description description of the content, for the error messages
+     */
+    public ChunkedContentResource(long size, IntFunction<byte[]> chunkReader, String description) {
+        this.size = size;
+        this.chunkReader = chunkReader;
+        this.description = description;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ChunksInputStream();
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    private class ChunksInputStream extends InputStream {
+
+        private long position;
+
+        private byte[] chunk;
+
+        private int chunkSeq = -1;
+
+        @Override
+        public int read() throws IOException {
+            if (position >= size) {
+                return -1;
+            }
+
+            byte value = currentChunk()[(int) (position % ContentChunking.CHUNK_SIZE)];
+            position++;
+
+            return value & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+
+            int chunkOffset = (int) (position % ContentChunking.CHUNK_SIZE);
+            byte[] current = currentChunk();
+            int read = Math.min(length, current.length - chunkOffset);
+
+            System.arraycopy(current, chunkOffset, buffer, offset, read);
+            position += read;
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, size - position));
+            position += skipped;
+
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            if (chunk == null || chunkSeq != (int) (position / ContentChunking.CHUNK_SIZE)) {
+                return 0;
+            }
+
+            return chunk.length - (int) (position % ContentChunking.CHUNK_SIZE);
+        }
+
+        @Override
+        public void close() {
+            chunk = null;
+        }
+
+        private byte[] currentChunk() throws IOException {
+            int seq = (int) (position / ContentChunking.CHUNK_SIZE);
+
+            if (seq != chunkSeq) {
+                chunk = chunkReader.apply(seq);
+                chunkSeq = seq;
+
+                if (chunk == null || chunk.length != ContentChunking.chunkLength(size, seq)) {
+                    throw new IOException("Chunk " + seq + " of " + description + " is missing, truncated or rewritten since the read started");
+                }
+            }
+
+            return chunk;
+        }
+    }
+}
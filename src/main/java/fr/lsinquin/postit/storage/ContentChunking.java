@@ -0,0 +1,103 @@
+package fr.lsinquin.postit.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Storage of the very large note contents as chunks : rows of {@link #CHUNK_SIZE} bytes of their UTF-8 encoding, in the note_chunk table.
+ * A range of the content is read from the chunks it overlaps only, so that it is streamed with a bounded memory (see {@link ChunkedContentResource}).
+ * Chunked contents are neither compressed nor shared : ranges are byte offsets in the plain UTF-8 content.
+ * The instance configured by {@link ContentChunkingConfig} is injected in the services, which hand it to the entities they write.
+ */
+public class ContentChunking {
+
+    /**
+     * Number of bytes of every chunk but the last one of a content. It must not change : ranges locate their chunks with it.
+     */
+    public static final int CHUNK_SIZE = 256 * 1024;
+
+    private final int threshold;
+
+    /**
+     * @param threshold contents longer than this number of characters are chunked
+     */
+    public ContentChunking(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return contents longer than this number of characters are chunked
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param content a content. It can be null
+     * @return True if the content is to be stored as chunks
+     */
+    public boolean accepts(String content) {
+        return content != null && content.length() > threshold;
+    }
+
+    /**
+     * @param content a content
+     * @return its UTF-8 bytes split in chunks, or null if it is not long enough to be chunked
+     */
+    public List<byte[]> split(String content) {
+        if (!accepts(content)) {
+            return null;
+        }
+
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> chunks = new ArrayList<>(bytes.length / CHUNK_SIZE + 1);
+
+        for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(bytes, offset, Math.min(offset + CHUNK_SIZE, bytes.length)));
+        }
+
+        return chunks;
+    }
+
+    /**
+     * @param chunks chunks of a content, in order. A chunk may end in the middle of a character
+     * @return the content
+     */
+    public static String join(List<byte[]> chunks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunks.size() * CHUNK_SIZE);
+
+        for (byte[] chunk : chunks) {
+            bytes.writeBytes(chunk);
+        }
+
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a new version of the chunks of a note. Random rather than incremented : two concurrent writers never write the same version
+     */
+    public static long newVersion() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * @param size number of bytes of a content
+     * @param seq sequence number of one of its chunks
+     * @return number of bytes of the chunk
+     */
+    public static int chunkLength(long size, int seq) {
+        return (int) Math.min(CHUNK_SIZE, size - (long) seq * CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunks chunks of a content
+     * @return number of bytes of the content
+     */
+    public static long size(List<byte[]> chunks) {
+        return chunks.stream().mapToLong(chunk -> chunk.length).sum();
+    }
+}
@@ -0,0 +1,18 @@
+package fr.lsinquin.postit.storage;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Declares the {@link ContentChunking} of the very large note contents.
+ */
+@Configuration
+@EnableConfigurationProperties(ContentChunkingProperties.class)
+public class ContentChunkingConfig {
+
+    @Bean
+    public ContentChunking contentChunking(ContentChunkingProperties contentChunkingProperties) {
+        return new ContentChunking(contentChunkingProperties.isEnabled() ? contentChunkingProperties.getThreshold() : Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,27 @@
+package fr.lsinquin.postit.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Storage of the very large note contents as chunks, bound to the postit.content-chunking properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.content-chunking")
+public class ContentChunkingProperties {
+
+    /**
+     * Stores the new contents longer than threshold as chunks. Chunked contents are read whatever this setting.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Contents longer than this number of characters are chunked.
+     */
+    @Min(1)
+    private int threshold = 1024 * 1024;
+}
@@ -0,0 +1,29 @@
+package fr.lsinquin.postit.storage;
+
+/**
+ * Compression algorithm of the stored note contents.
+ * Its id is written in front of every compressed content : a codec can be replaced by another one, the contents compressed by the former stay readable
+ * as long as it is still {@link ContentCompression#register(ContentCodec) registered}. Implementations must be thread safe.
+ */
+public interface ContentCodec {
+
+    /**
+     * @return Id of the codec, written in the stored contents. It must never change
+     */
+    byte getId();
+
+    /**
+     * @param data bytes to compress
+     * @return compressed bytes
+     */
+    byte[] compress(byte[] data);
+
+    /**
+     * @param data buffer holding the compressed bytes
+     * @param offset offset of the compressed bytes in the buffer
+     * @param length number of compressed bytes
+     * @param uncompressedLength number of bytes before compression
+     * @return uncompressed bytes
+     */
+    byte[] decompress(byte[] data, int offset, int length, int uncompressedLength);
+}
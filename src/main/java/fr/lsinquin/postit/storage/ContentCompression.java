@@ -0,0 +1,111 @@
+package fr.lsinquin.postit.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compression of the note contents at rest.
+ * Contents longer than the threshold (in characters) are stored compressed, as : the codec id (1 byte), the UTF-8 length (4 bytes), the compressed UTF-8 bytes.
+ * Shorter contents, and contents which do not shrink, are stored as plain text.
+ * The instance configured by {@link ContentCompressionConfig} is injected in the services and repositories, which hand it to the entities they write.
+ * Stored contents are read back by the static {@link #decompress(byte[])}, with the codec registered for their id : entities read them without the bean.
+ */
+public class ContentCompression {
+
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private static final Map<Byte, ContentCodec> CODECS = new ConcurrentHashMap<>();
+
+    private final int threshold;
+
+    private final ContentCodec codec;
+
+    /**
+     * @param threshold contents longer than this number of characters are compressed
+     * @param codec codec of the compressed contents. It is registered to read them back
+     */
+    public ContentCompression(int threshold, ContentCodec codec) {
+        this.threshold = threshold;
+        this.codec = codec;
+
+        register(codec);
+    }
+
+    /**
+     * Registers a codec to read back the contents it compressed.
+     * @param codec codec to register
+     * @throws IllegalStateException if another codec is registered with the same id
+     */
+    public static void register(ContentCodec codec) {
+        ContentCodec registered = CODECS.putIfAbsent(codec.getId(), codec);
+
+        if (registered != null && registered.getClass() != codec.getClass()) {
+            throw new IllegalStateException("Content codec id " + codec.getId() + " already used by " + registered.getClass().getName());
+        }
+    }
+
+    /**
+     * @return contents longer than this number of characters are compressed
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Compresses a content if it is long enough and shrinks.
+     * @param content content of a note. It can be null
+     * @return the compressed content, or null if the content is to be stored as plain text
+     */
+    public byte[] compress(String content) {
+        if (content == null || content.length() <= threshold) {
+            return null;
+        }
+
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = codec.compress(data);
+
+        if (compressed.length + HEADER_LENGTH >= data.length) {
+            return null;
+        }
+
+        return ByteBuffer.allocate(HEADER_LENGTH + compressed.length)
+                .put(codec.getId())
+                .putInt(data.length)
+                .put(compressed)
+                .array();
+    }
+
+    /**
+     * @param content content of a note. It can be null
+     * @return the columns storing it, compressed if it is long enough and shrinks
+     */
+    public StoredContent store(String content) {
+        return StoredContent.of(content, compress(content));
+    }
+
+    /**
+     * Decompresses a content compressed by {@link #compress(String)}, with any registered codec.
+     * @param stored compressed content
+     * @return the content
+     * @throws IllegalStateException if the codec of the content is not registered or the content is corrupted
+     */
+    public static String decompress(byte[] stored) {
+        if (stored.length < HEADER_LENGTH) {
+            throw new IllegalStateException("Corrupted compressed content : " + stored.length + " bytes");
+        }
+
+        ContentCodec contentCodec = CODECS.get(stored[0]);
+
+        if (contentCodec == null) {
+            throw new IllegalStateException("Unknown content codec id " + stored[0]);
+        }
+
+        int length = ByteBuffer.wrap(stored, 1, 4).getInt();
+
+        return new String(contentCodec.decompress(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH, length), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,36 @@
+package fr.lsinquin.postit.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Declares the {@link ContentCompression} of the note contents. The codec is Deflate, unless another {@link ContentCodec} bean is declared.
+ */
+@Configuration
+@EnableConfigurationProperties(ContentCompressionProperties.class)
+public class ContentCompressionConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ContentCodec contentCodec(ContentCompressionProperties contentCompressionProperties) {
+        return new DeflateContentCodec(contentCompressionProperties.getLevel());
+    }
+
+    @Bean
+    public ContentCompression contentCompression(ContentCompressionProperties contentCompressionProperties, ContentCodec contentCodec) {
+        int threshold = contentCompressionProperties.isEnabled() ? contentCompressionProperties.getThreshold() : Integer.MAX_VALUE;
+        return new ContentCompression(threshold, contentCodec);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "postit.content-compression", name = "backfill", havingValue = "true")
+    public NoteContentBackfill noteContentBackfill(JdbcTemplate jdbcTemplate, ContentCompression contentCompression, ContentCompressionProperties contentCompressionProperties) {
+        return new NoteContentBackfill(jdbcTemplate, contentCompression, contentCompressionProperties.getBackfillBatchSize());
+    }
+}
@@ -0,0 +1,26 @@
+package fr.lsinquin.postit.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Declares the {@link NoteBlobVerifier} when the note contents are deduplicated. The blobs are maintained by {@link fr.lsinquin.postit.services.NoteBlobService NoteBlobService}.
+ */
+@Configuration
+@EnableConfigurationProperties(ContentDedupProperties.class)
+public class ContentDedupConfig {
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "postit.content-dedup", name = "enabled", havingValue = "true")
+    public NoteBlobVerifier noteBlobVerifier(JdbcTemplate jdbcTemplate, ContentDedupProperties contentDedupProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new NoteBlobVerifier(jdbcTemplate, contentDedupProperties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
@@ -0,0 +1,42 @@
+package fr.lsinquin.postit.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Deduplication of the note contents, bound to the postit.content-dedup properties.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "postit.content-dedup")
+public class ContentDedupProperties {
+
+    /**
+     * Stores the new contents of at least minLength characters once in the note_blob table, shared by the notes having the same content.
+     * Shared contents are read and released whatever this setting.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Shorter contents are stored in the notes : sharing them would cost more than it saves.
+     */
+    @Min(1)
+    private int minLength = 1024;
+
+    /**
+     * Delay between two runs of the verifier, which repairs the reference counts and checks the hashes of the blobs.
+     */
+    @NotNull
+    private Duration verifyInterval = Duration.ofHours(1);
+
+    /**
+     * Number of blobs whose hash is checked by each run of the verifier. The next run goes on with the following ones.
+     */
+    @Min(1)
+    private int verifyBatchSize = 1000;
+}
@@ -0,0 +1,81 @@
+package fr.lsinquin.postit.storage;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw Deflate (zlib without header) codec, from the JDK.
+ */
+public class DeflateContentCodec implements ContentCodec {
+
+    public static final byte ID = 1;
+
+    private final int level;
+
+    public DeflateContentCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level, true);
+
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            // Deflate output may slightly exceed its input on incompressible data
+            byte[] buffer = new byte[data.length + data.length / 1000 + 64];
+            int length = 0;
+
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int uncompressedLength) {
+        Inflater inflater = new Inflater(true);
+
+        try {
+            inflater.setInput(data, offset, length);
+
+            byte[] result = new byte[uncompressedLength];
+            int read = 0;
+
+            while (read < uncompressedLength && !inflater.finished()) {
+                int inflated = inflater.inflate(result, read, uncompressedLength - read);
+
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += inflated;
+            }
+
+            if (read != uncompressedLength) {
+                throw new IllegalStateException("Truncated compressed content : " + read + " bytes instead of " + uncompressedLength);
+            }
+
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package fr.lsinquin.postit.storage;
+
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies the note blobs in the background, every verifyInterval :
+ * the reference counts are set to the number of notes referencing each blob, the blobs without reference are deleted,
+ * and the hash of a batch of blobs is checked against their content, the next run going on with the following blobs.
+ * Reference counts drift when the reactive stack writes notes, or when a transaction inserting a blob is rolled back.
+ * A count repaired while notes are written concurrently may still be wrong : the next run repairs it, and a blob referenced by a note is never deleted.
+ * A corrupted blob is only reported : its notes keep it, the content cannot be recovered from another copy.
+ * It publishes the number of blobs, the number of notes referencing them and their ratio, the deduplication ratio.
+ */
+@Slf4j
+public class NoteBlobVerifier implements SmartLifecycle {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ContentDedupProperties properties;
+
+    private final AtomicLong blobs = new AtomicLong();
+
+    private final AtomicLong references = new AtomicLong();
+
+    private final Counter repairedBlobs;
+
+    private final Counter corruptedBlobs;
+
+    private String lastVerifiedHash = "";
+
+    private ScheduledExecutorService executor;
+
+    public NoteBlobVerifier(JdbcTemplate jdbcTemplate, ContentDedupProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+
+        Gauge.builder("postit.content-dedup.blobs", blobs, AtomicLong::get)
+                .description("Stored note blobs")
+                .register(meterRegistry);
+        Gauge.builder("postit.content-dedup.references", references, AtomicLong::get)
+                .description("Notes referencing a blob")
+                .register(meterRegistry);
+        Gauge.builder("postit.content-dedup.ratio", this, NoteBlobVerifier::ratio)
+                .description("Notes referencing a blob per stored blob")
+                .register(meterRegistry);
+        this.repairedBlobs = Counter.builder("postit.content-dedup.repaired")
+                .description("Blobs whose reference count was repaired")
+                .register(meterRegistry);
+        this.corruptedBlobs = Counter.builder("postit.content-dedup.corrupted")
+                .description("Blobs whose content does not match their hash")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a verification : repairs the reference counts, deletes the blobs without reference, checks a batch of hashes and updates the metrics.
+     * @return Number of corrupted blobs found in the batch
+     */
+    public synchronized int verify() {
+        int repaired = jdbcTemplate.update("UPDATE note_blob SET ref_count = (SELECT COUNT(*) FROM note WHERE note.blob_hash = note_blob.hash) " +
+                "WHERE ref_count <> (SELECT COUNT(*) FROM note WHERE note.blob_hash = note_blob.hash)");
+        int deleted = jdbcTemplate.update("DELETE FROM note_blob WHERE ref_count = 0 AND NOT EXISTS (SELECT 1 FROM note WHERE note.blob_hash = note_blob.hash)");
+
+        if (repaired > 0 || deleted > 0) {
+            log.info("Repaired the reference count of {} blobs, deleted {} blobs without reference", repaired, deleted);
+        }
+        repairedBlobs.increment(repaired);
+
+        int corrupted = verifyHashes();
+
+        jdbcTemplate.query("SELECT COUNT(*) AS blobs, COALESCE(SUM(ref_count), 0) AS refs FROM note_blob", resultSet -> {
+            blobs.set(resultSet.getLong("blobs"));
+            references.set(resultSet.getLong("refs"));
+        });
+
+        return corrupted;
+    }
+
+    private int verifyHashes() {
+        int[] verified = { 0 };
+        int[] corrupted = { 0 };
+        String[] lastHash = { lastVerifiedHash };
+
+        jdbcTemplate.query("SELECT hash, content, compressed_content FROM note_blob WHERE hash > ? ORDER BY hash LIMIT ?",
+                resultSet -> {
+                    String hash = resultSet.getString("hash");
+                    byte[] compressed = resultSet.getBytes("compressed_content");
+
+                    verified[0]++;
+                    lastHash[0] = hash;
+
+                    try {
+                        String content = compressed == null ? resultSet.getString("content") : ContentCompression.decompress(compressed);
+
+                        if (content == null || !hash.equals(NoteBlob.hashOf(content))) {
+                            corrupted[0]++;
+                            log.error("Blob {} does not match its hash", hash);
+                        }
+                    } catch (IllegalStateException e) {
+                        corrupted[0]++;
+                        log.error("Blob {} cannot be decompressed", hash, e);
+                    }
+                },
+                lastVerifiedHash, properties.getVerifyBatchSize());
+
+        // Once the last blobs are verified, the next run starts again from the first ones
+        lastVerifiedHash = verified[0] < properties.getVerifyBatchSize() ? "" : lastHash[0];
+        corruptedBlobs.increment(corrupted[0]);
+
+        return corrupted[0];
+    }
+
+    private double ratio() {
+        long storedBlobs = blobs.get();
+
+        return storedBlobs == 0 ? 0 : (double) references.get() / storedBlobs;
+    }
+
+    @Override
+    public synchronized void start() {
+        long interval = properties.getVerifyInterval().toMillis();
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-blob-verifier");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::verifySafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    private void verifySafely() {
+        try {
+            verify();
+        } catch (RuntimeException e) {
+            log.error("Blob verification failed", e);
+        }
+    }
+}
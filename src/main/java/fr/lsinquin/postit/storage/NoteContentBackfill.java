@@ -0,0 +1,129 @@
+package fr.lsinquin.postit.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compresses the long contents stored as plain text, by batches of notes ordered by id, and stores the length and preview of the compressed contents which lack them.
+ * It runs at startup when postit.content-compression.backfill is true : once after an upgrade, or after lowering the threshold. It can be interrupted and run again.
+ * A note modified between its read and its update keeps its new content : the update only applies if the content is unchanged.
+ */
+@Slf4j
+public class NoteContentBackfill implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ContentCompression contentCompression;
+
+    private final int batchSize;
+
+    public NoteContentBackfill(JdbcTemplate jdbcTemplate, ContentCompression contentCompression, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentCompression = contentCompression;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    /**
+     * @return Number of compressed contents
+     */
+    public int backfill() {
+        int summarizedNotes = backfillSummaries();
+
+        if (summarizedNotes > 0) {
+            log.info("Stored the length and preview of {} compressed note contents", summarizedNotes);
+        }
+
+        return compressContents();
+    }
+
+    private int compressContents() {
+        log.info("Compressing note contents longer than {} characters", contentCompression.getThreshold());
+
+        int lastId = 0;
+        int compressedNotes = 0;
+        long savedBytes = 0;
+
+        while (true) {
+            List<Object[]> updates = new ArrayList<>();
+            int[] batchLastId = { lastId };
+
+            jdbcTemplate.query("SELECT id, content FROM note WHERE id > ? AND compressed_content IS NULL AND LENGTH(content) > ? ORDER BY id LIMIT ?",
+                    resultSet -> {
+                        int id = resultSet.getInt("id");
+                        String content = resultSet.getString("content");
+                        byte[] compressed = contentCompression.compress(content);
+
+                        batchLastId[0] = id;
+
+                        if (compressed != null) {
+                            StoredContent storedContent = StoredContent.of(content, compressed);
+                            updates.add(new Object[] { compressed, storedContent.getLength(), storedContent.getPreview(), id, content });
+                        }
+                    },
+                    lastId, contentCompression.getThreshold(), batchSize);
+
+            if (batchLastId[0] == lastId) {
+                break;
+            }
+            lastId = batchLastId[0];
+
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE note SET content = NULL, compressed_content = ?, content_length = ?, content_preview = ? WHERE id = ? AND content = ?", updates);
+
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] != 0) {
+                    Object[] update = updates.get(i);
+                    compressedNotes++;
+                    savedBytes += ((String) update[4]).length() - ((byte[]) update[0]).length;
+                }
+            }
+
+            log.debug("Compressed note contents up to id {}", lastId);
+        }
+
+        log.info("Compressed {} note contents, about {} bytes saved", compressedNotes, savedBytes);
+
+        return compressedNotes;
+    }
+
+    private int backfillSummaries() {
+        int lastId = 0;
+        int summarizedNotes = 0;
+
+        while (true) {
+            List<Object[]> updates = new ArrayList<>();
+            int[] batchLastId = { lastId };
+
+            jdbcTemplate.query("SELECT id, compressed_content FROM note WHERE id > ? AND compressed_content IS NOT NULL AND content_length IS NULL ORDER BY id LIMIT ?",
+                    resultSet -> {
+                        int id = resultSet.getInt("id");
+                        byte[] compressed = resultSet.getBytes("compressed_content");
+                        StoredContent storedContent = StoredContent.of(ContentCompression.decompress(compressed), compressed);
+
+                        batchLastId[0] = id;
+                        updates.add(new Object[] { storedContent.getLength(), storedContent.getPreview(), id, compressed });
+                    },
+                    lastId, batchSize);
+
+            if (batchLastId[0] == lastId) {
+                break;
+            }
+            lastId = batchLastId[0];
+
+            for (int updated : jdbcTemplate.batchUpdate("UPDATE note SET content_length = ?, content_preview = ? WHERE id = ? AND compressed_content = ?", updates)) {
+                summarizedNotes += updated != 0 ? 1 : 0;
+            }
+        }
+
+        return summarizedNotes;
+    }
+}
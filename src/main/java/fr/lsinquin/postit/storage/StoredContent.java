@@ -0,0 +1,63 @@
+package fr.lsinquin.postit.storage;
+
+import lombok.Value;
+
+/**
+ * Columns storing the content of a note : either the plain content, or the compressed content along with its preview, and the length of the content.
+ * The preview of a plain content is computed by the queries, with SUBSTRING.
+ * A content shared in a blob or stored as chunks is not stored in the note columns, which keep its length and preview.
+ */
+@Value
+public class StoredContent {
+
+    /**
+     * Number of characters of the previews
+     */
+    public static final int PREVIEW_LENGTH = 200;
+
+    String content;
+
+    byte[] compressedContent;
+
+    Integer length;
+
+    String preview;
+
+    /**
+     * @param content content of a note. It can be null
+     * @param compressedContent the content compressed, null to store it as plain text
+     * @return the columns storing it
+     */
+    public static StoredContent of(String content, byte[] compressedContent) {
+        if (content == null) {
+            return new StoredContent(null, null, null, null);
+        }
+
+        int length = content.codePointCount(0, content.length());
+
+        if (compressedContent == null) {
+            return new StoredContent(content, null, length, null);
+        }
+
+        return new StoredContent(null, compressedContent, length, preview(content, length));
+    }
+
+    /**
+     * @param content content of a note, stored in a {@link fr.lsinquin.postit.domain.entities.NoteBlob blob} or as chunks
+     * @return the columns of the note : its length and preview only
+     */
+    public static StoredContent external(String content) {
+        int length = content.codePointCount(0, content.length());
+
+        return new StoredContent(null, null, length, preview(content, length));
+    }
+
+    /**
+     * @param content a content
+     * @param length number of code points of the content
+     * @return the first {@link #PREVIEW_LENGTH} characters of the content, as SUBSTRING(content, 1, PREVIEW_LENGTH) would
+     */
+    private static String preview(String content, int length) {
+        return length <= PREVIEW_LENGTH ? content : content.substring(0, content.offsetByCodePoints(0, PREVIEW_LENGTH));
+    }
+}
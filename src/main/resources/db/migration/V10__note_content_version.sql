@@ -0,0 +1,5 @@
+-- Version of the chunks of a note, changed to a new random value every time they are written.
+-- A chunk is only read along with the version the reader started with : a content rewritten while it is streamed fails the read
+-- instead of mixing old and new chunks.
+
+ALTER TABLE note ADD COLUMN content_version BIGINT NOT NULL DEFAULT 0;
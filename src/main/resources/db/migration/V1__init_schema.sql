@@ -0,0 +1,20 @@
+-- Initial schema, as it existed before migrations were managed by Flyway.
+-- Existing databases are baselined on this version (spring.flyway.baseline-on-migrate), so it only runs on empty databases.
+
+CREATE SEQUENCE app_user_id_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE app_user (
+    id       INTEGER      NOT NULL PRIMARY KEY,
+    mail     VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    enabled  BOOLEAN      DEFAULT TRUE
+);
+
+CREATE SEQUENCE note_id_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE note (
+    id      INTEGER      NOT NULL PRIMARY KEY,
+    title   VARCHAR(255),
+    content TEXT,
+    user_id INTEGER      NOT NULL REFERENCES app_user (id)
+);
@@ -0,0 +1,5 @@
+-- Every authenticated request looks a user up by mail (findByMail), and registration relies on mails being unique.
+CREATE UNIQUE INDEX IF NOT EXISTS app_user_mail_idx ON app_user (mail);
+
+-- findNotesByUser filters on user_id. Having id in the index lets the database return a user's notes in id order without sorting.
+CREATE INDEX IF NOT EXISTS note_user_id_id_idx ON note (user_id, id);
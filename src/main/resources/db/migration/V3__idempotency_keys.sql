@@ -0,0 +1,12 @@
+-- Responses recorded for the Idempotency-Key header, when postit.idempotency.store=JDBC.
+-- A row without status is a key claimed by a request in progress. Its expires_at is then twice the lock timeout, so that the key of a crashed instance is reclaimed.
+CREATE TABLE idempotency_key (
+    id           CHAR(64)                 NOT NULL PRIMARY KEY,
+    fingerprint  CHAR(64)                 NOT NULL,
+    status       SMALLINT,
+    content_type VARCHAR(255),
+    body         BYTEA,
+    expires_at   TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_key_expires_at_idx ON idempotency_key (expires_at);
@@ -0,0 +1,16 @@
+-- Refresh tokens, stored as the SHA-256 of the token given to the client. A token is deleted when it is used : each refresh issues a new one.
+CREATE TABLE refresh_token (
+    id         CHAR(64)                 NOT NULL PRIMARY KEY,
+    user_id    INTEGER                  NOT NULL REFERENCES app_user (id),
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS refresh_token_user_id_idx ON refresh_token (user_id);
+
+-- Access tokens revoked before their expiration, by their jti claim. Each instance keeps the unexpired ones in memory.
+CREATE TABLE revoked_token (
+    id         VARCHAR(64)              NOT NULL PRIMARY KEY,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS revoked_token_expires_at_idx ON revoked_token (expires_at);
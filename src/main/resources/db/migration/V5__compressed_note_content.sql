@@ -0,0 +1,4 @@
+-- Long note contents are stored compressed in compressed_content, content being then null.
+-- Existing contents stay plain text until they are modified, or compressed by the backfill (postit.content-compression.backfill).
+
+ALTER TABLE note ADD COLUMN compressed_content BYTEA;
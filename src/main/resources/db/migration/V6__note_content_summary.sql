@@ -0,0 +1,7 @@
+-- Note lists can be read as summaries : id, title, preview and length of the content, without reading the whole contents.
+-- content_length is the number of characters of the content, content_preview its first 200 characters when it is stored compressed.
+-- Rows written before this migration have no content_length : the queries compute the length of their plain content,
+-- and the backfill (postit.content-compression.backfill) fills both columns for their compressed contents.
+
+ALTER TABLE note ADD COLUMN content_length INTEGER;
+ALTER TABLE note ADD COLUMN content_preview VARCHAR(200);
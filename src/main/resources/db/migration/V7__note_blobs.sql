@@ -0,0 +1,14 @@
+-- Identical long note contents can be stored once, in note_blob, keyed by the SHA-256 of their UTF-8 bytes (postit.content-dedup).
+-- A note stored this way has a null content and compressed_content and references its blob by blob_hash ; its content_length and content_preview stay on note.
+-- ref_count is the number of notes referencing the blob. It is maintained by the servlet stack, and repaired by the verifier.
+
+CREATE TABLE note_blob (
+    hash CHAR(64) NOT NULL PRIMARY KEY,
+    content TEXT,
+    compressed_content BYTEA,
+    ref_count INTEGER NOT NULL
+);
+
+ALTER TABLE note ADD COLUMN blob_hash CHAR(64) REFERENCES note_blob (hash);
+
+CREATE INDEX IF NOT EXISTS note_blob_hash_idx ON note (blob_hash);
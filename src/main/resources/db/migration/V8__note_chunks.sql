@@ -0,0 +1,12 @@
+-- Very large note contents can be stored as chunks of 256 KiB of their UTF-8 bytes in note_chunk (postit.content-chunking),
+-- so that a range of the content is read without reading the whole content.
+-- A chunked note has a null content, compressed_content and blob_hash, and its content_size is the number of bytes of the content.
+
+ALTER TABLE note ADD COLUMN content_size BIGINT;
+
+CREATE TABLE note_chunk (
+    note_id INTEGER NOT NULL REFERENCES note (id) ON DELETE CASCADE,
+    seq INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    PRIMARY KEY (note_id, seq)
+);
@@ -0,0 +1,5 @@
+-- Ids of new users are allocated by blocks of 50 (pooled-lo optimizer, see the User entity) : each nextval reserves the ids
+-- nextval to nextval + 49, so most registrations are a single INSERT instead of a nextval query followed by the INSERT.
+-- Inserts taking a single id with nextval, such as the reactive repository's, only use the first id of their block.
+
+ALTER SEQUENCE app_user_id_seq INCREMENT BY 50;
@@ -0,0 +1,136 @@
+package fr.lsinquin.postit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.domain.dtos.UserRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Startup time of the application : time from the launch of a new JVM to the first successful GET /notes,
+ * the user being registered and logged in as soon as the server accepts connections. A new JVM is started so that the classes are loaded cold, as on a new instance.
+ * The application runs on the embedded H2 database, with the main classes and the dependencies of the test classpath, without the test classes.
+ * Fails above STARTUP_BUDGET, a little above the baseline measured on the build machine (16 to 18 s), which can be changed with -Dpostit.startup-budget=<seconds>.
+ * Excluded from the default build, run with : mvn -Pload-tests test
+ */
+@Tag("load")
+@Slf4j
+public class StartupTimeTest {
+
+    private static final Duration STARTUP_BUDGET = Duration.ofSeconds(Long.getLong("postit.startup-budget", 20));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    @DisplayName("Startup - First successful GET /notes within the budget")
+    public void testStartupTime() throws Exception {
+        int port = freePort();
+        Path output = Files.createTempFile("post-it-startup", ".log");
+        long start = System.nanoTime();
+
+        Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", applicationClasspath(),
+                PostItApiApplication.class.getName(),
+                "--server.port=" + port,
+                "--postit.rate-limit.enabled=false")
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+
+        try {
+            String token = registerAndLogin(port, process, start);
+            HttpResponse<String> notes = httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/notes"))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            log.warn("First successful GET /notes {} ms after the JVM launch", elapsed.toMillis());
+
+            assertEquals(200, notes.statusCode(), notes.body());
+            assertTrue(elapsed.compareTo(STARTUP_BUDGET) < 0, "Started in " + elapsed.toMillis() + " ms, above the budget of " + STARTUP_BUDGET.toMillis() + " ms");
+        } catch (AssertionError | Exception e) {
+            log.error("Application output :\n{}", Files.readString(output));
+            throw e;
+        } finally {
+            process.destroy();
+            process.waitFor();
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * Registers a new user as soon as the server accepts connections, then logs him in.
+     * @return Access token of the user
+     */
+    private String registerAndLogin(int port, Process process, long start) throws Exception {
+        UserRequest user = new UserRequest(UUID.randomUUID() + "@mail.com", "startuppassword");
+
+        while (true) {
+            assertTrue(process.isAlive(), "The application exited with " + (process.isAlive() ? "" : process.exitValue()));
+            assertTrue(System.nanoTime() - start < STARTUP_BUDGET.toNanos(), "Not started within " + STARTUP_BUDGET.toMillis() + " ms");
+
+            try {
+                HttpResponse<Void> registration = httpClient.send(jsonRequest(port, "/users", user), HttpResponse.BodyHandlers.discarding());
+
+                assertEquals(201, registration.statusCode());
+                break;
+            } catch (ConnectException e) {
+                Thread.sleep(20);
+            }
+        }
+
+        HttpResponse<String> login = httpClient.send(jsonRequest(port, "/login", user), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, login.statusCode(), login.body());
+
+        return login.body();
+    }
+
+    private HttpRequest jsonRequest(int port, String path, Object body) throws Exception {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    /**
+     * @return The test classpath, given by Surefire, without the test classes
+     */
+    private static String applicationClasspath() {
+        String classpath = System.getProperty("surefire.test.class.path", System.getProperty("java.class.path"));
+        List<String> entries = Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entry -> !entry.endsWith("test-classes") && !entry.endsWith("test-classes" + File.separator))
+                .collect(Collectors.toList());
+
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package fr.lsinquin.postit.api.compression;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompressionFilter
+ */
+public class CompressionFilterTest {
+
+    private final DeflaterPool deflaterPool = new DeflaterPool(5, 2);
+
+    private final BufferPool bufferPool = new BufferPool(256, 2);
+
+    private final CompressionFilter filter = new CompressionFilter(List.of(MediaType.APPLICATION_JSON, MediaType.valueOf("application/x-ndjson")), bufferPool, deflaterPool);
+
+    @Test
+    @DisplayName("Test compression - Large JSON compressed")
+    public void testLargeJsonCompressed() throws Exception {
+        String body = jsonArray(200);
+
+        MockHttpServletResponse response = filter(gzipRequest(), MediaType.APPLICATION_JSON_VALUE, body);
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertTrue(response.getContentAsByteArray().length < body.length());
+        assertEquals(body, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    @DisplayName("Test compression - Deflater reused")
+    public void testDeflaterReused() throws Exception {
+        String body = jsonArray(200);
+
+        MockHttpServletResponse first = filter(gzipRequest(), MediaType.APPLICATION_JSON_VALUE, body);
+        MockHttpServletResponse second = filter(gzipRequest(), MediaType.APPLICATION_JSON_VALUE, body);
+
+        assertEquals(body, gunzip(first.getContentAsByteArray()));
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("Test compression - Buffer reused")
+    public void testBufferReused() throws Exception {
+        String body = jsonArray(1);
+
+        filter(gzipRequest(), MediaType.APPLICATION_JSON_VALUE, body);
+        byte[] buffer = bufferPool.borrow();
+        bufferPool.release(buffer);
+
+        MockHttpServletResponse response = filter(gzipRequest(), MediaType.APPLICATION_JSON_VALUE, body);
+
+        assertEquals(body, response.getContentAsString());
+        assertSame(buffer, bufferPool.borrow());
+    }
+
+    @Test
+    @DisplayName("Test compression - Body written byte by byte")
+    public void testSingleBytes() throws Exception {
+        String body = jsonArray(200);
+
+        MockHttpServletResponse response = filter(gzipRequest(), servlet((req, resp) -> {
+            resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+            for (byte b : body.getBytes(StandardCharsets.UTF_8)) {
+                resp.getOutputStream().write(b);
+            }
+        }));
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    @DisplayName("Test compression - Reset while compressing")
+    public void testResetWhileCompressing() throws Exception {
+        String body = jsonArray(200);
+
+        MockHttpServletResponse response = filter(gzipRequest(), servlet((req, resp) -> {
+            resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            resp.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+
+            assertTrue(resp.isCommitted());
+            assertThrows(IllegalStateException.class, resp::resetBuffer);
+            assertThrows(IllegalStateException.class, resp::reset);
+            assertThrows(IllegalStateException.class, () -> resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR));
+        }));
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, gunzip(response.getContentAsByteArray()));
+    }
+
+    @Test
+    @DisplayName("Test compression - Reset while buffering")
+    public void testResetWhileBuffering() throws Exception {
+        String body = jsonArray(1);
+
+        MockHttpServletResponse response = filter(gzipRequest(), servlet((req, resp) -> {
+            resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            resp.getOutputStream().write("discarded".getBytes(StandardCharsets.UTF_8));
+            resp.resetBuffer();
+            resp.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        }));
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test compression - Released during a write")
+    public void testReleasedDuringWrite() throws Exception {
+        AtomicInteger releasedDeflaters = new AtomicInteger();
+        DeflaterPool recordingPool = new DeflaterPool(5, 2) {
+            @Override
+            public void release(PooledDeflater pooled) {
+                releasedDeflaters.incrementAndGet();
+                super.release(pooled);
+            }
+        };
+        CompressingResponseWrapper[] wrapper = new CompressingResponseWrapper[1];
+        int[] releasedDuringWrite = { -1 };
+
+        // The async context times out while the writer thread writes the gzip header
+        HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        if (releasedDuringWrite[0] < 0) {
+                            wrapper[0].release();
+                            releasedDuringWrite[0] = releasedDeflaters.get();
+                        }
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                    }
+                };
+            }
+        };
+        wrapper[0] = new CompressingResponseWrapper(response, List.of(MediaType.APPLICATION_JSON), bufferPool, recordingPool);
+        wrapper[0].setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        wrapper[0].getOutputStream().write(jsonArray(200).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, releasedDuringWrite[0]);
+        assertEquals(1, releasedDeflaters.get());
+        assertThrows(IOException.class, () -> wrapper[0].getOutputStream().write('x'));
+        assertEquals(1, releasedDeflaters.get());
+    }
+
+    @Test
+    @DisplayName("Test compression - Small JSON not compressed")
+    public void testSmallJsonNotCompressed() throws Exception {
+        String body = jsonArray(1);
+
+        MockHttpServletResponse response = filter(gzipRequest(), MediaType.APPLICATION_JSON_VALUE, body);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body.length(), response.getContentLength());
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test compression - Other media type not compressed")
+    public void testOtherMediaTypeNotCompressed() throws Exception {
+        String body = jsonArray(200);
+
+        MockHttpServletResponse response = filter(gzipRequest(), MediaType.APPLICATION_OCTET_STREAM_VALUE, body);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test compression - Client not accepting gzip")
+    public void testClientNotAcceptingGzip() throws Exception {
+        String body = jsonArray(200);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notes");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+
+        MockHttpServletResponse response = filter(request, MediaType.APPLICATION_JSON_VALUE, body);
+
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+        assertEquals(body, response.getContentAsString());
+    }
+
+    private MockHttpServletRequest gzipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notes");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+
+        return request;
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, String contentType, String body) throws Exception {
+        return filter(request, servlet((req, resp) -> {
+            resp.setContentType(contentType);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+            // Written in small chunks, the way a JsonGenerator flushes its buffer
+            for (int offset = 0; offset < bytes.length; offset += 100) {
+                resp.getOutputStream().write(bytes, offset, Math.min(100, bytes.length - offset));
+            }
+
+            resp.flushBuffer();
+        }));
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request, HttpServlet servlet) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+
+        return response;
+    }
+
+    private HttpServlet servlet(Handler handler) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                handler.handle(req, resp);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+
+    private String jsonArray(int size) {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < size; i++) {
+            builder.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"title\":\"title ").append(i).append("\",\"content\":\"content ").append(i).append("\"}");
+        }
+
+        return builder.append("]").toString();
+    }
+
+    private String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
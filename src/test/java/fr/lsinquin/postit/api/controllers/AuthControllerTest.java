@@ -1,11 +1,17 @@
 package fr.lsinquin.postit.api.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.domain.dtos.RefreshTokenRequest;
 import fr.lsinquin.postit.domain.dtos.UserRequest;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.api.security.CustomUserDetails;
 import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.api.security.LoginThrottle;
 import fr.lsinquin.postit.api.security.CustomUserDetailsService;
+import fr.lsinquin.postit.api.security.TokenRevocationList;
+import fr.lsinquin.postit.services.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,12 +20,18 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Date;
+import java.util.Optional;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -45,6 +57,15 @@ public class AuthControllerTest {
     @MockBean
     private CustomUserDetailsService userDetailsService;
 
+    @MockBean
+    private LoginThrottle loginThrottle;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
     private final String validMail = "test@mail.com";
     private final String validPassword = "secret12345";
 
@@ -55,16 +76,51 @@ public class AuthControllerTest {
 
         when(jwtTokenUtil.generateAccessToken(validMail)).thenReturn("ojojazeoajeozaejao.ajozjeoazjeozeajeoa8542.jdjdpzedjpaojpa2542");
         when(authenticationManager.authenticate(any(Authentication.class))).thenReturn(new UsernamePasswordAuthenticationToken(generateUserDetails(), null));
+        when(refreshTokenService.createRefreshToken(any(User.class))).thenReturn("refresh-token");
 
         mockMvc.perform(post("/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(input)))
                 .andExpect(status().isOk())
                 .andExpect(header().exists(HttpHeaders.AUTHORIZATION))
+                .andExpect(header().string(AuthController.REFRESH_TOKEN_HEADER, "refresh-token"))
                 .andExpect(jsonPath("$").isString());
 
         verify(jwtTokenUtil).generateAccessToken(validMail);
         verify(authenticationManager).authenticate(any(Authentication.class));
+        verify(loginThrottle).recordSuccess(validMail);
+    }
+
+    @Test
+    @DisplayName("Test POST /login - Bad credentials")
+    public void testLoginBadCredentials() throws Exception {
+        var input = new UserRequest(validMail, validPassword);
+
+        when(authenticationManager.authenticate(any(Authentication.class))).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isUnauthorized());
+
+        verify(loginThrottle).recordFailure(validMail, "127.0.0.1");
+    }
+
+    @Test
+    @DisplayName("Test POST /login - Throttled")
+    public void testLoginThrottled() throws Exception {
+        var input = new UserRequest(validMail, validPassword);
+
+        when(loginThrottle.blockedFor(validMail, "127.0.0.1")).thenReturn(1500L);
+
+        mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+        verify(authenticationManager, never()).authenticate(any(Authentication.class));
+        verify(loginThrottle, never()).recordFailure(anyString(), anyString());
     }
 
     @Test
@@ -136,6 +192,95 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.details.length()").value(2));
     }
 
+    @Test
+    @DisplayName("Test POST /token/refresh - Valid")
+    public void testRefreshValid() throws Exception {
+        User user = new User(25, validMail, "jadjpazjdpzap", true);
+
+        when(refreshTokenService.rotate("refresh-token")).thenReturn(Optional.of(new RefreshTokenService.Rotation(user, "next-refresh-token")));
+        when(jwtTokenUtil.generateAccessToken(validMail)).thenReturn("ojojazeoajeozaejao.ajozjeoazjeozeajeoa8542.jdjdpzedjpaojpa2542");
+
+        mockMvc.perform(post("/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.AUTHORIZATION, "ojojazeoajeozaejao.ajozjeoazjeozeajeoa8542.jdjdpzedjpaojpa2542"))
+                .andExpect(header().string(AuthController.REFRESH_TOKEN_HEADER, "next-refresh-token"))
+                .andExpect(jsonPath("$").value("ojojazeoajeozaejao.ajozjeoazjeozeajeoa8542.jdjdpzedjpaojpa2542"));
+    }
+
+    @Test
+    @DisplayName("Test POST /token/refresh - Unknown or used refresh token")
+    public void testRefreshInvalid() throws Exception {
+        when(refreshTokenService.rotate("refresh-token")).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isUnauthorized());
+
+        verify(jwtTokenUtil, never()).generateAccessToken(anyString());
+    }
+
+    @Test
+    @DisplayName("Test POST /token/refresh - Validation error (blank refresh token)")
+    public void testRefreshBlankToken() throws Exception {
+        mockMvc.perform(post("/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest(""))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("ERR_INPUT_VALIDATION"))
+                .andExpect(jsonPath("$.details[0].field").value("refreshToken"));
+    }
+
+    @Test
+    @DisplayName("Test POST /logout - Valid")
+    public void testLogout() throws Exception {
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+        Claims claims = new DefaultClaims().setId("token-id").setSubject(validMail).setExpiration(expiration);
+
+        when(jwtTokenUtil.getValidClaims("access-token")).thenReturn(claims);
+        when(userDetailsService.loadUserByUsername(validMail)).thenReturn(generateUserDetails());
+
+        mockMvc.perform(post("/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer access-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isNoContent());
+
+        verify(tokenRevocationList).revoke("token-id", expiration.toInstant());
+        verify(refreshTokenService).revoke("refresh-token");
+    }
+
+    @Test
+    @DisplayName("Test POST /logout - Token without id")
+    public void testLogoutTokenWithoutId() throws Exception {
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+        Claims claims = new DefaultClaims().setSubject(validMail).setExpiration(expiration);
+
+        when(jwtTokenUtil.getValidClaims("access-token")).thenReturn(claims);
+        when(userDetailsService.loadUserByUsername(validMail)).thenReturn(generateUserDetails());
+
+        mockMvc.perform(post("/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer access-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isNoContent());
+
+        verify(tokenRevocationList, never()).revoke(any(), any());
+        verify(refreshTokenService).revoke("refresh-token");
+    }
+
+    @Test
+    @DisplayName("Test POST /logout - Not authenticated")
+    public void testLogoutNotAuthenticated() throws Exception {
+        mockMvc.perform(post("/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer access-token"))
+                .andExpect(status().isUnauthorized());
+
+        verify(tokenRevocationList, never()).revoke(anyString(), any());
+    }
+
     private UserDetails generateUserDetails() {
         User user = new User(25, validMail, "jadjpazjdpzap", true);
 
@@ -0,0 +1,53 @@
+package fr.lsinquin.postit.api.controllers;
+
+import fr.lsinquin.postit.api.security.CustomUserDetailsService;
+import fr.lsinquin.postit.api.security.JwtKeys;
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.api.security.TokenRevocationList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for endpoints defined in JwksController.
+ */
+@WebMvcTest(controllers = JwksController.class)
+public class JwksControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private JwtKeys jwtKeys;
+
+    @MockBean
+    private CustomUserDetailsService userDetailsService;
+
+    @MockBean
+    private JwtTokenUtil tokenUtil;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @Test
+    @DisplayName("Test GET /.well-known/jwks.json - Public and cacheable")
+    public void testGetJsonWebKeySet() throws Exception {
+        when(jwtKeys.getJsonWebKeySet()).thenReturn(Map.of("keys", List.of(Map.of("kid", "ec", "kty", "EC"))));
+
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                .andExpect(jsonPath("$.keys[0].kid").value("ec"));
+    }
+}
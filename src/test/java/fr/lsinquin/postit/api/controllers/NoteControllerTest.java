@@ -1,13 +1,26 @@
 package fr.lsinquin.postit.api.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import fr.lsinquin.postit.api.serializers.SequenceResponseWriter;
+import fr.lsinquin.postit.api.serializers.WireFormatConfig;
+import fr.lsinquin.postit.domain.dtos.NoteBatchDeleteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchPatchRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchResult;
+import fr.lsinquin.postit.domain.dtos.NoteBatchStatus;
+import fr.lsinquin.postit.domain.dtos.NotePatchRequest;
 import fr.lsinquin.postit.domain.dtos.NoteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
 import fr.lsinquin.postit.domain.exceptions.AuthorizationException;
 import fr.lsinquin.postit.domain.exceptions.NoteNotFoundException;
 import fr.lsinquin.postit.domain.entities.Note;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.api.security.CustomUserDetails;
 import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.api.security.TokenRevocationList;
 import fr.lsinquin.postit.services.NoteService;
 import fr.lsinquin.postit.services.UserService;
 import org.junit.jupiter.api.DisplayName;
@@ -15,20 +28,30 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.web.servlet.MockMvc;
 
 import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +59,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Unit tests for endpoints defined in NoteController.
  */
 @WebMvcTest(controllers = NoteController.class)
+@Import({ SequenceResponseWriter.class, WireFormatConfig.class })
 @WithUserDetails(value = "valid@mail.com")
 public class NoteControllerTest {
     @Autowired
@@ -56,6 +80,11 @@ public class NoteControllerTest {
     @MockBean
     private JwtTokenUtil tokenUtil;
 
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
     private final String title = "Un titre de test";
     private final String content = "Contenu super intéressant qui peut être plus ou moins long";
 
@@ -67,29 +96,89 @@ public class NoteControllerTest {
     @Test
     @DisplayName("Test GET /notes - Valid")
     public void testGetUserNotes() throws Exception {
-        when(noteService.findUserNotes(generateUser())).thenReturn(generateNotes());
+        stubUserNotes();
 
         mockMvc.perform(get("/notes")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$.length()").value(5));
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].title").value("note 1"))
+                .andExpect(jsonPath("$[0].content").value("content 1"));
+
+        verify(noteService).forEachUserNote(eq(generateUser()), any());
+    }
+
+    @Test
+    @DisplayName("Test GET /notes?view=summary - Valid")
+    public void testGetUserNoteSummaries() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<NoteSummaryResponse> action = invocation.getArgument(1);
+            generateNotes().forEach(note -> action.accept(new NoteSummaryResponse(note.getId(), note.getTitle(), note.getContent(), note.getContent().length())));
+            return null;
+        }).when(noteService).forEachUserNoteSummary(eq(generateUser()), any());
+
+        mockMvc.perform(get("/notes")
+                .param("view", "summary")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].title").value("note 1"))
+                .andExpect(jsonPath("$[0].preview").value("content 1"))
+                .andExpect(jsonPath("$[0].length").value(9))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
 
-        verify(noteService).findUserNotes(generateUser());
+        verify(noteService, never()).forEachUserNote(any(), any());
     }
 
     @Test
     @DisplayName("Test GET /notes - Empty result")
     public void testGetUserNotesEmptyResult() throws Exception {
-        when(noteService.findUserNotes(generateUser())).thenReturn(Collections.emptyList());
-
         mockMvc.perform(get("/notes")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(noteService).findUserNotes(generateUser());
+        verify(noteService).forEachUserNote(eq(generateUser()), any());
+    }
+
+    @Test
+    @DisplayName("Test GET /notes - CBOR")
+    public void testGetUserNotesCbor() throws Exception {
+        stubUserNotes();
+
+        byte[] body = mockMvc.perform(get("/notes")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Map<String, Object>> notes = new CBORMapper().readValue(body, new TypeReference<>() {});
+
+        assertEquals(5, notes.size());
+        assertEquals("note 1", notes.get(0).get("title"));
+    }
+
+    @Test
+    @DisplayName("Test GET /notes - JSON preferred by default")
+    public void testGetUserNotesJsonByDefault() throws Exception {
+        mockMvc.perform(get("/notes")
+                .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @DisplayName("Test GET /notes - Not acceptable")
+    public void testGetUserNotesNotAcceptable() throws Exception {
+        mockMvc.perform(get("/notes")
+                .accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+
+        verify(noteService, never()).forEachUserNote(any(), any());
     }
 
     @Test
@@ -110,6 +199,28 @@ public class NoteControllerTest {
         verify(noteService).createNote(generateUser(), title, content);
     }
 
+    @Test
+    @DisplayName("Test POST /notes - Smile")
+    public void testPostNoteSmile() throws Exception {
+        SmileMapper smileMapper = new SmileMapper();
+        var input = new NoteRequest(title, content);
+
+        when(noteService.createNote(generateUser(), title, content)).thenReturn(generateNote(51));
+
+        byte[] body = mockMvc.perform(post("/notes")
+                .contentType(SMILE)
+                .accept(SMILE)
+                .content(smileMapper.writeValueAsBytes(input)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<String, Object> note = smileMapper.readValue(body, new TypeReference<>() {});
+
+        assertEquals(51, note.get("id"));
+        assertEquals(content, note.get("content"));
+    }
+
     @Test
     @DisplayName("Test POST /notes - Allow blank values")
     public void testPostNoteAllowBlankValues() throws Exception {
@@ -248,6 +359,39 @@ public class NoteControllerTest {
         verify(noteService).findNote(generateUser(), 51);
     }
 
+    @Test
+    @DisplayName("Test GET /notes/:id/content - Valid")
+    public void testGetNoteContentById() throws Exception {
+        when(noteService.findNoteContent(generateUser(), 51)).thenReturn(new ByteArrayResource("contenu noté".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get("/notes/{id}/content", 51))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().contentType("text/plain;charset=UTF-8"))
+                .andExpect(content().string("contenu noté"));
+    }
+
+    @Test
+    @DisplayName("Test GET /notes/:id/content - Range")
+    public void testGetNoteContentRange() throws Exception {
+        when(noteService.findNoteContent(generateUser(), 51)).thenReturn(new ByteArrayResource("contenu noté".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get("/notes/{id}/content", 51)
+                .header(HttpHeaders.RANGE, "bytes=8-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-12/13"))
+                .andExpect(content().bytes("noté".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("Test GET /notes/:id/content - Not authorized")
+    public void testGetNoteContentNotAuthorized() throws Exception {
+        when(noteService.findNoteContent(generateUser(), 51)).thenThrow(AuthorizationException.class);
+
+        mockMvc.perform(get("/notes/{id}/content", 51))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Test DELETE /notes/:id - Valid")
     public void testDeleteNote() throws Exception {
@@ -282,10 +426,107 @@ public class NoteControllerTest {
         verify(noteService).deleteNote(generateUser(), 51);
     }
 
+    @Test
+    @DisplayName("Test PATCH /notes/:id - Valid")
+    public void testPatchNote() throws Exception {
+        when(noteService.patchNote(generateUser(), 51, null, content)).thenReturn(generateNote(51));
+
+        mockMvc.perform(patch("/notes/{id}", 51)
+                .contentType(NotePatchRequest.MEDIA_TYPE)
+                .content("{\"content\":\"" + content + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(51))
+                .andExpect(jsonPath("$.content").value(content));
+
+        verify(noteService).patchNote(generateUser(), 51, null, content);
+    }
+
+    @Test
+    @DisplayName("Test PATCH /notes/:id - Validation error (title removed)")
+    public void testPatchNoteNullValidation() throws Exception {
+        mockMvc.perform(patch("/notes/{id}", 51)
+                .contentType(NotePatchRequest.MEDIA_TYPE)
+                .content("{\"title\":null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("ERR_INPUT_VALIDATION"))
+                .andExpect(jsonPath("$.details[0].field").value("title"));
+
+        verify(noteService, never()).patchNote(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Test PATCH /notes/:id - Not authorized")
+    public void testPatchNoteNotAuthorized() throws Exception {
+        doThrow(AuthorizationException.class).when(noteService).patchNote(generateUser(), 51, title, null);
+
+        mockMvc.perform(patch("/notes/{id}", 51)
+                .contentType(NotePatchRequest.MEDIA_TYPE)
+                .content("{\"title\":\"" + title + "\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Test POST /notes/batch-delete - Valid")
+    public void testBatchDeleteNotes() throws Exception {
+        when(noteService.deleteNotes(generateUser(), List.of(51, 52))).thenReturn(List.of(
+                new NoteBatchResult(51, NoteBatchStatus.DELETED),
+                new NoteBatchResult(52, NoteBatchStatus.NOT_FOUND)));
+
+        mockMvc.perform(post("/notes/batch-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new NoteBatchDeleteRequest(List.of(51, 52)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(51))
+                .andExpect(jsonPath("$[0].status").value("DELETED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    @DisplayName("Test POST /notes/batch-delete - No ids")
+    public void testBatchDeleteNotesNoIds() throws Exception {
+        mockMvc.perform(post("/notes/batch-delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(noteService, never()).deleteNotes(any(), any());
+    }
+
+    @Test
+    @DisplayName("Test PATCH /notes - Valid")
+    public void testBatchPatchNotes() throws Exception {
+        when(noteService.modifyNotes(generateUser(), List.of(51), title, null)).thenReturn(List.of(new NoteBatchResult(51, NoteBatchStatus.UPDATED)));
+
+        mockMvc.perform(patch("/notes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new NoteBatchPatchRequest(List.of(51), title, null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"));
+    }
+
+    @Test
+    @DisplayName("Test PATCH /notes - No field")
+    public void testBatchPatchNotesNoField() throws Exception {
+        mockMvc.perform(patch("/notes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[51]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(noteService, never()).modifyNotes(any(), any(), any(), any());
+    }
+
     private User generateUser() {
         return new User(25, "valid@mail.com", "secret123", true);
     }
 
+    private void stubUserNotes() {
+        doAnswer(invocation -> {
+            Consumer<NoteResponse> action = invocation.getArgument(1);
+            generateNotes().forEach(note -> action.accept(new NoteResponse(note.getId(), note.getTitle(), note.getContent())));
+            return null;
+        }).when(noteService).forEachUserNote(eq(generateUser()), any());
+    }
+
     private Note generateNote(Integer id) {
         return new Note(id, title, content, generateUser());
     }
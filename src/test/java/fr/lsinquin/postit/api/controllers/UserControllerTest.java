@@ -5,6 +5,7 @@ import fr.lsinquin.postit.domain.dtos.UserRequest;
 import fr.lsinquin.postit.domain.exceptions.ExistingUserException;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import fr.lsinquin.postit.api.security.TokenRevocationList;
 import fr.lsinquin.postit.api.security.CustomUserDetailsService;
 import fr.lsinquin.postit.services.UserService;
 import org.junit.jupiter.api.DisplayName;
@@ -43,6 +44,9 @@ public class UserControllerTest {
     @MockBean
     private JwtTokenUtil tokenUtil;
 
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
     private final String validMail = "test@test.com";
     private final String validPassword = "secret123";
 
@@ -0,0 +1,212 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IdempotencyFilter
+ */
+public class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(
+            new MemoryIdempotencyStore(Duration.ofHours(1), 100, Duration.ofSeconds(1)), List.of("/notes", "/users"), 16, new ObjectMapper());
+
+    /**
+     * Number of requests which reached the endpoint
+     */
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Retry replays the response")
+    public void testRetryReplaysResponse() throws Exception {
+        MockHttpServletResponse first = filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+        MockHttpServletResponse retry = filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, retry.getContentType());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertNull(first.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Endpoint reads the body")
+    public void testEndpointReadsBody() throws Exception {
+        MockHttpServletResponse response = filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+
+        assertEquals("{\"echo\":{\"title\":\"Titre\"}}", response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Key reused with another body")
+    public void testKeyReusedWithAnotherBody() throws Exception {
+        authenticate("first@mail.com");
+        filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+        MockHttpServletResponse reused = filter(postNote("key", "{\"title\":\"Autre\"}"), 201);
+
+        assertEquals(1, executions.get());
+        assertEquals(422, reused.getStatus());
+        assertTrue(reused.getContentAsString().contains("ERR_IDEMPOTENCY_KEY_REUSED"), reused.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Keys scoped to the user")
+    public void testKeysScopedToUser() throws Exception {
+        authenticate("first@mail.com");
+        filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+
+        authenticate("second@mail.com");
+        MockHttpServletResponse response = filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+
+        assertEquals(2, executions.get());
+        assertNull(response.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Anonymous clients sharing a key")
+    public void testAnonymousClientsSharingKey() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        MockHttpServletResponse first = filter(postUser("key", "{\"mail\":\"first@mail.com\"}"), 201);
+        MockHttpServletResponse second = filter(postUser("key", "{\"mail\":\"second@mail.com\"}"), 201);
+
+        assertEquals(2, executions.get());
+        assertEquals(201, second.getStatus());
+        assertNull(second.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+        assertNotEquals(first.getContentAsString(), second.getContentAsString());
+
+        MockHttpServletResponse retry = filter(postUser("key", "{\"mail\":\"first@mail.com\"}"), 201);
+
+        assertEquals(2, executions.get());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED_HEADER));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Server error not recorded")
+    public void testServerErrorNotRecorded() throws Exception {
+        filter(postNote("key", "{\"title\":\"Titre\"}"), 500);
+        MockHttpServletResponse retry = filter(postNote("key", "{\"title\":\"Titre\"}"), 201);
+
+        assertEquals(2, executions.get());
+        assertEquals(201, retry.getStatus());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Client error recorded")
+    public void testClientErrorRecorded() throws Exception {
+        filter(postNote("key", "{\"title\":\"\"}"), 400);
+        MockHttpServletResponse retry = filter(postNote("key", "{\"title\":\"\"}"), 400);
+
+        assertEquals(1, executions.get());
+        assertEquals(400, retry.getStatus());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - No key")
+    public void testNoKey() throws Exception {
+        filter(postNote(null, "{\"title\":\"Titre\"}"), 201);
+        filter(postNote(null, "{\"title\":\"Titre\"}"), 201);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Invalid key")
+    public void testInvalidKey() throws Exception {
+        MockHttpServletResponse response = filter(postNote("a-key-longer-than-sixteen-characters", "{\"title\":\"Titre\"}"), 201);
+
+        assertEquals(0, executions.get());
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("ERR_INVALID_IDEMPOTENCY_KEY"), response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Test idempotency - Other endpoints not filtered")
+    public void testOtherEndpointsNotFiltered() throws Exception {
+        MockHttpServletRequest request = postNote("key", "{\"title\":\"Titre\"}");
+        request.setMethod("PUT");
+        request.setRequestURI("/notes/1");
+
+        filter(request, 200);
+        filter(request, 200);
+
+        assertEquals(2, executions.get());
+    }
+
+    private MockHttpServletRequest postNote(String idempotencyKey, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/notes");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+
+        return request;
+    }
+
+    private MockHttpServletRequest postUser(String idempotencyKey, String body) {
+        MockHttpServletRequest request = postNote(idempotencyKey, body);
+        request.setRequestURI("/users");
+
+        return request;
+    }
+
+    private void authenticate(String mail) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(mail, null, Collections.emptyList()));
+    }
+
+    /**
+     * Runs the filter in front of an endpoint echoing the request body with the given status.
+     */
+    private MockHttpServletResponse filter(MockHttpServletRequest request, int status) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                executions.incrementAndGet();
+
+                String body = StreamUtils.copyToString(req.getInputStream(), StandardCharsets.UTF_8);
+
+                resp.setStatus(status);
+                resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                resp.getWriter().write("{\"echo\":" + body + "}");
+            }
+        };
+
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+
+        return response;
+    }
+}
@@ -0,0 +1,126 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import fr.lsinquin.postit.domain.exceptions.IdempotencyKeyInUseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JdbcIdempotencyStore.
+ * The idempotency_key table is created on an embedded H2 database by its Flyway migration.
+ */
+public class JdbcIdempotencyStoreTest {
+
+    private final IdempotentResponse response = new IdempotentResponse("fingerprint", 201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/migration/V3__idempotency_keys.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test claim() - Free key")
+    public void testClaimFreeKey() {
+        JdbcIdempotencyStore store = store(Duration.ofSeconds(1));
+
+        assertNull(store.claim("key", "fingerprint"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_key WHERE status IS NULL", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Completed key")
+    public void testClaimCompletedKey() {
+        JdbcIdempotencyStore store = store(Duration.ofSeconds(1));
+
+        store.claim("key", "fingerprint");
+        store.complete("key", response);
+
+        IdempotentResponse recorded = store.claim("key", "fingerprint");
+
+        assertEquals("fingerprint", recorded.getFingerprint());
+        assertEquals(201, recorded.getStatus());
+        assertEquals("application/json", recorded.getContentType());
+        assertArrayEquals(response.getBody(), recorded.getBody());
+    }
+
+    @Test
+    @DisplayName("Test claim() - Released key")
+    public void testClaimReleasedKey() {
+        JdbcIdempotencyStore store = store(Duration.ofSeconds(1));
+
+        store.claim("key", "fingerprint");
+        store.release("key");
+
+        assertNull(store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Concurrent duplicate waits for the response")
+    public void testClaimConcurrentDuplicate() throws Exception {
+        JdbcIdempotencyStore store = store(Duration.ofSeconds(10));
+
+        store.claim("key", "fingerprint");
+
+        CompletableFuture<IdempotentResponse> duplicate = CompletableFuture.supplyAsync(() -> store.claim("key", "fingerprint"));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+
+        store.complete("key", response);
+
+        assertEquals(201, duplicate.get(5, TimeUnit.SECONDS).getStatus());
+    }
+
+    @Test
+    @DisplayName("Test claim() - Lock timeout")
+    public void testClaimLockTimeout() {
+        JdbcIdempotencyStore store = store(Duration.ofMillis(200));
+
+        store.claim("key", "fingerprint");
+
+        assertThrows(IdempotencyKeyInUseException.class, () -> store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Expired key reclaimed")
+    public void testClaimExpiredKey() {
+        JdbcIdempotencyStore store = store(Duration.ofSeconds(1));
+
+        store.claim("key", "fingerprint");
+        store.complete("key", response);
+        jdbcTemplate.update("UPDATE idempotency_key SET expires_at = ?", Timestamp.from(Instant.now().minusSeconds(1)));
+
+        assertNull(store.claim("key", "fingerprint"));
+    }
+
+    private JdbcIdempotencyStore store(Duration lockTimeout) {
+        return new JdbcIdempotencyStore(jdbcTemplate, Duration.ofHours(1), lockTimeout);
+    }
+}
@@ -0,0 +1,119 @@
+package fr.lsinquin.postit.api.idempotency;
+
+import fr.lsinquin.postit.domain.exceptions.IdempotencyKeyInUseException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MemoryIdempotencyStore
+ */
+public class MemoryIdempotencyStoreTest {
+
+    private final IdempotentResponse response = new IdempotentResponse("fingerprint", 201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    @DisplayName("Test claim() - Free key")
+    public void testClaimFreeKey() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10, Duration.ofSeconds(1));
+
+        assertNull(store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Completed key")
+    public void testClaimCompletedKey() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10, Duration.ofSeconds(1));
+
+        store.claim("key", "fingerprint");
+        store.complete("key", response);
+
+        assertSame(response, store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Released key")
+    public void testClaimReleasedKey() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10, Duration.ofSeconds(1));
+
+        store.claim("key", "fingerprint");
+        store.release("key");
+
+        assertNull(store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Concurrent duplicate waits for the response")
+    public void testClaimConcurrentDuplicate() throws Exception {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10, Duration.ofSeconds(10));
+
+        store.claim("key", "fingerprint");
+
+        CompletableFuture<IdempotentResponse> duplicate = CompletableFuture.supplyAsync(() -> store.claim("key", "fingerprint"));
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+
+        store.complete("key", response);
+
+        assertSame(response, duplicate.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Test claim() - Concurrent duplicate claims a released key")
+    public void testClaimConcurrentDuplicateReleased() throws Exception {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10, Duration.ofSeconds(10));
+
+        store.claim("key", "fingerprint");
+
+        CompletableFuture<IdempotentResponse> duplicate = CompletableFuture.supplyAsync(() -> store.claim("key", "fingerprint"));
+        Thread.sleep(50);
+
+        store.release("key");
+
+        assertNull(duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("Test claim() - Lock timeout")
+    public void testClaimLockTimeout() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 10, Duration.ofMillis(50));
+
+        store.claim("key", "fingerprint");
+
+        assertThrows(IdempotencyKeyInUseException.class, () -> store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test complete() - Expired responses evicted")
+    public void testExpiredResponsesEvicted() throws Exception {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofMillis(10), 10, Duration.ofSeconds(1));
+
+        store.claim("key", "fingerprint");
+        store.complete("key", response);
+        Thread.sleep(20);
+
+        assertNull(store.claim("key", "fingerprint"));
+    }
+
+    @Test
+    @DisplayName("Test complete() - Oldest responses evicted above max entries")
+    public void testOldestResponsesEvicted() {
+        MemoryIdempotencyStore store = new MemoryIdempotencyStore(Duration.ofHours(1), 2, Duration.ofSeconds(1));
+
+        for (String key : new String[] { "first", "second", "third" }) {
+            store.claim(key, "fingerprint");
+            store.complete(key, response);
+        }
+
+        assertEquals(2, store.size());
+        assertSame(response, store.claim("third", "fingerprint"));
+        assertNull(store.claim("first", "fingerprint"));
+    }
+}
@@ -0,0 +1,144 @@
+package fr.lsinquin.postit.api.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RateLimiter and ConcurrencyLimiter
+ */
+public class RateLimiterTest {
+
+    @Test
+    @DisplayName("Test tryAcquire() - Burst accepted then limited")
+    public void testBurstThenLimited() {
+        RateLimiter rateLimiter = new RateLimiter(100);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("user", 1, 5));
+        }
+
+        long waitNanos = rateLimiter.tryAcquire("user", 1, 5);
+
+        assertTrue(waitNanos > 0 && waitNanos <= TimeUnit.SECONDS.toNanos(1), String.valueOf(waitNanos));
+    }
+
+    @Test
+    @DisplayName("Test tryAcquire() - Tokens refilled over time")
+    public void testTokensRefilled() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(100);
+
+        assertEquals(0, rateLimiter.tryAcquire("user", 50, 1));
+        assertTrue(rateLimiter.tryAcquire("user", 50, 1) > 0);
+
+        Thread.sleep(40);
+
+        assertEquals(0, rateLimiter.tryAcquire("user", 50, 1));
+    }
+
+    @Test
+    @DisplayName("Test tryAcquire() - Independent keys")
+    public void testIndependentKeys() {
+        RateLimiter rateLimiter = new RateLimiter(100);
+
+        assertEquals(0, rateLimiter.tryAcquire("first", 1, 1));
+        assertTrue(rateLimiter.tryAcquire("first", 1, 1) > 0);
+        assertEquals(0, rateLimiter.tryAcquire("second", 1, 1));
+    }
+
+    @Test
+    @DisplayName("Test tryAcquire() - Idle keys purged")
+    public void testIdleKeysPurged() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(2);
+
+        rateLimiter.tryAcquire("first", 1000, 1);
+        rateLimiter.tryAcquire("second", 1000, 1);
+        Thread.sleep(10);
+        rateLimiter.tryAcquire("third", 1000, 1);
+
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    @DisplayName("Test tryAcquire() - Idle keys purged at most once per interval")
+    public void testIdleKeysPurgeThrottled() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(2);
+
+        rateLimiter.tryAcquire("first", 1000, 1);
+        rateLimiter.tryAcquire("second", 1000, 1);
+        Thread.sleep(10);
+        rateLimiter.tryAcquire("third", 1000, 1);
+        Thread.sleep(10);
+        rateLimiter.tryAcquire("fourth", 1000, 1);
+        rateLimiter.tryAcquire("fifth", 1000, 1);
+
+        // A single purge : the following new keys are tracked beyond maxTrackedKeys until the next one
+        assertEquals(3, rateLimiter.size());
+    }
+
+    @Test
+    @DisplayName("Test tryAcquire() - Concurrent requests share the bucket")
+    public void testConcurrentRequests() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(100);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> accepted = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            accepted.add(executorService.submit(() -> {
+                start.await();
+                int count = 0;
+
+                for (int j = 0; j < 1000; j++) {
+                    if (rateLimiter.tryAcquire("user", 0.001, 100) == 0) {
+                        count++;
+                    }
+                }
+
+                return count;
+            }));
+        }
+
+        start.countDown();
+
+        int total = 0;
+
+        for (Future<Integer> future : accepted) {
+            total += future.get();
+        }
+
+        executorService.shutdown();
+
+        assertEquals(100, total);
+    }
+
+    @Test
+    @DisplayName("Test ConcurrencyLimiter - Requests in progress limited")
+    public void testConcurrencyLimiter() {
+        ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter();
+
+        assertTrue(concurrencyLimiter.tryAcquire("user", 2));
+        assertTrue(concurrencyLimiter.tryAcquire("user", 2));
+        assertFalse(concurrencyLimiter.tryAcquire("user", 2));
+        assertTrue(concurrencyLimiter.tryAcquire("other", 2));
+
+        concurrencyLimiter.release("user");
+
+        assertTrue(concurrencyLimiter.tryAcquire("user", 2));
+
+        concurrencyLimiter.release("user");
+        concurrencyLimiter.release("user");
+
+        assertEquals(0, concurrencyLimiter.inFlight("user"));
+    }
+}
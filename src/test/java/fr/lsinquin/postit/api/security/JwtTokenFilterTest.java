@@ -0,0 +1,92 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.User;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for JwtTokenFilter
+ */
+public class JwtTokenFilterTest {
+
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+
+    private final JwtTokenUtil jwtTokenUtil = mock(JwtTokenUtil.class);
+
+    private final TokenRevocationList tokenRevocationList = mock(TokenRevocationList.class);
+
+    private final JwtTokenFilter filter = new JwtTokenFilter(userDetailsService, jwtTokenUtil, tokenRevocationList);
+
+    private final CustomUserDetails userDetails = new CustomUserDetails(new User(1, "test@mail.com", "jadjpazjdpzap", true));
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Test doFilter() - Valid JWT")
+    public void testValidJwt() throws Exception {
+        when(jwtTokenUtil.getValidClaims("a.b.c")).thenReturn(new DefaultClaims().setId("id").setSubject("test@mail.com"));
+        when(userDetailsService.loadUserByUsername("test@mail.com")).thenReturn(userDetails);
+
+        Authentication authentication = filter("Bearer a.b.c");
+
+        assertTrue(authentication instanceof JwtAuthentication);
+        assertTrue(authentication.isAuthenticated());
+        assertSame(userDetails, authentication.getPrincipal());
+        assertEquals("test@mail.com", authentication.getName());
+        assertEquals(userDetails.getAuthorities(), authentication.getAuthorities());
+        assertEquals("1.1.1.1", ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress());
+        assertThrows(IllegalArgumentException.class, () -> authentication.setAuthenticated(false));
+    }
+
+    @Test
+    @DisplayName("Test doFilter() - Revoked JWT")
+    public void testRevokedJwt() throws Exception {
+        when(jwtTokenUtil.getValidClaims("a.b.c")).thenReturn(new DefaultClaims().setId("id").setSubject("test@mail.com"));
+        when(tokenRevocationList.isRevoked("id")).thenReturn(true);
+
+        assertNull(filter("Bearer a.b.c"));
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Test doFilter() - Invalid or missing JWT")
+    public void testInvalidJwt() throws Exception {
+        assertNull(filter("Bearer a.b.c"));
+        assertNull(filter("Bearer "));
+        assertNull(filter(null));
+        verify(jwtTokenUtil, times(1)).getValidClaims(anyString());
+    }
+
+    private Authentication filter(String authorization) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notes");
+        request.setRemoteAddr("1.1.1.1");
+
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+
+        MockFilterChain filterChain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertNotNull(filterChain.getRequest());
+
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,143 @@
+package fr.lsinquin.postit.api.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static fr.lsinquin.postit.api.security.JwtKeysTest.ecKey;
+import static fr.lsinquin.postit.api.security.JwtKeysTest.ecKeyPair;
+import static fr.lsinquin.postit.api.security.JwtKeysTest.signingKey;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtTokenUtil
+ */
+public class JwtTokenUtilTest {
+
+    @Test
+    @DisplayName("Test generateAccessToken() - Given lifetime")
+    public void testGivenLifetime() {
+        JwtTokenUtil jwtTokenUtil = jwtTokenUtil("first", List.of(signingKey("first", 1)));
+
+        Claims claims = jwtTokenUtil.getValidClaims(jwtTokenUtil.generateAccessToken("test@mail.com", Duration.ofDays(1)));
+
+        assertEquals(Duration.ofDays(1).toMillis(), claims.getExpiration().getTime() - claims.getIssuedAt().getTime(), 1000);
+        assertNotNull(claims.getId());
+    }
+
+    @Test
+    @DisplayName("Test generateAccessToken() - Valid on another instance with the same keys")
+    public void testTokenSharedBetweenInstances() {
+        String token = jwtTokenUtil("first", List.of(signingKey("first", 1))).generateAccessToken("test@mail.com");
+
+        Claims claims = jwtTokenUtil("first", List.of(signingKey("first", 1))).getValidClaims(token);
+
+        assertNotNull(claims);
+        assertEquals("test@mail.com", claims.getSubject());
+        assertNotNull(claims.getId());
+    }
+
+    @Test
+    @DisplayName("Test getValidClaims() - Token of the previous key accepted after a rotation")
+    public void testRotation() {
+        String oldToken = jwtTokenUtil("first", List.of(signingKey("first", 1))).generateAccessToken("test@mail.com");
+
+        JwtTokenUtil rotated = jwtTokenUtil("second", List.of(signingKey("first", 1), signingKey("second", 2)));
+        String newToken = rotated.generateAccessToken("test@mail.com");
+
+        assertTrue(rotated.validate(oldToken));
+        assertTrue(rotated.validate(newToken));
+        assertFalse(jwtTokenUtil("first", List.of(signingKey("first", 1))).validate(newToken));
+    }
+
+    @Test
+    @DisplayName("Test validate() - Other key with the same id rejected")
+    public void testOtherKeySameId() {
+        String token = jwtTokenUtil("first", List.of(signingKey("first", 1))).generateAccessToken("test@mail.com");
+
+        assertFalse(jwtTokenUtil("first", List.of(signingKey("first", 2))).validate(token));
+    }
+
+    @Test
+    @DisplayName("Test generateAccessToken() - ES256 token verified with the published key")
+    @SuppressWarnings("unchecked")
+    public void testEs256VerifiedWithJsonWebKey() throws Exception {
+        KeyPair keyPair = ecKeyPair();
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setKeys(List.of(ecKey("ec", keyPair)));
+        JwtKeys jwtKeys = JwtKeys.load(jwtProperties, new DefaultResourceLoader());
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(jwtKeys, jwtProperties);
+
+        String token = jwtTokenUtil.generateAccessToken("test@mail.com");
+
+        assertEquals("ES256", Jwts.parserBuilder().setSigningKey(keyPair.getPublic()).build().parseClaimsJws(token).getHeader().getAlgorithm());
+        assertEquals("test@mail.com", jwtTokenUtil.getValidClaims(token).getSubject());
+
+        // A gateway only knowing the key set verifies the token
+        Map<String, Object> jsonWebKey = ((List<Map<String, Object>>) jwtKeys.getJsonWebKeySet().get("keys")).get(0);
+        PublicKey publishedKey = publicKey((String) jsonWebKey.get("x"), (String) jsonWebKey.get("y"));
+
+        assertEquals("test@mail.com", Jwts.parserBuilder().setSigningKey(publishedKey).build().parseClaimsJws(token).getBody().getSubject());
+    }
+
+    @Test
+    @DisplayName("Test validate() - HMAC token with the kid of an EC key rejected")
+    public void testAlgorithmConfusion() throws Exception {
+        KeyPair keyPair = ecKeyPair();
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setKeys(List.of(ecKey("ec", keyPair)));
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(JwtKeys.load(jwtProperties, new DefaultResourceLoader()), jwtProperties);
+
+        String forged = Jwts.builder()
+                .setHeaderParam("kid", "ec")
+                .setSubject("test@mail.com")
+                .signWith(Keys.hmacShaKeyFor(keyPair.getPublic().getEncoded()))
+                .compact();
+
+        assertFalse(jwtTokenUtil.validate(forged));
+    }
+
+    @Test
+    @DisplayName("Test extractBearerToken() - Bearer tokens")
+    public void testExtractBearerToken() {
+        assertEquals("a.b.c", JwtTokenUtil.extractBearerToken("Bearer a.b.c"));
+        assertEquals("a.b.c", JwtTokenUtil.extractBearerToken("bearer   a.b.c \t"));
+        assertNull(JwtTokenUtil.extractBearerToken("Bearer "));
+        assertNull(JwtTokenUtil.extractBearerToken("Bearer"));
+        assertNull(JwtTokenUtil.extractBearerToken("Basic dXNlcjpwYXNz"));
+        assertNull(JwtTokenUtil.extractBearerToken(null));
+    }
+
+    private static PublicKey publicKey(String x, String y) throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECPoint point = new ECPoint(new BigInteger(1, Base64.getUrlDecoder().decode(x)), new BigInteger(1, Base64.getUrlDecoder().decode(y)));
+
+        return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+    }
+
+    private JwtTokenUtil jwtTokenUtil(String signingKeyId, List<JwtProperties.SigningKey> keys) {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSigningKeyId(signingKeyId);
+        jwtProperties.setKeys(keys);
+
+        return new JwtTokenUtil(JwtKeys.load(jwtProperties, new DefaultResourceLoader()), jwtProperties);
+    }
+}
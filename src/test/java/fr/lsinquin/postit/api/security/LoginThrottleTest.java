@@ -0,0 +1,182 @@
+package fr.lsinquin.postit.api.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoginThrottle
+ */
+public class LoginThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test blockedFor() - Free failures allowed")
+    public void testFreeFailuresAllowed() {
+        LoginThrottle loginThrottle = loginThrottle(3, 100, Duration.ofHours(1));
+
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+
+        assertEquals(0, loginThrottle.blockedFor("test@mail.com", "1.1.1.1"));
+    }
+
+    @Test
+    @DisplayName("Test blockedFor() - Account blocked with exponential backoff")
+    public void testAccountBlocked() {
+        LoginThrottle loginThrottle = loginThrottle(3, 100, Duration.ofHours(1));
+
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure("test@mail.com", "1.1.1." + i);
+        }
+
+        long firstBlock = loginThrottle.blockedFor("TEST@mail.com", "2.2.2.2");
+        assertTrue(firstBlock > 0 && firstBlock <= 1000, String.valueOf(firstBlock));
+
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        long secondBlock = loginThrottle.blockedFor("test@mail.com", "2.2.2.2");
+        assertTrue(secondBlock > 1000 && secondBlock <= 2000, String.valueOf(secondBlock));
+
+        assertEquals(0, loginThrottle.blockedFor("other@mail.com", "2.2.2.2"));
+        assertEquals(2, meterRegistry.get("postit.login.blocked").tag("by", "account").counter().count());
+        assertEquals(4, meterRegistry.get("postit.login.failures").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test blockedFor() - Address blocked")
+    public void testAddressBlocked() {
+        LoginThrottle loginThrottle = loginThrottle(100, 3, Duration.ofHours(1));
+
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.recordFailure("user" + i + "@mail.com", "1.1.1.1");
+        }
+
+        assertTrue(loginThrottle.blockedFor("new@mail.com", "1.1.1.1") > 0);
+        assertEquals(0, loginThrottle.blockedFor("new@mail.com", "2.2.2.2"));
+        assertEquals(1, meterRegistry.get("postit.login.blocked").tag("by", "address").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test blockedFor() - Backoff capped")
+    public void testBackoffCapped() {
+        LoginThrottle loginThrottle = loginThrottle(1, 100, Duration.ofHours(1));
+
+        for (int i = 0; i < 300; i++) {
+            loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        }
+
+        long block = loginThrottle.blockedFor("test@mail.com", "2.2.2.2");
+
+        assertTrue(block > 0 && block <= Duration.ofMinutes(15).toMillis(), String.valueOf(block));
+    }
+
+    @Test
+    @DisplayName("Test recordSuccess() - Account failures forgotten")
+    public void testSuccessForgetsAccountFailures() {
+        LoginThrottle loginThrottle = loginThrottle(2, 2, Duration.ofHours(1));
+
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        loginThrottle.recordSuccess("test@mail.com");
+
+        assertEquals(0, loginThrottle.blockedFor("test@mail.com", "2.2.2.2"));
+        assertTrue(loginThrottle.blockedFor("test@mail.com", "1.1.1.1") > 0);
+    }
+
+    @Test
+    @DisplayName("Test recordFailure() - Failures forgotten after reset delay")
+    public void testFailuresReset() throws Exception {
+        LoginThrottle loginThrottle = loginThrottle(1, 1, Duration.ofMillis(20));
+
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        Thread.sleep(40);
+
+        assertEquals(0, loginThrottle.blockedFor("test@mail.com", "1.1.1.1"));
+    }
+
+    @Test
+    @DisplayName("Test recordFailure() - Expired keys purged")
+    public void testExpiredKeysPurged() throws Exception {
+        LoginThrottleProperties properties = properties(5, 5, Duration.ofMillis(20));
+        properties.setMaxTrackedKeys(4);
+        LoginThrottle loginThrottle = new LoginThrottle(properties, meterRegistry);
+
+        loginThrottle.recordFailure("first@mail.com", "1.1.1.1");
+        loginThrottle.recordFailure("second@mail.com", "2.2.2.2");
+        assertEquals(4, loginThrottle.size());
+
+        Thread.sleep(40);
+        loginThrottle.recordFailure("third@mail.com", "3.3.3.3");
+
+        assertEquals(2, loginThrottle.size());
+    }
+
+    @Test
+    @DisplayName("Test recordFailure() - Least recently failed keys evicted")
+    public void testLeastRecentlyFailedEvicted() throws Exception {
+        LoginThrottleProperties properties = properties(1, 5, Duration.ofHours(1));
+        properties.setMaxTrackedKeys(4);
+        LoginThrottle loginThrottle = new LoginThrottle(properties, meterRegistry);
+
+        loginThrottle.recordFailure("first@mail.com", "1.1.1.1");
+        Thread.sleep(10);
+        loginThrottle.recordFailure("second@mail.com", "2.2.2.2");
+        Thread.sleep(10);
+        loginThrottle.recordFailure("third@mail.com", "3.3.3.3");
+
+        // A full throttle still tracks the failures of a new account
+        assertTrue(loginThrottle.blockedFor("third@mail.com", "9.9.9.9") > 0);
+        assertTrue(loginThrottle.blockedFor("second@mail.com", "9.9.9.9") > 0);
+        assertEquals(5, loginThrottle.size());
+    }
+
+    @Test
+    @DisplayName("Test recordFailure() - Keys purged at most once per interval")
+    public void testPurgeThrottled() throws Exception {
+        LoginThrottleProperties properties = properties(1, 5, Duration.ofHours(1));
+        properties.setMaxTrackedKeys(4);
+        LoginThrottle loginThrottle = new LoginThrottle(properties, meterRegistry);
+
+        loginThrottle.recordFailure("first@mail.com", "1.1.1.1");
+        Thread.sleep(10);
+        loginThrottle.recordFailure("second@mail.com", "2.2.2.2");
+        Thread.sleep(10);
+        loginThrottle.recordFailure("third@mail.com", "3.3.3.3");
+        loginThrottle.recordFailure("fourth@mail.com", "4.4.4.4");
+
+        // A single purge : the following new keys are tracked beyond maxTrackedKeys until the next one
+        assertEquals(7, loginThrottle.size());
+        assertTrue(loginThrottle.blockedFor("fourth@mail.com", "9.9.9.9") > 0);
+    }
+
+    @Test
+    @DisplayName("Test blockedFor() - Disabled")
+    public void testDisabled() {
+        LoginThrottleProperties properties = properties(1, 1, Duration.ofHours(1));
+        properties.setEnabled(false);
+        LoginThrottle loginThrottle = new LoginThrottle(properties, meterRegistry);
+
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+        loginThrottle.recordFailure("test@mail.com", "1.1.1.1");
+
+        assertEquals(0, loginThrottle.blockedFor("test@mail.com", "1.1.1.1"));
+    }
+
+    private LoginThrottle loginThrottle(int accountFreeFailures, int addressFreeFailures, Duration resetAfter) {
+        return new LoginThrottle(properties(accountFreeFailures, addressFreeFailures, resetAfter), meterRegistry);
+    }
+
+    private LoginThrottleProperties properties(int accountFreeFailures, int addressFreeFailures, Duration resetAfter) {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setAccountFreeFailures(accountFreeFailures);
+        properties.setAddressFreeFailures(addressFreeFailures);
+        properties.setResetAfter(resetAfter);
+
+        return properties;
+    }
+}
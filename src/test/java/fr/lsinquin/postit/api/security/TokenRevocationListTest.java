@@ -0,0 +1,86 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.RevokedToken;
+import fr.lsinquin.postit.repositories.RevokedTokenRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenRevocationList
+ */
+public class TokenRevocationListTest {
+
+    private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+
+    @Test
+    @DisplayName("Test isRevoked() - Token revoked by this instance")
+    public void testRevoked() {
+        TokenRevocationList tokenRevocationList = tokenRevocationList(Duration.ofHours(1));
+        Instant expiresAt = Instant.now().plusSeconds(60);
+
+        tokenRevocationList.revoke("revoked", expiresAt);
+
+        assertTrue(tokenRevocationList.isRevoked("revoked"));
+        assertFalse(tokenRevocationList.isRevoked("valid"));
+        assertFalse(tokenRevocationList.isRevoked(null));
+        verify(revokedTokenRepository).save(new RevokedToken("revoked", expiresAt));
+    }
+
+    @Test
+    @DisplayName("Test isRevoked() - Token revoked by another instance")
+    public void testRevokedByOtherInstance() throws Exception {
+        TokenRevocationList tokenRevocationList = tokenRevocationList(Duration.ofMillis(20));
+
+        assertFalse(tokenRevocationList.isRevoked("revoked"));
+
+        when(revokedTokenRepository.findUnexpired(any(Instant.class))).thenReturn(List.of(new RevokedToken("revoked", Instant.now().plusSeconds(60))));
+        assertFalse(tokenRevocationList.isRevoked("revoked"));
+
+        Thread.sleep(40);
+
+        assertTrue(tokenRevocationList.isRevoked("revoked"));
+        verify(revokedTokenRepository, times(2)).findUnexpired(any(Instant.class));
+        verify(revokedTokenRepository, times(2)).deleteExpired(any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Test isRevoked() - Expired tokens forgotten")
+    public void testExpiredForgotten() throws Exception {
+        TokenRevocationList tokenRevocationList = tokenRevocationList(Duration.ofMillis(20));
+
+        tokenRevocationList.revoke("expiring", Instant.now().plusMillis(10));
+        tokenRevocationList.revoke("revoked", Instant.now().plusSeconds(60));
+        assertEquals(2, tokenRevocationList.size());
+
+        Thread.sleep(40);
+
+        assertTrue(tokenRevocationList.isRevoked("revoked"));
+        assertEquals(1, tokenRevocationList.size());
+    }
+
+    @Test
+    @DisplayName("Test isRevoked() - Failed sync keeps the current list")
+    public void testFailedSync() {
+        TokenRevocationList tokenRevocationList = tokenRevocationList(Duration.ofHours(1));
+
+        when(revokedTokenRepository.findUnexpired(any(Instant.class))).thenThrow(new IllegalStateException("Database down"));
+        tokenRevocationList.revoke("revoked", Instant.now().plusSeconds(60));
+
+        assertTrue(tokenRevocationList.isRevoked("revoked"));
+    }
+
+    private TokenRevocationList tokenRevocationList(Duration syncInterval) {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setRevocationSyncInterval(syncInterval);
+
+        return new TokenRevocationList(revokedTokenRepository, jwtProperties);
+    }
+}
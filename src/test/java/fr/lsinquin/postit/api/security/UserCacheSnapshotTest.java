@@ -0,0 +1,111 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserCacheSnapshot
+ */
+public class UserCacheSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @Test
+    @DisplayName("Test write() - Cached mails read back")
+    public void testWriteAndRead() throws Exception {
+        UserCacheSnapshot snapshot = snapshot(userCache("test@mail.com", "rené@mail.com"));
+
+        assertEquals(2, snapshot.write());
+
+        assertEquals(Set.of("test@mail.com", "rené@mail.com"), Set.copyOf(UserCacheSnapshot.read(directory.resolve("users.snapshot"))));
+        assertFalse(Files.exists(directory.resolve("users.snapshot.tmp")));
+    }
+
+    @Test
+    @DisplayName("Test warmUp() - Users loaded in batches")
+    public void testWarmUp() throws Exception {
+        snapshot(userCache("user1@mail.com", "user2@mail.com", "user3@mail.com")).write();
+        when(userRepository.findByMailIn(anyCollection())).thenAnswer(invocation -> {
+            List<String> mails = List.copyOf(invocation.getArgument(0));
+
+            // user2 was deleted since the snapshot
+            return mails.stream().filter(mail -> !mail.startsWith("user2")).map(mail -> new User(1, mail, "secret12345", true)).collect(Collectors.toList());
+        });
+
+        UserCache userCache = userCache();
+
+        assertEquals(2, snapshot(userCache).warmUp());
+
+        assertNotNull(userCache.get("user1@mail.com"));
+        assertNull(userCache.get("user2@mail.com"));
+        assertNotNull(userCache.get("user3@mail.com"));
+        verify(userRepository, times(2)).findByMailIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Test warmUp() - No snapshot")
+    public void testWarmUpNoSnapshot() {
+        assertEquals(0, snapshot(userCache()).warmUp());
+
+        verify(userRepository, never()).findByMailIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Test read() - Truncated or unknown file ignored")
+    public void testReadInvalid() throws Exception {
+        snapshot(userCache("test@mail.com")).write();
+        Path path = directory.resolve("users.snapshot");
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+        assertTrue(UserCacheSnapshot.read(path).isEmpty());
+
+        Files.write(path, "not a snapshot".getBytes());
+        assertTrue(UserCacheSnapshot.read(path).isEmpty());
+    }
+
+    private UserCacheSnapshot snapshot(UserCache userCache) {
+        UserCacheProperties properties = properties();
+        properties.setSnapshotPath(directory.resolve("users.snapshot"));
+        properties.setWarmUpBatchSize(2);
+
+        return new UserCacheSnapshot(userCache, userRepository, properties);
+    }
+
+    private UserCache userCache(String... mails) {
+        UserCache userCache = new UserCache(properties(), new SimpleMeterRegistry());
+
+        for (String mail : mails) {
+            userCache.put(new User(1, mail, "secret12345", true));
+        }
+
+        return userCache;
+    }
+
+    private UserCacheProperties properties() {
+        UserCacheProperties properties = new UserCacheProperties();
+        properties.setEnabled(true);
+        properties.setTtl(Duration.ofHours(1));
+
+        return properties;
+    }
+}
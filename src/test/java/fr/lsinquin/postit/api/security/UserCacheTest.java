@@ -0,0 +1,119 @@
+package fr.lsinquin.postit.api.security;
+
+import fr.lsinquin.postit.domain.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserCache
+ */
+public class UserCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test get() - Cached user")
+    public void testGetCached() {
+        UserCache userCache = userCache(10, Duration.ofHours(1));
+        User user = user(1);
+
+        userCache.put(user);
+
+        assertSame(user, userCache.get("user1@mail.com"));
+        assertNull(userCache.get("user2@mail.com"));
+        assertEquals(1, meterRegistry.get("postit.user-cache.lookups").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("postit.user-cache.lookups").tag("result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("postit.user-cache.size").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test get() - Expired user")
+    public void testGetExpired() throws Exception {
+        UserCache userCache = userCache(10, Duration.ofMillis(20));
+
+        userCache.put(user(1));
+        Thread.sleep(40);
+
+        assertNull(userCache.get("user1@mail.com"));
+        assertTrue(userCache.mails().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test put() - Expired users purged")
+    public void testPutPurgesExpired() throws Exception {
+        UserCache userCache = userCache(2, Duration.ofMillis(20));
+
+        userCache.put(user(1));
+        userCache.put(user(2));
+        Thread.sleep(40);
+        userCache.put(user(3));
+
+        assertEquals(1, userCache.size());
+        assertEquals(List.of("user3@mail.com"), userCache.mails());
+    }
+
+    @Test
+    @DisplayName("Test put() - Oldest users evicted")
+    public void testPutEvictsOldest() throws Exception {
+        UserCache userCache = userCache(2, Duration.ofHours(1));
+
+        userCache.put(user(1));
+        Thread.sleep(10);
+        userCache.put(user(2));
+        Thread.sleep(10);
+        userCache.put(user(3));
+
+        assertEquals(2, userCache.size());
+        assertNull(userCache.get("user1@mail.com"));
+        assertNotNull(userCache.get("user2@mail.com"));
+        assertNotNull(userCache.get("user3@mail.com"));
+    }
+
+    @Test
+    @DisplayName("Test put() - Users purged at most once per interval")
+    public void testPutPurgeThrottled() throws Exception {
+        UserCache userCache = userCache(2, Duration.ofHours(1));
+
+        userCache.put(user(1));
+        Thread.sleep(10);
+        userCache.put(user(2));
+        Thread.sleep(10);
+        userCache.put(user(3));
+        userCache.put(user(4));
+
+        // A single purge : the following new users are cached beyond maxSize until the next one
+        assertEquals(3, userCache.size());
+        assertNotNull(userCache.get("user4@mail.com"));
+    }
+
+    @Test
+    @DisplayName("Test get() - Disabled")
+    public void testDisabled() {
+        UserCacheProperties properties = new UserCacheProperties();
+        UserCache userCache = new UserCache(properties, meterRegistry);
+
+        userCache.put(user(1));
+
+        assertNull(userCache.get("user1@mail.com"));
+        assertEquals(0, userCache.size());
+    }
+
+    private UserCache userCache(int maxSize, Duration ttl) {
+        UserCacheProperties properties = new UserCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaxSize(maxSize);
+        properties.setTtl(ttl);
+
+        return new UserCache(properties, meterRegistry);
+    }
+
+    private User user(int id) {
+        return new User(id, "user" + id + "@mail.com", "secret12345", true);
+    }
+}
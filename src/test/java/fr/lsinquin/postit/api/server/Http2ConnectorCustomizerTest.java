@@ -0,0 +1,51 @@
+package fr.lsinquin.postit.api.server;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Http2ConnectorCustomizer
+ */
+public class Http2ConnectorCustomizerTest {
+
+    @Test
+    @DisplayName("Test customize() - Adds h2c")
+    public void testCustomizeAddsHttp2() {
+        Http2Properties http2Properties = new Http2Properties();
+        http2Properties.setMaxConcurrentStreams(50);
+        http2Properties.setMaxConcurrentStreamExecution(10);
+        http2Properties.setKeepAliveTimeout(Duration.ofSeconds(5));
+
+        Connector connector = new Connector();
+        new Http2ConnectorCustomizer(http2Properties).customize(connector);
+
+        UpgradeProtocol[] upgradeProtocols = connector.findUpgradeProtocols();
+        assertEquals(1, upgradeProtocols.length);
+
+        Http2Protocol http2Protocol = (Http2Protocol) upgradeProtocols[0];
+        assertEquals(50, http2Protocol.getMaxConcurrentStreams());
+        assertEquals(10, http2Protocol.getMaxConcurrentStreamExecution());
+        assertEquals(5000, http2Protocol.getKeepAliveTimeout());
+    }
+
+    @Test
+    @DisplayName("Test customize() - HTTP/2 already enabled")
+    public void testCustomizeKeepsExistingHttp2() {
+        Http2Protocol existingProtocol = new Http2Protocol();
+
+        Connector connector = new Connector();
+        connector.addUpgradeProtocol(existingProtocol);
+
+        new Http2ConnectorCustomizer(new Http2Properties()).customize(connector);
+
+        assertArrayEquals(new UpgradeProtocol[] { existingProtocol }, connector.findUpgradeProtocols());
+        assertEquals(100, existingProtocol.getMaxConcurrentStreams());
+    }
+}
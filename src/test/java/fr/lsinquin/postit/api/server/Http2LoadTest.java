@@ -0,0 +1,168 @@
+package fr.lsinquin.postit.api.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.domain.dtos.NoteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.UserRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of many small GET /notes/:id calls, comparing the throughput of HTTP/1.1 with a connection per request,
+ * HTTP/1.1 with persistent connections and h2c with every request multiplexed on a single connection.
+ * Excluded from the default build, run with : mvn -Pload-tests test
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = { "logging.level.fr.lsinquin.postit=WARN", "postit.rate-limit.enabled=false" })
+@Slf4j
+public class Http2LoadTest {
+
+    private static final int CLIENTS = 32;
+
+    private static final int REQUESTS = 10_000;
+
+    private static final int WARM_UP_REQUESTS = 2_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String token;
+
+    private Integer noteId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        UserRequest user = new UserRequest(UUID.randomUUID() + "@mail.com", "loadtestpassword");
+
+        // Tomcat refuses an h2c upgrade on a request with a body : the connection is upgraded by a first GET
+        httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/notes")).build(), HttpResponse.BodyHandlers.discarding());
+        httpClient.send(jsonRequest("/users", user, null), HttpResponse.BodyHandlers.discarding());
+        token = httpClient.send(jsonRequest("/login", user, null), HttpResponse.BodyHandlers.ofString()).body();
+
+        HttpResponse<String> created = httpClient.send(jsonRequest("/notes", new NoteRequest("Note", "Contenu de test"), token), HttpResponse.BodyHandlers.ofString());
+        noteId = objectMapper.readValue(created.body(), NoteResponse.class).getId();
+    }
+
+    @Test
+    @DisplayName("Load GET /notes/:id - HTTP/1.1 and h2c throughput")
+    public void testGetNoteThroughput() throws Exception {
+        HttpClient http11Client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpClient h2cClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+
+        // Upgrades the h2c client connection before the measure
+        assertEquals(HttpClient.Version.HTTP_2, h2cClient.send(getNote(), HttpResponse.BodyHandlers.discarding()).version());
+
+        // Warm-up
+        throughput(WARM_UP_REQUESTS, this::getNoteOnNewConnection);
+        throughput(WARM_UP_REQUESTS, () -> getNote(http11Client, HttpClient.Version.HTTP_1_1));
+        throughput(WARM_UP_REQUESTS, () -> getNote(h2cClient, HttpClient.Version.HTTP_2));
+
+        double connectionPerRequest = throughput(REQUESTS, this::getNoteOnNewConnection);
+        double keepAlive = throughput(REQUESTS, () -> getNote(http11Client, HttpClient.Version.HTTP_1_1));
+        double h2c = throughput(REQUESTS, () -> getNote(h2cClient, HttpClient.Version.HTTP_2));
+
+        log.warn("GET /notes/:id, {} requests by {} clients : HTTP/1.1 connection per request {} req/s, HTTP/1.1 keep-alive {} req/s, h2c {} req/s",
+                REQUESTS, CLIENTS, Math.round(connectionPerRequest), Math.round(keepAlive), Math.round(h2c));
+    }
+
+    private double throughput(int requests, Call call) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> clients = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.add(executorService.submit(() -> {
+                for (int j = 0; j < requests / CLIENTS; j++) {
+                    call.run();
+                }
+
+                return null;
+            }));
+        }
+
+        for (Future<?> client : clients) {
+            client.get();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+
+        return (requests / CLIENTS) * CLIENTS * 1e9 / elapsed;
+    }
+
+    private void getNote(HttpClient httpClient, HttpClient.Version expectedVersion) throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(getNote(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(expectedVersion, response.version());
+    }
+
+    private void getNoteOnNewConnection() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /notes/" + noteId + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Authorization: Bearer " + token + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            String response = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+
+            assertTrue(response.startsWith("HTTP/1.1 200"), response);
+        }
+    }
+
+    private HttpRequest getNote() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/notes/" + noteId))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest jsonRequest(String path, Object body, String bearer) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+
+        if (bearer != null) {
+            builder.header("Authorization", "Bearer " + bearer);
+        }
+
+        return builder.build();
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,155 @@
+package fr.lsinquin.postit.api.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.PostItApiApplication;
+import fr.lsinquin.postit.domain.dtos.UserRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test comparing how many requests are processed at the same time with platform threads and with virtual threads.
+ * Every request keeps its thread blocked for HOLD_MILLIS in {@link HoldController}, which stands in for a request waiting on JDBC.
+ * The platform threads pool is limited to THREADS, so the effective concurrency should not exceed it, while virtual threads are only bounded by the connections.
+ * HoldController is only registered by this test : the test contexts of Spring Boot exclude the classes nested in test classes from the component scan.
+ * On runtimes without virtual threads, both modes use platform threads.
+ * Excluded from the default build, run with : mvn -Pload-tests test
+ */
+@Tag("load")
+@Slf4j
+public class VirtualThreadsLoadTest {
+
+    private static final int THREADS = 16;
+
+    private static final int CLIENTS = 128;
+
+    private static final long HOLD_MILLIS = 2000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Load blocking requests - Platform and virtual threads concurrency")
+    public void testConcurrency() throws Exception {
+        double platformThreads = concurrency(false);
+        double virtualThreads = concurrency(true);
+
+        log.warn("Requests holding their thread {} ms, {} clients : platform threads ({} max) {} concurrent requests, virtual threads {} concurrent requests (supported : {})",
+                HOLD_MILLIS, CLIENTS, THREADS, Math.round(platformThreads), Math.round(virtualThreads), VirtualThreads.isSupported());
+
+        assertTrue(platformThreads <= THREADS, String.valueOf(platformThreads));
+
+        if (VirtualThreads.isSupported()) {
+            assertTrue(virtualThreads > 2 * THREADS, String.valueOf(virtualThreads));
+        }
+    }
+
+    /**
+     * Starts the application, sends CLIENTS slow requests at the same time and measures how many of them were processed concurrently.
+     * @param virtualThreadsEnabled Value of postit.server.virtual-threads.enabled
+     * @return Mean number of requests processed at the same time
+     */
+    private double concurrency(boolean virtualThreadsEnabled) throws Exception {
+        // Command line arguments, which take precedence over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PostItApiApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + THREADS,
+                "--server.tomcat.threads.min-spare=" + THREADS,
+                "--logging.level.fr.lsinquin.postit=WARN",
+                "--postit.rate-limit.enabled=false",
+                "--postit.server.virtual-threads.enabled=" + virtualThreadsEnabled)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String token = login(port);
+
+            ExecutorService executorService = Executors.newFixedThreadPool(CLIENTS);
+            List<Future<?>> clients = new ArrayList<>();
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executorService.submit(() -> {
+                    hold(port, token);
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> client : clients) {
+                client.get();
+            }
+
+            long elapsed = System.nanoTime() - start;
+            executorService.shutdown();
+
+            return CLIENTS * HOLD_MILLIS * 1e6 / elapsed;
+        }
+    }
+
+    private void hold(int port, String token) throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + HoldController.PATH + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Authorization: Bearer " + token + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            String response = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+
+            assertTrue(response.startsWith("HTTP/1.1 204"), response);
+        }
+    }
+
+    private String login(int port) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        UserRequest user = new UserRequest(UUID.randomUUID() + "@mail.com", "loadtestpassword");
+
+        httpClient.send(jsonRequest(port, "/users", user), HttpResponse.BodyHandlers.discarding());
+
+        return httpClient.send(jsonRequest(port, "/login", user), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private HttpRequest jsonRequest(int port, String path, Object body) throws Exception {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    @RestController
+    static class HoldController {
+
+        static final String PATH = "/load-test/hold";
+
+        @GetMapping(PATH)
+        @ResponseStatus(HttpStatus.NO_CONTENT)
+        public void hold() throws InterruptedException {
+            Thread.sleep(HOLD_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package fr.lsinquin.postit.api.server;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for VirtualThreads. Depending on the Java version running the tests, only one of the executor tests applies.
+ */
+public class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Test isSupported() - Java 21+")
+    public void testIsSupported() {
+        assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isSupported());
+        assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+    }
+
+    @Test
+    @DisplayName("Test newVirtualThreadPerTaskExecutor() - Named virtual threads")
+    public void testNewVirtualThreadPerTaskExecutor() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+
+        ExecutorService executorService = VirtualThreads.newVirtualThreadPerTaskExecutor("test-vt-");
+
+        try {
+            Thread thread = executorService.submit(Thread::currentThread).get();
+
+            assertTrue(VirtualThreads.isVirtual(thread));
+            assertTrue(thread.getName().startsWith("test-vt-"), thread.getName());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test newVirtualThreadPerTaskExecutor() - Not supported")
+    public void testNewVirtualThreadPerTaskExecutorNotSupported() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.newVirtualThreadPerTaskExecutor("test-vt-"));
+    }
+}
@@ -0,0 +1,87 @@
+package fr.lsinquin.postit.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.lsinquin.postit.api.compression.DeflaterPool;
+import fr.lsinquin.postit.api.compression.GzipDeflaterOutputStream;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU cost of compressing GET /notes payloads, against the bytes saved.
+ * The payload and compressed sizes of each configuration are printed at setup.
+ * Run with : mvn -Pbenchmarks verify -DskipTests -Dbenchmark=CompressionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    /**
+     * Number of notes in the list
+     */
+    @Param({ "10", "100", "1000" })
+    private int notes;
+
+    @Param({ "1", "5", "9" })
+    private int level;
+
+    private byte[] payload;
+
+    private DeflaterPool deflaterPool;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<NoteResponse> responses = IntStream.range(0, notes)
+                .mapToObj(i -> new NoteResponse(i, "Note title " + i, "Some typical note content, a shopping list or a reminder " + i + ". ".repeat(i % 20)))
+                .collect(Collectors.toList());
+
+        payload = new ObjectMapper().writeValueAsBytes(responses);
+        deflaterPool = new DeflaterPool(level, 1);
+
+        int compressed = pooledGzip();
+        System.out.printf("%n%d notes, level %d : %d bytes -> %d bytes (%.1f%% saved)%n", notes, level, payload.length, compressed, 100.0 * (payload.length - compressed) / payload.length);
+    }
+
+    @Benchmark
+    public int identity() {
+        out.reset();
+        out.write(payload, 0, payload.length);
+
+        return out.size();
+    }
+
+    @Benchmark
+    public int pooledGzip() throws IOException {
+        out.reset();
+
+        GzipDeflaterOutputStream gzip = new GzipDeflaterOutputStream(out, deflaterPool);
+        gzip.write(payload, 0, payload.length);
+        gzip.finish();
+
+        return out.size();
+    }
+
+    @Benchmark
+    public int jdkGzip() throws IOException {
+        out.reset();
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(level); }}) {
+            gzip.write(payload, 0, payload.length);
+        }
+
+        return out.size();
+    }
+}
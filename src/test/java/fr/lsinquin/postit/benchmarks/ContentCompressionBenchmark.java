@@ -0,0 +1,80 @@
+package fr.lsinquin.postit.benchmarks;
+
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.DeflateContentCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of storing note contents compressed, against the bytes saved.
+ * plainWrite and plainRead are the UTF-8 encoding and decoding a plain text column costs anyway. The stored sizes of each configuration are printed at setup.
+ * Run with : mvn -Pbenchmarks verify -DskipTests -Dbenchmark=ContentCompressionBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContentCompressionBenchmark {
+
+    private static final String[] WORDS = { "la", "note", "réunion", "projet", "client", "à", "faire", "avant", "lundi", "de", "le", "compte", "rendu",
+            "envoyer", "et", "les", "chiffres", "du", "trimestre", "vérifier", "budget", "équipe", "planning", "livraison", "version" };
+
+    /**
+     * Number of characters of the content
+     */
+    @Param({ "1024", "16384", "262144" })
+    private int length;
+
+    @Param({ "1", "6" })
+    private int level;
+
+    private String content;
+
+    private byte[] plain;
+
+    private byte[] compressed;
+
+    private ContentCompression contentCompression;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 16);
+
+        while (builder.length() < length) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+
+        content = builder.substring(0, length);
+        contentCompression = new ContentCompression(0, new DeflateContentCodec(level));
+        plain = plainWrite();
+        compressed = compress();
+
+        System.out.printf("%n%d characters, level %d : %d bytes -> %d bytes (%.1f%% saved)%n", length, level, plain.length, compressed.length, 100.0 * (plain.length - compressed.length) / plain.length);
+    }
+
+    @Benchmark
+    public byte[] plainWrite() {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return contentCompression.compress(content);
+    }
+
+    @Benchmark
+    public String plainRead() {
+        return new String(plain, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decompress() {
+        return ContentCompression.decompress(compressed);
+    }
+}
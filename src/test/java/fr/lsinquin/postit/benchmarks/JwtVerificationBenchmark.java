@@ -0,0 +1,72 @@
+package fr.lsinquin.postit.benchmarks;
+
+import fr.lsinquin.postit.api.security.JwtKeys;
+import fr.lsinquin.postit.api.security.JwtProperties;
+import fr.lsinquin.postit.api.security.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JWT signature verification done by the JwtTokenFilter on every authenticated request (JwtTokenUtil.getValidClaims),
+ * and of the signature done on login and refresh, with HS256 and ES256 keys.
+ * Run with : mvn -Pbenchmarks verify -DskipTests -Dbenchmark=JwtVerificationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtVerificationBenchmark {
+
+    @Param({ "HS256", "ES256" })
+    private String algorithm;
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JwtProperties.SigningKey signingKey = new JwtProperties.SigningKey();
+        signingKey.setId(algorithm);
+
+        if ("HS256".equals(algorithm)) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            signingKey.setSecret(Base64.getEncoder().encodeToString(secret));
+        } else {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+            keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+            signingKey.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+            signingKey.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        }
+
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setKeys(List.of(signingKey));
+
+        jwtTokenUtil = new JwtTokenUtil(JwtKeys.load(jwtProperties, new DefaultResourceLoader()), jwtProperties);
+        token = jwtTokenUtil.generateAccessToken("benchmark@mail.com");
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtTokenUtil.getValidClaims(token);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtTokenUtil.generateAccessToken("benchmark@mail.com");
+    }
+}
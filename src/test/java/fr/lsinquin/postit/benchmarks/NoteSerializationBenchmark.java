@@ -0,0 +1,77 @@
+package fr.lsinquin.postit.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import fr.lsinquin.postit.api.serializers.NoteResponseSerializer;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Serialization of GET /notes : the former materialized list serialized by the bean serializer against the streamed array written by NoteResponseSerializer.
+ * Allocation per operation is the figure to look at.
+ * Run with : mvn -Pbenchmarks verify -DskipTests -Dbenchmark="NoteSerializationBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NoteSerializationBenchmark {
+
+    /**
+     * Number of notes in the list
+     */
+    @Param({ "10", "1000", "10000" })
+    private int notes;
+
+    private List<Note> entities;
+
+    private final ObjectMapper beanMapper = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final ObjectWriter streamingWriter = new ObjectMapper()
+            .registerModule(new SimpleModule().addSerializer(new NoteResponseSerializer()))
+            .writerFor(NoteResponse.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User user = new User(1, "bench@mail.com", "password", true);
+
+        entities = IntStream.range(0, notes)
+                .mapToObj(i -> new Note(i, "Note title " + i, "Some typical note content, a shopping list or a reminder " + i, user))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void materialized() throws IOException {
+        List<NoteResponse> responses = entities.stream()
+                .map(note -> new NoteResponse(note.getId(), note.getTitle(), note.getContent()))
+                .collect(Collectors.toList());
+
+        beanMapper.writeValue(out, responses);
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        try (SequenceWriter sequenceWriter = streamingWriter.writeValuesAsArray(out)) {
+            for (Note note : entities) {
+                sequenceWriter.write(new NoteResponse(note.getId(), note.getTitle(), note.getContent()));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package fr.lsinquin.postit.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import fr.lsinquin.postit.api.serializers.NoteResponseSerializer;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Encoding and decoding of GET /notes payloads in each wire format of the API.
+ * The payload size of each configuration is printed at setup.
+ * Run with : mvn -Pbenchmarks verify -DskipTests -Dbenchmark=WireFormatBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireFormatBenchmark {
+
+    private static final Map<String, JsonFactory> FACTORIES = Map.of(
+            "json", new JsonFactory(),
+            "cbor", new CBORFactory(),
+            "smile", new SmileFactory()
+    );
+
+    @Param({ "json", "cbor", "smile" })
+    private String format;
+
+    /**
+     * Number of notes in the list
+     */
+    @Param({ "1", "100" })
+    private int notes;
+
+    private ObjectMapper objectMapper;
+
+    private JavaType listType;
+
+    private List<NoteResponse> responses;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper(FACTORIES.get(format))
+                .registerModule(new ParameterNamesModule())
+                .registerModule(new SimpleModule().addSerializer(new NoteResponseSerializer()));
+        listType = objectMapper.getTypeFactory().constructCollectionType(List.class, NoteResponse.class);
+
+        responses = IntStream.range(0, notes)
+                .mapToObj(i -> new NoteResponse(i, "Note title " + i, "Some typical note content, a shopping list or a reminder " + i))
+                .collect(Collectors.toList());
+        payload = encode();
+
+        System.out.printf("%n%s, %d notes : %d bytes%n", format, notes, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public List<NoteResponse> decode() throws IOException {
+        return objectMapper.readValue(payload, listType);
+    }
+}
@@ -0,0 +1,71 @@
+package fr.lsinquin.postit.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HikariPoolConfigurer
+ */
+public class HikariPoolConfigurerTest {
+
+    private final PoolProperties poolProperties = new PoolProperties();
+
+    private final MockEnvironment environment = new MockEnvironment();
+
+    @Test
+    @DisplayName("Test configure() - Explicit sizes")
+    public void testConfigureExplicitSizes() {
+        poolProperties.setMaximumPoolSize(12);
+        poolProperties.setMinimumIdle(4);
+        poolProperties.setLeakDetectionThreshold(Duration.ofSeconds(10));
+
+        HikariConfig hikariConfig = configure("jdbc:h2:mem:test");
+
+        assertEquals(12, hikariConfig.getMaximumPoolSize());
+        assertEquals(4, hikariConfig.getMinimumIdle());
+        assertEquals(10_000, hikariConfig.getLeakDetectionThreshold());
+        assertTrue(hikariConfig.getDataSourceProperties().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test configure() - Derived size")
+    public void testConfigureDerivedSize() {
+        environment.setProperty("server.tomcat.threads.max", "400");
+
+        HikariConfig hikariConfig = configure("jdbc:h2:mem:test");
+
+        assertTrue(hikariConfig.getMaximumPoolSize() >= 40);
+        assertEquals(hikariConfig.getMaximumPoolSize(), hikariConfig.getMinimumIdle());
+    }
+
+    @Test
+    @DisplayName("Test configure() - PostgreSQL driver settings")
+    public void testConfigurePostgresSettings() {
+        HikariConfig hikariConfig = configure("jdbc:postgresql://localhost:5432/postit");
+
+        assertEquals(true, hikariConfig.getDataSourceProperties().get("reWriteBatchedInserts"));
+        assertEquals(256, hikariConfig.getDataSourceProperties().get("preparedStatementCacheQueries"));
+        assertEquals(5, hikariConfig.getDataSourceProperties().get("prepareThreshold"));
+    }
+
+    private HikariConfig configure(String jdbcUrl) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("poolProperties", poolProperties);
+        ObjectProvider<PoolProperties> provider = beanFactory.getBeanProvider(PoolProperties.class);
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(jdbcUrl);
+
+        new HikariPoolConfigurer(provider, environment).configure(hikariConfig);
+
+        return hikariConfig;
+    }
+}
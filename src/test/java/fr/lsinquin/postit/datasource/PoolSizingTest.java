@@ -0,0 +1,36 @@
+package fr.lsinquin.postit.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for PoolSizing
+ */
+public class PoolSizingTest {
+
+    @Test
+    @DisplayName("Test derivePoolSize() - Cores based")
+    public void testDerivePoolSizeFromCores() {
+        assertEquals(33, PoolSizing.derivePoolSize(16, 1, 200, 10));
+    }
+
+    @Test
+    @DisplayName("Test derivePoolSize() - Raised for the servlet threads")
+    public void testDerivePoolSizeRaisedForThreads() {
+        assertEquals(20, PoolSizing.derivePoolSize(4, 1, 200, 10));
+    }
+
+    @Test
+    @DisplayName("Test derivePoolSize() - Capped by the servlet threads")
+    public void testDerivePoolSizeCappedByThreads() {
+        assertEquals(8, PoolSizing.derivePoolSize(16, 1, 8, 10));
+    }
+
+    @Test
+    @DisplayName("Test minimumPoolSize() - Rounded up")
+    public void testMinimumPoolSize() {
+        assertEquals(21, PoolSizing.minimumPoolSize(201, 10));
+    }
+}
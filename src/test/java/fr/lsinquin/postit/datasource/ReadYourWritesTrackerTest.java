@@ -0,0 +1,49 @@
+package fr.lsinquin.postit.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReadYourWritesTracker.
+ */
+public class ReadYourWritesTrackerTest {
+
+    @Test
+    @DisplayName("Test isWithinWindow() - Recent write")
+    public void testRecentWrite() {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+
+        tracker.recordWrite("writer@mail.com");
+
+        assertTrue(tracker.isWithinWindow("writer@mail.com"));
+        assertFalse(tracker.isWithinWindow("other@mail.com"));
+    }
+
+    @Test
+    @DisplayName("Test recordWrite() - Expired writes purged at most once per interval")
+    public void testPurgeThrottled() throws Exception {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMillis(1));
+
+        writeAll(tracker, "first");
+        Thread.sleep(10);
+        tracker.recordWrite("writer@mail.com");
+        assertEquals(1, tracker.size());
+
+        writeAll(tracker, "second");
+        Thread.sleep(10);
+        tracker.recordWrite("other@mail.com");
+
+        // A single purge : the expired writes are kept until the next one
+        assertEquals(10_002, tracker.size());
+    }
+
+    private void writeAll(ReadYourWritesTracker tracker, String prefix) {
+        for (int i = 0; i < 10_000; i++) {
+            tracker.recordWrite(prefix + i + "@mail.com");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package fr.lsinquin.postit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ReplicaRoutingDataSource.
+ * Two embedded H2 databases stand in for the primary and the replica. Each one contains a single row naming it.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(EmbeddedDatabase::shutdown);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Test routing - Read-write transaction on primary")
+    public void testReadWriteTransactionOnPrimary() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ZERO, "replica");
+
+        assertEquals("primary", inTransaction(jdbcTemplate, false));
+    }
+
+    @Test
+    @DisplayName("Test routing - Read-only transaction on replica")
+    public void testReadOnlyTransactionOnReplica() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ZERO, "replica");
+
+        assertEquals("replica", inTransaction(jdbcTemplate, true));
+    }
+
+    @Test
+    @DisplayName("Test routing - No transaction on primary")
+    public void testNoTransactionOnPrimary() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ZERO, "replica");
+
+        assertEquals("primary", whoAmI(jdbcTemplate));
+    }
+
+    @Test
+    @DisplayName("Test routing - Round robin over replicas")
+    public void testRoundRobinOverReplicas() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ZERO, "replica1", "replica2");
+
+        assertEquals("replica1", inTransaction(jdbcTemplate, true));
+        assertEquals("replica2", inTransaction(jdbcTemplate, true));
+        assertEquals("replica1", inTransaction(jdbcTemplate, true));
+    }
+
+    @Test
+    @DisplayName("Test routing - Read-your-writes window")
+    public void testReadYourWritesWindow() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ofMinutes(1), "replica");
+
+        ReplicaRoutingContext.callAs("writer@mail.com", () -> inTransaction(jdbcTemplate, false));
+
+        assertEquals("primary", ReplicaRoutingContext.callAs("writer@mail.com", () -> inTransaction(jdbcTemplate, true)));
+        assertEquals("replica", ReplicaRoutingContext.callAs("other@mail.com", () -> inTransaction(jdbcTemplate, true)));
+    }
+
+    @Test
+    @DisplayName("Test routing - Read-your-writes disabled")
+    public void testReadYourWritesDisabled() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ZERO, "replica");
+
+        ReplicaRoutingContext.callAs("writer@mail.com", () -> inTransaction(jdbcTemplate, false));
+
+        assertEquals("replica", ReplicaRoutingContext.callAs("writer@mail.com", () -> inTransaction(jdbcTemplate, true)));
+    }
+
+    @Test
+    @DisplayName("Test routing - Anonymous writes not tracked")
+    public void testAnonymousWritesNotTracked() {
+        JdbcTemplate jdbcTemplate = routingJdbcTemplate(Duration.ofMinutes(1), "replica");
+        SecurityContextHolder.getContext().setAuthentication(
+                new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        inTransaction(jdbcTemplate, false);
+
+        assertEquals("replica", inTransaction(jdbcTemplate, true));
+    }
+
+    private String inTransaction(JdbcTemplate jdbcTemplate, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        transactionTemplate.setReadOnly(readOnly);
+
+        return transactionTemplate.execute(status -> whoAmI(jdbcTemplate));
+    }
+
+    private String whoAmI(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private JdbcTemplate routingJdbcTemplate(Duration readYourWritesWindow, String... replicaNames) {
+        List<DataSource> replicas = new ArrayList<>();
+
+        for (String replicaName : replicaNames) {
+            replicas.add(database(replicaName));
+        }
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(database("primary"), replicas, new ReadYourWritesTracker(readYourWritesWindow));
+        routingDataSource.afterPropertiesSet();
+
+        return new JdbcTemplate(new LazyConnectionDataSourceProxy(routingDataSource));
+    }
+
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE whoami (name VARCHAR(32))");
+        jdbcTemplate.update("INSERT INTO whoami (name) VALUES (?)", name);
+
+        databases.add(database);
+
+        return database;
+    }
+}
@@ -0,0 +1,352 @@
+package fr.lsinquin.postit.reactive;
+
+import fr.lsinquin.postit.domain.dtos.NoteBatchDeleteRequest;
+import fr.lsinquin.postit.domain.dtos.NoteBatchPatchRequest;
+import fr.lsinquin.postit.domain.dtos.NotePatchRequest;
+import fr.lsinquin.postit.domain.dtos.NoteRequest;
+import fr.lsinquin.postit.domain.dtos.UserRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End to end tests of the reactive stack (reactive profile), on Netty.
+ * Flyway migrates the H2 in memory database through its own JDBC connection, the application reaches the same database through R2DBC.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.flyway.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa"
+})
+@ActiveProfiles("reactive")
+public class ReactiveApiTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveWebServerApplicationContext applicationContext;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final UserRequest user = new UserRequest(UUID.randomUUID() + "@mail.com", "reactivepassword");
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient.post().uri("/users")
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.mail").isEqualTo(user.getMail());
+
+        token = webTestClient.post().uri("/login")
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    @Test
+    @DisplayName("Test reactive server - Netty")
+    public void testServedByNetty() {
+        assertTrue(applicationContext.getWebServer() instanceof NettyWebServer);
+    }
+
+    @Test
+    @DisplayName("Test POST /users - Existing user")
+    public void testPostExistingUser() {
+        webTestClient.post().uri("/users")
+                .bodyValue(user)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorCode").isEqualTo("ERR_EXISTING_USER");
+    }
+
+    @Test
+    @DisplayName("Test POST /login - Bad credentials")
+    public void testLoginBadCredentials() {
+        webTestClient.post().uri("/login")
+                .bodyValue(new UserRequest(user.getMail(), "wrongpassword"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Test POST /login - Throttled after repeated failures")
+    public void testLoginThrottled() {
+        UserRequest unknownUser = new UserRequest("throttled@mail.com", "wrongpassword");
+
+        for (int i = 0; i < 5; i++) {
+            webTestClient.post().uri("/login")
+                    .bodyValue(unknownUser)
+                    .exchange()
+                    .expectStatus().isUnauthorized();
+        }
+
+        webTestClient.post().uri("/login")
+                .bodyValue(unknownUser)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+    }
+
+    @Test
+    @DisplayName("Test GET /notes - No token")
+    public void testGetNotesWithoutToken() {
+        webTestClient.get().uri("/notes")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Test notes endpoints - Create, read, modify and delete")
+    public void testNotesLifecycle() {
+        Integer id = webTestClient.post().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un titre", "Un contenu"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(NoteId.class)
+                .returnResult()
+                .getResponseBody()
+                .id;
+
+        webTestClient.get().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].title").isEqualTo("Un titre");
+
+        webTestClient.put().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un autre titre", "Un autre contenu"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.title").isEqualTo("Un autre titre");
+
+        webTestClient.patch().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.parseMediaType(NotePatchRequest.MEDIA_TYPE))
+                .bodyValue("{\"title\":\"Un titre modifié\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.title").isEqualTo("Un titre modifié");
+
+        webTestClient.get().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Un titre modifié")
+                .jsonPath("$.content").isEqualTo("Un autre contenu");
+
+        webTestClient.delete().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Test GET /notes/:id - Not authorized")
+    public void testGetNoteOfAnotherUser() {
+        // Note 1 belongs to test@mail.com
+        webTestClient.get().uri("/notes/{id}", 1)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Test POST /notes - Validation error (no content field)")
+    public void testPostNoteValidation() {
+        webTestClient.post().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un titre", null))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errorCode").isEqualTo("ERR_INPUT_VALIDATION")
+                .jsonPath("$.details[0].field").isEqualTo("content");
+    }
+
+    @Test
+    @DisplayName("Test batch endpoints - Patch and delete only the user's notes")
+    public void testBatchNotes() {
+        Integer id = webTestClient.post().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un titre", "Un contenu"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(NoteId.class)
+                .returnResult()
+                .getResponseBody()
+                .id;
+
+        // Note 1 belongs to test@mail.com
+        webTestClient.patch().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteBatchPatchRequest(List.of(id, 1), "Un titre commun", null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("UPDATED")
+                .jsonPath("$[1].status").isEqualTo("NOT_FOUND");
+
+        webTestClient.get().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Un titre commun")
+                .jsonPath("$.content").isEqualTo("Un contenu");
+
+        webTestClient.post().uri("/notes/batch-delete")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteBatchDeleteRequest(List.of(id, 1)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("DELETED")
+                .jsonPath("$[1].status").isEqualTo("NOT_FOUND");
+
+        webTestClient.get().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Test notes endpoints - Long content stored compressed")
+    public void testLongContent() {
+        String content = "Un long contenu. ".repeat(1000);
+
+        Integer id = webTestClient.post().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un titre", content))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(NoteId.class)
+                .returnResult()
+                .getResponseBody()
+                .id;
+
+        webTestClient.get().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.content").isEqualTo(content);
+
+        webTestClient.get().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].content").isEqualTo(content);
+
+        webTestClient.get().uri("/notes?view=summary")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].preview").isEqualTo(content.substring(0, 200))
+                .jsonPath("$[0].length").isEqualTo(content.length())
+                .jsonPath("$[0].content").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Test GET /notes/:id/content - Chunked content and range")
+    public void testChunkedContent() {
+        Integer id = webTestClient.post().uri("/notes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un titre", "court"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(NoteId.class)
+                .returnResult()
+                .getResponseBody()
+                .id;
+
+        // The reactive stack does not chunk contents : the chunks are written directly
+        byte[] bytes = "Un contenu découpé. ".repeat(10).getBytes(StandardCharsets.UTF_8);
+        databaseClient.sql("UPDATE note SET content = NULL, content_size = :size WHERE id = :id")
+                .bind("size", (long) bytes.length)
+                .bind("id", id)
+                .then()
+                .block();
+        for (int seq = 0; seq * 100 < bytes.length; seq++) {
+            databaseClient.sql("INSERT INTO note_chunk (note_id, seq, data) VALUES (:id, :seq, :data)")
+                    .bind("id", id)
+                    .bind("seq", seq)
+                    .bind("data", Arrays.copyOfRange(bytes, seq * 100, Math.min(seq * 100 + 100, bytes.length)))
+                    .then()
+                    .block();
+        }
+
+        webTestClient.get().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.content").isEqualTo(new String(bytes, StandardCharsets.UTF_8));
+
+        webTestClient.get().uri("/notes/{id}/content", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.RANGE, "bytes=3-9")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 3-9/" + bytes.length)
+                .expectBody(String.class).isEqualTo("contenu");
+
+        webTestClient.put().uri("/notes/{id}", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new NoteRequest("Un titre", "court"))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/notes/{id}/content", id)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("court");
+        assertEquals(0L, databaseClient.sql("SELECT COUNT(*) AS chunks FROM note_chunk WHERE note_id = :id")
+                .bind("id", id)
+                .map(row -> row.get("chunks", Long.class))
+                .one()
+                .block());
+    }
+
+    private static class NoteId {
+        public Integer id;
+    }
+}
@@ -0,0 +1,96 @@
+package fr.lsinquin.postit.repositories;
+
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.DeflateContentCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NoteBlobRepository and the notes sharing a blob.
+ * The tests are run on a H2 in memory database which is initialized by the data.sql file.
+ */
+@DataJpaTest
+public class NoteBlobRepositoryTest {
+
+    @Autowired
+    private NoteBlobRepository noteBlobRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ContentCompression contentCompression = new ContentCompression(ContentCompression.DEFAULT_THRESHOLD, new DeflateContentCodec(Deflater.BEST_SPEED));
+
+    private final String content = "Un contenu partagé. ".repeat(100);
+
+    @Test
+    @DisplayName("Test addReferences() - Missing blob")
+    public void testAddReferencesMissingBlob() throws Exception {
+        assertEquals(0, noteBlobRepository.addReferences(NoteBlob.hashOf(content), 1));
+    }
+
+    @Test
+    @DisplayName("Test save() - Shared content read from its blob")
+    public void testSharedContent() throws Exception {
+        NoteBlob blob = shareContent(3, 4);
+        entityManager.clear();
+
+        assertNull(jdbcTemplate.queryForObject("SELECT content FROM note WHERE id = 3", String.class));
+        assertEquals(blob.getHash(), jdbcTemplate.queryForObject("SELECT blob_hash FROM note WHERE id = 4", String.class));
+        assertEquals(2, noteBlobRepository.findById(blob.getHash()).orElseThrow().getRefCount());
+        assertEquals(content, noteRepository.findById(3).orElseThrow().getContent());
+
+        try (Stream<NoteResponse> stream = noteRepository.streamNoteResponsesByUser(1)) {
+            assertEquals(content, stream.filter(response -> response.getId() == 4).findFirst().orElseThrow().getContent());
+        }
+
+        List<Object[]> references = noteRepository.countBlobReferencesByUserAndIdIn(1, List.of(1, 3, 4));
+        assertEquals(1, references.size());
+        assertEquals(blob.getHash(), references.get(0)[0]);
+        assertEquals(2L, references.get(0)[1]);
+    }
+
+    @Test
+    @DisplayName("Test deleteUnreferenced() - Blob kept while a note references it")
+    public void testDeleteUnreferenced() throws Exception {
+        NoteBlob blob = shareContent(3, 4);
+
+        noteBlobRepository.removeReferences(blob.getHash(), 2);
+        assertEquals(0, noteBlobRepository.deleteUnreferenced(blob.getHash()));
+
+        noteRepository.updateContentByUserAndIdIn(1, List.of(3, 4), contentCompression.store("court"), null);
+        assertEquals(1, noteBlobRepository.deleteUnreferenced(blob.getHash()));
+        assertFalse(noteBlobRepository.existsById(blob.getHash()));
+    }
+
+    private NoteBlob shareContent(Integer... ids) {
+        NoteBlob blob = noteBlobRepository.saveAndFlush(new NoteBlob(content, contentCompression));
+        noteBlobRepository.addReferences(blob.getHash(), ids.length);
+
+        for (Integer id : ids) {
+            Note note = noteRepository.findById(id).orElseThrow();
+            note.setBlob(blob, content);
+            noteRepository.saveAndFlush(note);
+        }
+
+        return blob;
+    }
+}
@@ -1,12 +1,25 @@
 package fr.lsinquin.postit.repositories;
 
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
 import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.storage.ContentChunking;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.DeflateContentCodec;
+import fr.lsinquin.postit.storage.StoredContent;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +33,16 @@ public class NoteRepositoryTest {
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ContentCompression contentCompression = new ContentCompression(ContentCompression.DEFAULT_THRESHOLD, new DeflateContentCodec(Deflater.BEST_SPEED));
+
+    private final ContentChunking contentChunking = new ContentChunking(ContentChunking.CHUNK_SIZE);
+
     @Test
     @DisplayName("Test findNotesByUser() - Valid")
     public void testFindNotesByUser() throws Exception {
@@ -36,4 +59,203 @@ public class NoteRepositoryTest {
         assertNotNull(notes);
         assertEquals(0, notes.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test streamNoteResponsesByUser() - Valid")
+    public void testStreamNoteResponsesByUser() throws Exception {
+        List<NoteResponse> notes;
+
+        try (Stream<NoteResponse> stream = noteRepository.streamNoteResponsesByUser(1)) {
+            notes = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(5, notes.size());
+        assertEquals(notes.stream().map(NoteResponse::getId).sorted().collect(Collectors.toList()),
+                notes.stream().map(NoteResponse::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Test streamNoteResponsesByUser() - Empty result")
+    public void testStreamNoteResponsesByUserNoResult() throws Exception {
+        try (Stream<NoteResponse> stream = noteRepository.streamNoteResponsesByUser(3)) {
+            assertEquals(0, stream.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Test findIdsByUserAndIdIn() - Only user's notes")
+    public void testFindIdsByUserAndIdIn() throws Exception {
+        List<Integer> ids = noteRepository.findIdsByUserAndIdIn(1, List.of(1, 2, 3, 99));
+
+        assertEquals(Set.of(1, 3), Set.copyOf(ids));
+    }
+
+    @Test
+    @DisplayName("Test deleteByUserAndIdIn() - Only user's notes deleted")
+    public void testDeleteByUserAndIdIn() throws Exception {
+        int deleted = noteRepository.deleteByUserAndIdIn(1, List.of(1, 2, 3));
+
+        assertEquals(2, deleted);
+        assertFalse(noteRepository.existsById(1));
+        assertTrue(noteRepository.existsById(2));
+        assertFalse(noteRepository.existsById(3));
+    }
+
+    @Test
+    @DisplayName("Test updateTitleByUserAndIdIn() - Content kept")
+    public void testUpdateTitleByUserAndIdIn() throws Exception {
+        String content = noteRepository.findById(4).orElseThrow().getContent();
+
+        int updated = noteRepository.updateTitleByUserAndIdIn(1, List.of(4, 5), "batch title");
+
+        assertEquals(1, updated);
+        Note note = noteRepository.findById(4).orElseThrow();
+        assertEquals("batch title", note.getTitle());
+        assertEquals(content, note.getContent());
+        assertNotEquals("batch title", noteRepository.findById(5).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Test save() - Long content stored compressed")
+    public void testSaveCompressedContent() throws Exception {
+        String content = "Un long contenu. ".repeat(1000);
+        Note note = noteRepository.findById(1).orElseThrow();
+        note.setContent(content, contentCompression);
+        noteRepository.saveAndFlush(note);
+        entityManager.clear();
+
+        assertNull(jdbcTemplate.queryForObject("SELECT content FROM note WHERE id = 1", String.class));
+        assertEquals(content, noteRepository.findById(1).orElseThrow().getContent());
+
+        try (Stream<NoteResponse> stream = noteRepository.streamNoteResponsesByUser(1)) {
+            assertEquals(content, stream.filter(response -> response.getId() == 1).findFirst().orElseThrow().getContent());
+        }
+    }
+
+    @Test
+    @DisplayName("Test save() - Very long content stored as chunks")
+    public void testSaveChunkedContent() throws Exception {
+        String content = "Un très long contenu. ".repeat(ContentChunking.CHUNK_SIZE / 10);
+        Note saved = noteRepository.findById(1).orElseThrow();
+        saved.setContent(content, contentCompression, contentChunking);
+        noteRepository.saveAndFlush(saved);
+        entityManager.clear();
+
+        assertNull(jdbcTemplate.queryForObject("SELECT content FROM note WHERE id = 1", String.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_chunk WHERE note_id = 1", Integer.class));
+        long size = content.getBytes(StandardCharsets.UTF_8).length;
+        Note note = noteRepository.findById(1).orElseThrow();
+        long version = note.getContentVersion();
+        assertEquals(size, noteRepository.findChunk(1, 0, version).length + noteRepository.findChunk(1, 1, version).length + noteRepository.findChunk(1, 2, version).length);
+        assertNull(noteRepository.findChunk(1, 3, version));
+
+        assertTrue(note.isChunked());
+        assertEquals(size, note.getContentSize());
+        assertEquals(content, note.getContent());
+
+        try (Stream<NoteResponse> stream = noteRepository.streamNoteResponsesByUser(1)) {
+            assertEquals(content, stream.filter(response -> response.getId() == 1).findFirst().orElseThrow().getContent());
+        }
+
+        noteRepository.updateContentByUserAndIdIn(1, List.of(1), contentCompression.store("court"), null);
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_chunk WHERE note_id = 1", Integer.class));
+        note = noteRepository.findById(1).orElseThrow();
+        assertFalse(note.isChunked());
+        assertEquals("court", note.getContent());
+    }
+
+    @Test
+    @DisplayName("Test findById() - Detached chunked note compared and printed without loading its content")
+    public void testDetachedChunkedNote() throws Exception {
+        Note saved = noteRepository.findById(1).orElseThrow();
+        saved.setContent("Un très long contenu. ".repeat(ContentChunking.CHUNK_SIZE / 10), contentCompression, contentChunking);
+        noteRepository.saveAndFlush(saved);
+        entityManager.clear();
+
+        Note note = noteRepository.findById(1).orElseThrow();
+        entityManager.clear();
+
+        assertEquals(noteRepository.findById(1).orElseThrow(), note);
+        assertNotEquals(noteRepository.findById(2).orElseThrow(), note);
+        assertEquals(Integer.valueOf(1).hashCode(), note.hashCode());
+        assertFalse(note.toString().contains("contenu"));
+    }
+
+    @Test
+    @DisplayName("Test updateChunkedContentByUserAndIdIn() - Chunks written to every note")
+    public void testUpdateChunkedContent() throws Exception {
+        String content = "Un très long contenu. ".repeat(ContentChunking.CHUNK_SIZE / 10);
+        List<byte[]> chunks = contentChunking.split(content);
+
+        // Note 2 is not a note of user 1
+        assertEquals(2, noteRepository.updateChunkedContentByUserAndIdIn(1, List.of(1, 2, 3), content, chunks));
+
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_chunk WHERE note_id IN (1, 3)", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_chunk WHERE note_id = 2", Integer.class));
+
+        for (int id : List.of(1, 3)) {
+            Note note = noteRepository.findById(id).orElseThrow();
+
+            assertTrue(note.isChunked());
+            assertEquals(content.getBytes(StandardCharsets.UTF_8).length, note.getContentSize());
+            assertEquals(content, note.getContent());
+            assertEquals(content.length(), note.getContentLength());
+        }
+    }
+
+    @Test
+    @DisplayName("Test findChunk() - Chunks rewritten since the version was read")
+    public void testFindChunkRewritten() throws Exception {
+        String content = "Un très long contenu. ".repeat(ContentChunking.CHUNK_SIZE / 10);
+        List<byte[]> chunks = contentChunking.split(content);
+        noteRepository.updateChunkedContentByUserAndIdIn(1, List.of(1), content, chunks);
+        long version = noteRepository.findById(1).orElseThrow().getContentVersion();
+
+        assertNotNull(noteRepository.findChunk(1, 0, version));
+
+        noteRepository.updateChunkedContentByUserAndIdIn(1, List.of(1), content.toUpperCase(), contentChunking.split(content.toUpperCase()));
+
+        assertNull(noteRepository.findChunk(1, 0, version));
+        assertNotNull(noteRepository.findChunk(1, 0, noteRepository.findById(1).orElseThrow().getContentVersion()));
+    }
+
+    @Test
+    @DisplayName("Test updateContentByUserAndIdIn() - Long content stored compressed")
+    public void testUpdateCompressedContent() throws Exception {
+        String content = "Un long contenu. ".repeat(1000);
+
+        noteRepository.updateContentByUserAndIdIn(1, List.of(3, 4), contentCompression.store(content), null);
+
+        assertNull(jdbcTemplate.queryForObject("SELECT content FROM note WHERE id = 3", String.class));
+        assertEquals(content, noteRepository.findById(4).orElseThrow().getContent());
+
+        noteRepository.updateContentByUserAndIdIn(1, List.of(3), contentCompression.store("court"), null);
+
+        assertEquals("court", jdbcTemplate.queryForObject("SELECT content FROM note WHERE id = 3", String.class));
+        assertEquals("court", noteRepository.findById(3).orElseThrow().getContent());
+    }
+
+    @Test
+    @DisplayName("Test streamNoteSummariesByUser() - Previews of plain and compressed contents")
+    public void testStreamNoteSummariesByUser() throws Exception {
+        String compressedContent = "Un long contenu. ".repeat(1000);
+        String plainContent = "b".repeat(300);
+        noteRepository.findById(1).orElseThrow().setContent(compressedContent, contentCompression);
+        noteRepository.findById(3).orElseThrow().setContent(plainContent, contentCompression);
+        noteRepository.flush();
+        entityManager.clear();
+
+        List<NoteSummaryResponse> summaries;
+
+        try (Stream<NoteSummaryResponse> stream = noteRepository.streamNoteSummariesByUser(1)) {
+            summaries = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(5, summaries.size());
+        assertEquals(new NoteSummaryResponse(1, "title 1", compressedContent.substring(0, StoredContent.PREVIEW_LENGTH), compressedContent.length()), summaries.get(0));
+        assertEquals(new NoteSummaryResponse(3, "title 3", plainContent.substring(0, StoredContent.PREVIEW_LENGTH), 300), summaries.get(1));
+        // Seeded without any stored length
+        assertEquals(new NoteSummaryResponse(4, "title 4", "content 4", 9), summaries.get(2));
+    }
+}
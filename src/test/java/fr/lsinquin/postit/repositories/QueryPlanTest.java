@@ -0,0 +1,91 @@
+package fr.lsinquin.postit.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the hot queries are served by indexes rather than table scans.
+ * The tests are run on a H2 in memory database which is migrated by Flyway.
+ * H2 creates an index for each foreign key, which PostgreSQL does not, and prefers it over note_user_id_id_idx : the plan of the SQL generated for findNotesByUser()
+ * is checked to be an index lookup on user_id, and note_user_id_id_idx to lead with user_id so that it serves this lookup on PostgreSQL.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=fr.lsinquin.postit.repositories.QueryPlanTest$RecordingStatementInspector")
+public class QueryPlanTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Test migrated indexes - Present")
+    public void testMigratedIndexesArePresent() {
+        @SuppressWarnings("unchecked")
+        List<String> indexes = entityManager.createNativeQuery("SELECT UPPER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES").getResultList();
+
+        assertTrue(indexes.contains("APP_USER_MAIL_IDX"), indexes.toString());
+        assertTrue(indexes.contains("NOTE_USER_ID_ID_IDX"), indexes.toString());
+    }
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Test
+    @DisplayName("Test note_user_id_id_idx - Leads with user_id")
+    public void testNoteUserIdIndexLeadsWithUserId() {
+        @SuppressWarnings("unchecked")
+        List<String> columns = entityManager.createNativeQuery("SELECT UPPER(COLUMN_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(INDEX_NAME) = 'NOTE_USER_ID_ID_IDX' ORDER BY ORDINAL_POSITION").getResultList();
+
+        assertEquals(List.of("USER_ID", "ID"), columns);
+    }
+
+    @Test
+    @DisplayName("Test findNotesByUser() plan - Index lookup on user_id")
+    public void testFindNotesByUserUsesIndex() {
+        RecordingStatementInspector.STATEMENTS.clear();
+        noteRepository.findNotesByUser(1);
+
+        String sql = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(statement -> statement.toUpperCase().contains(" FROM NOTE "))
+                .findFirst()
+                .orElseThrow();
+        String plan = explain(sql.replace("?", "1"));
+
+        assertTrue(plan.matches("(?s).*FROM \"PUBLIC\".\"NOTE\" \"\\w+\"\\s+/\\* PUBLIC\\.\\w+: USER_ID = 1 \\*/.*"), plan);
+        assertFalse(plan.contains("TABLESCAN"), plan);
+    }
+
+    @Test
+    @DisplayName("Test findByMail() plan - Uses app_user_mail_idx")
+    public void testFindByMailUsesIndex() {
+        String plan = explain("SELECT id, mail, password, enabled FROM app_user WHERE mail = 'test@mail.com'");
+
+        assertTrue(plan.contains("APP_USER_MAIL_IDX: MAIL = 'TEST@MAIL.COM'"), plan);
+    }
+
+    private String explain(String sql) {
+        return entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult().toString().toUpperCase();
+    }
+
+    /**
+     * Records the SQL generated by Hibernate, so that the plans checked are the ones of the queries really run.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+
+            return sql;
+        }
+    }
+}
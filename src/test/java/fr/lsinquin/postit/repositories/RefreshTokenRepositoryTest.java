@@ -0,0 +1,78 @@
+package fr.lsinquin.postit.repositories;
+
+import fr.lsinquin.postit.domain.entities.RefreshToken;
+import fr.lsinquin.postit.domain.entities.RevokedToken;
+import fr.lsinquin.postit.domain.entities.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RefreshTokenRepository and RevokedTokenRepository. Testing only query methods.
+ */
+@DataJpaTest
+public class RefreshTokenRepositoryTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Test findWithUserById() - Valid")
+    public void testFindWithUserById() {
+        refreshTokenRepository.saveAndFlush(new RefreshToken("a".repeat(64), entityManager.find(User.class, 1), Instant.now().plusSeconds(60)));
+        entityManager.clear();
+
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findWithUserById("a".repeat(64));
+
+        assertTrue(refreshToken.isPresent());
+        assertEquals("test@mail.com", refreshToken.get().getUser().getMail());
+    }
+
+    @Test
+    @DisplayName("Test deleteTokenById() - Token consumed once")
+    public void testDeleteTokenById() {
+        refreshTokenRepository.saveAndFlush(new RefreshToken("a".repeat(64), entityManager.find(User.class, 1), Instant.now().plusSeconds(60)));
+
+        assertEquals(1, refreshTokenRepository.deleteTokenById("a".repeat(64)));
+        assertEquals(0, refreshTokenRepository.deleteTokenById("a".repeat(64)));
+    }
+
+    @Test
+    @DisplayName("Test deleteExpiredByUser() - Only expired tokens of the user")
+    public void testDeleteExpiredByUser() {
+        Instant now = Instant.now();
+        refreshTokenRepository.saveAndFlush(new RefreshToken("a".repeat(64), entityManager.find(User.class, 1), now.minusSeconds(60)));
+        refreshTokenRepository.saveAndFlush(new RefreshToken("b".repeat(64), entityManager.find(User.class, 1), now.plusSeconds(60)));
+        refreshTokenRepository.saveAndFlush(new RefreshToken("c".repeat(64), entityManager.find(User.class, 2), now.minusSeconds(60)));
+
+        assertEquals(1, refreshTokenRepository.deleteExpiredByUser(1, now));
+        assertEquals(2, refreshTokenRepository.count());
+    }
+
+    @Test
+    @DisplayName("Test findUnexpired() and deleteExpired() - Revoked tokens")
+    public void testRevokedTokens() {
+        Instant now = Instant.now();
+        revokedTokenRepository.saveAndFlush(new RevokedToken("expired", now.minusSeconds(60)));
+        revokedTokenRepository.saveAndFlush(new RevokedToken("revoked", now.plusSeconds(60)));
+
+        List<RevokedToken> unexpired = revokedTokenRepository.findUnexpired(now);
+
+        assertEquals(List.of(new RevokedToken("revoked", now.plusSeconds(60))), unexpired);
+        assertEquals(1, revokedTokenRepository.deleteExpired(now));
+    }
+}
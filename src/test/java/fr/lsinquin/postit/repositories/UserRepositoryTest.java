@@ -5,8 +5,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +44,14 @@ public class UserRepositoryTest {
         assertTrue(opt.isEmpty());
     }
 
+    @Test
+    @DisplayName("Test findByMailIn() - Known mails only")
+    public void testFindByMailIn() throws Exception {
+        List<User> users = userRepository.findByMailIn(List.of(mail, notFoundMail, "test3@mail.com"));
+
+        assertEquals(Set.of(mail, "test3@mail.com"), users.stream().map(User::getMail).collect(Collectors.toSet()));
+    }
+
     @Test
     @DisplayName("Test existsByMail() - True")
     public void testExistsByMail() throws Exception {
@@ -51,4 +63,23 @@ public class UserRepositoryTest {
     public void testExistsByMailNotExist() throws Exception {
         assertFalse(userRepository.existsByMail(notFoundMail));
     }
+
+    @Test
+    @DisplayName("Test saveAndFlush() - Ids allocated by blocks")
+    public void testSaveAllocatedIds() throws Exception {
+        String password = "$2a$10$tQzwZTHJkkfdAg/fB/2G7.XwuefsSq5NFhE9PhFEd5qTBgC5wUOUe";
+        User first = userRepository.saveAndFlush(new User("new1@mail.com", password, true));
+        User second = userRepository.saveAndFlush(new User("new2@mail.com", password, true));
+
+        assertEquals(first.getId() + 1, second.getId());
+        assertEquals(first.getId(), userRepository.findByMail("new1@mail.com").orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("Test saveAndFlush() - Duplicate mail rejected")
+    public void testSaveDuplicateMail() throws Exception {
+        User duplicate = new User(mail, "$2a$10$tQzwZTHJkkfdAg/fB/2G7.XwuefsSq5NFhE9PhFEd5qTBgC5wUOUe", true);
+
+        assertThrows(DataIntegrityViolationException.class, () -> userRepository.saveAndFlush(duplicate));
+    }
 }
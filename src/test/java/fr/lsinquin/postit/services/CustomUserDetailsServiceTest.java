@@ -3,6 +3,7 @@ package fr.lsinquin.postit.services;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.repositories.UserRepository;
 import fr.lsinquin.postit.api.security.CustomUserDetailsService;
+import fr.lsinquin.postit.api.security.UserCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,6 +16,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,6 +33,9 @@ public class CustomUserDetailsServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
     private final String mail = "test@test.com";
 
     @Test
@@ -43,8 +49,21 @@ public class CustomUserDetailsServiceTest {
         assertEquals(userDetails.getAuthorities().size(), 1);
 
         verify(userRepository).findByMail(mail);
+        verify(userCache).put(any(User.class));
    }
 
+    @Test
+    @DisplayName("Test loadUserByUsername() - Cached user")
+    public void testLoadUserByUsernameCached() {
+        when(userCache.get(mail)).thenReturn(generateUser());
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(mail);
+
+        assertEquals(mail, userDetails.getUsername());
+
+        verify(userRepository, never()).findByMail(mail);
+    }
+
     @Test
     @DisplayName("Test loadUserByUsername() - No user")
     public void testLoadUserByUsernameNoUser() {
@@ -53,6 +72,7 @@ public class CustomUserDetailsServiceTest {
         assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(mail));
 
         verify(userRepository).findByMail(mail);
+        verify(userCache, never()).put(any(User.class));
     }
 
     private User generateUser() {
@@ -0,0 +1,90 @@
+package fr.lsinquin.postit.services;
+
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import fr.lsinquin.postit.repositories.NoteBlobRepository;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.ContentDedupProperties;
+import fr.lsinquin.postit.storage.DeflateContentCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for NoteBlobService
+ */
+public class NoteBlobServiceTest {
+
+    private final NoteBlobRepository noteBlobRepository = Mockito.mock(NoteBlobRepository.class);
+
+    private final ContentDedupProperties properties = new ContentDedupProperties();
+
+    private final ContentCompression contentCompression = new ContentCompression(ContentCompression.DEFAULT_THRESHOLD, new DeflateContentCodec(Deflater.BEST_SPEED));
+
+    private final NoteBlobService noteBlobService = new NoteBlobService(noteBlobRepository, properties, contentCompression, Mockito.mock(PlatformTransactionManager.class));
+
+    private final String content = "contenu partagé";
+
+    private final String hash = NoteBlob.hashOf(content);
+
+    @Test
+    @DisplayName("Test accepts() - Long contents when enabled")
+    public void testAccepts() {
+        properties.setMinLength(10);
+
+        assertFalse(noteBlobService.accepts(content));
+
+        properties.setEnabled(true);
+
+        assertTrue(noteBlobService.accepts(content));
+        assertFalse(noteBlobService.accepts("court"));
+        assertFalse(noteBlobService.accepts(null));
+    }
+
+    @Test
+    @DisplayName("Test acquire() - Existing blob")
+    public void testAcquireExistingBlob() {
+        NoteBlob blob = new NoteBlob(content, contentCompression);
+        when(noteBlobRepository.addReferences(hash, 2)).thenReturn(1);
+        when(noteBlobRepository.getOne(hash)).thenReturn(blob);
+
+        assertSame(blob, noteBlobService.acquire(content, 2));
+        verify(noteBlobRepository, never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Test acquire() - New blob inserted, even concurrently")
+    public void testAcquireNewBlob() {
+        when(noteBlobRepository.addReferences(hash, 1)).thenReturn(0, 0, 1);
+        when(noteBlobRepository.saveAndFlush(Mockito.any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        noteBlobService.acquire(content, 1);
+
+        verify(noteBlobRepository, times(2)).saveAndFlush(new NoteBlob(content, contentCompression));
+        verify(noteBlobRepository).getOne(hash);
+    }
+
+    @Test
+    @DisplayName("Test acquire() - Blob never acquired")
+    public void testAcquireFailed() {
+        assertThrows(IllegalStateException.class, () -> noteBlobService.acquire(content, 1));
+    }
+
+    @Test
+    @DisplayName("Test release() - Blob deleted without reference")
+    public void testRelease() {
+        noteBlobService.release(hash, 3);
+
+        verify(noteBlobRepository).removeReferences(hash, 3);
+        verify(noteBlobRepository).deleteUnreferenced(hash);
+    }
+}
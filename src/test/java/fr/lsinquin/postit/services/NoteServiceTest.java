@@ -1,25 +1,46 @@
 package fr.lsinquin.postit.services;
 
+import fr.lsinquin.postit.domain.dtos.NoteBatchResult;
+import fr.lsinquin.postit.domain.dtos.NoteBatchStatus;
+import fr.lsinquin.postit.domain.dtos.NoteResponse;
+import fr.lsinquin.postit.domain.dtos.NoteSummaryResponse;
 import fr.lsinquin.postit.domain.exceptions.NoteNotFoundException;
 import fr.lsinquin.postit.domain.exceptions.AuthorizationException;
 import fr.lsinquin.postit.domain.entities.Note;
+import fr.lsinquin.postit.domain.entities.NoteBlob;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.repositories.NoteRepository;
+import fr.lsinquin.postit.storage.ContentChunking;
+import fr.lsinquin.postit.storage.ContentCompression;
+import fr.lsinquin.postit.storage.DeflateContentCodec;
+import fr.lsinquin.postit.storage.StoredContent;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,6 +56,15 @@ public class NoteServiceTest {
     @Mock
     private NoteRepository noteRepository;
 
+    @Mock
+    private NoteBlobService noteBlobService;
+
+    @Spy
+    private ContentCompression contentCompression = new ContentCompression(ContentCompression.DEFAULT_THRESHOLD, new DeflateContentCodec(Deflater.BEST_SPEED));
+
+    @Spy
+    private ContentChunking contentChunking = new ContentChunking(Integer.MAX_VALUE);
+
     private final String title = "testing title";
     private final String content = "testing content";
 
@@ -64,6 +94,34 @@ public class NoteServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Test findNoteContent() - Plain content")
+    public void testFindNoteContent() throws Exception {
+        when(noteRepository.findById(51)).thenReturn(Optional.of(generateNote()));
+
+        Resource noteContent = noteService.findNoteContent(generateUser(), 51);
+
+        assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), noteContent.getInputStream().readAllBytes());
+    }
+
+    @Test
+    @DisplayName("Test findNoteContent() - Chunks read while the content is")
+    public void testFindNoteChunkedContent() throws Exception {
+        Note note = generateNote();
+        note.setContent("x".repeat(ContentChunking.CHUNK_SIZE + 10), contentCompression, new ContentChunking(10));
+        when(noteRepository.findById(51)).thenReturn(Optional.of(note));
+        when(noteRepository.findChunk(51, 1, note.getContentVersion())).thenReturn("x".repeat(10).getBytes(StandardCharsets.UTF_8));
+
+        Resource noteContent = noteService.findNoteContent(generateUser(), 51);
+
+        assertEquals(ContentChunking.CHUNK_SIZE + 10, noteContent.contentLength());
+        try (InputStream inputStream = noteContent.getInputStream()) {
+            assertEquals(ContentChunking.CHUNK_SIZE, inputStream.skip(ContentChunking.CHUNK_SIZE));
+            assertEquals("x".repeat(10), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        verify(noteRepository, never()).findChunk(eq(51), eq(0), Mockito.anyLong());
+    }
+
     @Test
     @DisplayName("Test findNote() - Not authorized")
     public void testFindNoteAuthorizationException() {
@@ -105,6 +163,43 @@ public class NoteServiceTest {
         verify(noteRepository).findNotesByUser(25);
     }
 
+    @Test
+    @DisplayName("Test forEachUserNote() - Valid")
+    public void testForEachUserNote() {
+        when(noteRepository.streamNoteResponsesByUser(25)).thenReturn(generateNotes().stream()
+                .map(note -> new NoteResponse(note.getId(), note.getTitle(), note.getContent())));
+
+        List<NoteResponse> notes = new ArrayList<>();
+        noteService.forEachUserNote(generateUser(), notes::add);
+
+        assertEquals(5, notes.size());
+        verify(noteRepository).streamNoteResponsesByUser(25);
+    }
+
+    @Test
+    @DisplayName("Test forEachUserNote() - Stream closed")
+    public void testForEachUserNoteClosesStream() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(noteRepository.streamNoteResponsesByUser(25)).thenReturn(Stream.<NoteResponse>empty().onClose(() -> closed.set(true)));
+
+        noteService.forEachUserNote(generateUser(), note -> fail());
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Test forEachUserNoteSummary() - Stream closed")
+    public void testForEachUserNoteSummary() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(noteRepository.streamNoteSummariesByUser(25)).thenReturn(Stream.of(new NoteSummaryResponse(51, title, content, content.length())).onClose(() -> closed.set(true)));
+
+        List<NoteSummaryResponse> summaries = new ArrayList<>();
+        noteService.forEachUserNoteSummary(generateUser(), summaries::add);
+
+        assertEquals(1, summaries.size());
+        assertTrue(closed.get());
+    }
+
     @Test
     @DisplayName("Test modifyNote() - Valid")
     public void testModifyNote() {
@@ -173,6 +268,143 @@ public class NoteServiceTest {
         verify(noteRepository).findById(51);
     }
 
+    @Test
+    @DisplayName("Test patchNote() - Title only")
+    public void testPatchNote() {
+        when(noteRepository.findById(51)).thenReturn(Optional.of(generateNote()));
+        when(noteRepository.saveAndFlush(Mockito.any(Note.class))).then(invocation -> invocation.getArgument(0));
+
+        Note patchedNote = noteService.patchNote(generateUser(), 51, "new title", null);
+
+        assertEquals("new title", patchedNote.getTitle());
+        assertEquals(content, patchedNote.getContent());
+    }
+
+    @Test
+    @DisplayName("Test patchNote() - Not authorized")
+    public void testPatchNoteAuthorizationException() {
+        when(noteRepository.findById(51)).thenReturn(Optional.of(generateNote()));
+
+        assertThrows(AuthorizationException.class, () -> noteService.patchNote(generateUser(15), 51, "new title", null));
+        verify(noteRepository, never()).saveAndFlush(Mockito.any(Note.class));
+    }
+
+    @Test
+    @DisplayName("Test deleteNotes() - Valid")
+    public void testDeleteNotes() {
+        when(noteRepository.findIdsByUserAndIdIn(25, Set.of(51, 52, 53))).thenReturn(List.of(53, 51));
+
+        List<NoteBatchResult> results = noteService.deleteNotes(generateUser(), List.of(51, 52, 51, 53));
+
+        assertEquals(List.of(
+                new NoteBatchResult(51, NoteBatchStatus.DELETED),
+                new NoteBatchResult(52, NoteBatchStatus.NOT_FOUND),
+                new NoteBatchResult(53, NoteBatchStatus.DELETED)), results);
+        verify(noteRepository).deleteByUserAndIdIn(25, Set.of(51, 53));
+    }
+
+    @Test
+    @DisplayName("Test deleteNotes() - No user's note")
+    public void testDeleteNotesNotFound() {
+        when(noteRepository.findIdsByUserAndIdIn(25, Set.of(51))).thenReturn(Collections.emptyList());
+
+        List<NoteBatchResult> results = noteService.deleteNotes(generateUser(), List.of(51));
+
+        assertEquals(List.of(new NoteBatchResult(51, NoteBatchStatus.NOT_FOUND)), results);
+        verify(noteRepository, never()).deleteByUserAndIdIn(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Test modifyNotes() - Title and content")
+    public void testModifyNotes() {
+        when(noteRepository.findIdsByUserAndIdIn(25, Set.of(51, 52))).thenReturn(List.of(51));
+
+        List<NoteBatchResult> results = noteService.modifyNotes(generateUser(), List.of(51, 52), title, content);
+
+        assertEquals(List.of(
+                new NoteBatchResult(51, NoteBatchStatus.UPDATED),
+                new NoteBatchResult(52, NoteBatchStatus.NOT_FOUND)), results);
+        verify(noteRepository).updateByUserAndIdIn(25, Set.of(51), title, StoredContent.of(content, null), null);
+    }
+
+    @Test
+    @DisplayName("Test modifyNotes() - Title only")
+    public void testModifyNotesTitle() {
+        when(noteRepository.findIdsByUserAndIdIn(25, Set.of(51))).thenReturn(List.of(51));
+
+        noteService.modifyNotes(generateUser(), List.of(51), title, null);
+
+        verify(noteRepository).updateTitleByUserAndIdIn(25, Set.of(51), title);
+        verify(noteRepository, never()).updateByUserAndIdIn(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Test modifyNote() - Shared content replaced")
+    public void testModifyNoteSharedContent() {
+        NoteBlob previousBlob = new NoteBlob("previous content", contentCompression);
+        NoteBlob blob = new NoteBlob(content, contentCompression);
+        Note note = generateNote();
+        note.setBlob(previousBlob, "previous content");
+        when(noteRepository.findById(51)).thenReturn(Optional.of(note));
+        when(noteRepository.saveAndFlush(note)).thenReturn(note);
+        when(noteBlobService.accepts(content)).thenReturn(true);
+        when(noteBlobService.acquire(content, 1)).thenReturn(blob);
+
+        Note modifiedNote = noteService.modifyNote(generateUser(), 51, title, content);
+
+        assertSame(blob, modifiedNote.getBlob());
+        assertEquals(content, modifiedNote.getContent());
+        assertNull(modifiedNote.getCompressedContent());
+        verify(noteBlobService).release(previousBlob.getHash(), 1);
+    }
+
+    @Test
+    @DisplayName("Test deleteNote() - Shared content released")
+    public void testDeleteNoteSharedContent() {
+        NoteBlob blob = new NoteBlob(content, contentCompression);
+        Note note = generateNote();
+        note.setBlob(blob, content);
+        when(noteRepository.findById(51)).thenReturn(Optional.of(note));
+
+        noteService.deleteNote(generateUser(), 51);
+
+        verify(noteRepository).deleteById(51);
+        verify(noteBlobService).release(blob.getHash(), 1);
+    }
+
+    @Test
+    @DisplayName("Test modifyNotes() - Chunked content split once")
+    public void testModifyNotesChunkedContent() {
+        String chunkedContent = "x".repeat(ContentChunking.CHUNK_SIZE + 10);
+        List<Object[]> previousBlobs = Collections.singletonList(new Object[] { "previous", 1L });
+        when(noteRepository.findIdsByUserAndIdIn(25, Set.of(51, 52))).thenReturn(List.of(51, 52));
+        when(noteRepository.countBlobReferencesByUserAndIdIn(25, Set.of(51, 52))).thenReturn(previousBlobs);
+        NoteService chunkingNoteService = new NoteService(noteRepository, noteBlobService, contentCompression, new ContentChunking(10));
+
+        chunkingNoteService.modifyNotes(generateUser(), List.of(51, 52), title, chunkedContent);
+
+        verify(noteRepository).updateTitleByUserAndIdIn(25, Set.of(51, 52), title);
+        verify(noteRepository).updateChunkedContentByUserAndIdIn(eq(25), eq(Set.of(51, 52)), eq(chunkedContent), argThat(chunks -> chunks.size() == 2));
+        verify(noteRepository, never()).findAllById(Mockito.any());
+        verify(noteBlobService).release("previous", 1);
+    }
+
+    @Test
+    @DisplayName("Test modifyNotes() - Shared content")
+    public void testModifyNotesSharedContent() {
+        NoteBlob blob = new NoteBlob(content, contentCompression);
+        List<Object[]> previousBlobs = Collections.singletonList(new Object[] { "previous", 2L });
+        when(noteRepository.findIdsByUserAndIdIn(25, Set.of(51, 52, 53))).thenReturn(List.of(51, 52, 53));
+        when(noteRepository.countBlobReferencesByUserAndIdIn(25, Set.of(51, 52, 53))).thenReturn(previousBlobs);
+        when(noteBlobService.accepts(content)).thenReturn(true);
+        when(noteBlobService.acquire(content, 3)).thenReturn(blob);
+
+        noteService.modifyNotes(generateUser(), List.of(51, 52, 53), null, content);
+
+        verify(noteRepository).updateContentByUserAndIdIn(25, Set.of(51, 52, 53), StoredContent.external(content), blob);
+        verify(noteBlobService).release("previous", 2);
+    }
+
     private User generateUser(Integer id) {
         return new User(id, "valid@mail.com", "secret123", true);
     }
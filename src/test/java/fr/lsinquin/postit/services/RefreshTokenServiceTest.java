@@ -0,0 +1,102 @@
+package fr.lsinquin.postit.services;
+
+import fr.lsinquin.postit.api.security.JwtProperties;
+import fr.lsinquin.postit.domain.entities.RefreshToken;
+import fr.lsinquin.postit.domain.entities.User;
+import fr.lsinquin.postit.repositories.RefreshTokenRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RefreshTokenService
+ */
+public class RefreshTokenServiceTest {
+
+    private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+
+    private final RefreshTokenService refreshTokenService;
+
+    private final User user = new User(1, "test@mail.com", "jadjpazjdpzap", true);
+
+    public RefreshTokenServiceTest() {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setRefreshTokenTtl(Duration.ofDays(1));
+
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, jwtProperties);
+    }
+
+    @Test
+    @DisplayName("Test createRefreshToken() - Only the hash is stored")
+    public void testCreateRefreshToken() {
+        String token = refreshTokenService.createRefreshToken(user);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        verify(refreshTokenRepository).deleteExpiredByUser(eq(1), any(Instant.class));
+
+        assertEquals(43, token.length());
+        assertEquals(64, saved.getValue().getId().length());
+        assertNotEquals(token, saved.getValue().getId());
+        assertEquals(user, saved.getValue().getUser());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(Instant.now().plus(Duration.ofHours(23))));
+        assertNotEquals(token, refreshTokenService.createRefreshToken(user));
+    }
+
+    @Test
+    @DisplayName("Test rotate() - Valid")
+    public void testRotate() {
+        String token = refreshTokenService.createRefreshToken(user);
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        String id = saved.getValue().getId();
+
+        when(refreshTokenRepository.findWithUserById(id)).thenReturn(Optional.of(saved.getValue()));
+        when(refreshTokenRepository.deleteTokenById(id)).thenReturn(1);
+
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(token);
+
+        assertTrue(rotation.isPresent());
+        assertEquals(user, rotation.get().getUser());
+        assertNotEquals(token, rotation.get().getRefreshToken());
+        verify(refreshTokenRepository).deleteTokenById(id);
+    }
+
+    @Test
+    @DisplayName("Test rotate() - Token already used")
+    public void testRotateAlreadyUsed() {
+        when(refreshTokenRepository.findWithUserById(anyString())).thenReturn(Optional.of(new RefreshToken("id", user, Instant.now().plusSeconds(60))));
+        when(refreshTokenRepository.deleteTokenById(anyString())).thenReturn(0);
+
+        assertTrue(refreshTokenService.rotate("token").isEmpty());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    @DisplayName("Test rotate() - Unknown token")
+    public void testRotateUnknown() {
+        when(refreshTokenRepository.findWithUserById(anyString())).thenReturn(Optional.empty());
+
+        assertTrue(refreshTokenService.rotate("token").isEmpty());
+        verify(refreshTokenRepository, never()).deleteTokenById(anyString());
+    }
+
+    @Test
+    @DisplayName("Test rotate() - Expired token")
+    public void testRotateExpired() {
+        when(refreshTokenRepository.findWithUserById(anyString())).thenReturn(Optional.of(new RefreshToken("id", user, Instant.now().minusSeconds(1))));
+        when(refreshTokenRepository.deleteTokenById(anyString())).thenReturn(1);
+
+        assertTrue(refreshTokenService.rotate("token").isEmpty());
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+}
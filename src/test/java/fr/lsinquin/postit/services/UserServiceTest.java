@@ -3,6 +3,7 @@ package fr.lsinquin.postit.services;
 import fr.lsinquin.postit.domain.exceptions.ExistingUserException;
 import fr.lsinquin.postit.domain.entities.User;
 import fr.lsinquin.postit.repositories.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,8 +11,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLException;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -37,7 +41,6 @@ public class UserServiceTest {
     @Test
     @DisplayName("Test createUser() - Valid")
     public void testCreateUser() {
-        when(userRepository.existsByMail(mail)).thenReturn(false);
         when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
         when(userRepository.saveAndFlush(Mockito.any(User.class))).thenReturn(generateUser());
 
@@ -47,7 +50,6 @@ public class UserServiceTest {
         assertEquals(mail, savedUser.getMail());
         assertEquals(hashedPassword, savedUser.getPassword());
 
-        verify(userRepository).existsByMail(mail);
         verify(passwordEncoder).encode(password);
         verify(userRepository).saveAndFlush(Mockito.any(User.class));
     }
@@ -55,11 +57,28 @@ public class UserServiceTest {
     @Test
     @DisplayName("Test createUser() - User already exists")
     public void testCreateExistingUser() {
-        when(userRepository.existsByMail(mail)).thenReturn(true);
+        when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
+        when(userRepository.saveAndFlush(Mockito.any(User.class))).thenThrow(constraintViolation("PUBLIC.APP_USER_MAIL_IDX ON PUBLIC.APP_USER(MAIL)"));
 
         assertThrows(ExistingUserException.class, () -> userService.createUser(mail, password));
 
-        verify(userRepository).existsByMail(mail);
+        verify(userRepository).saveAndFlush(Mockito.any(User.class));
+        verify(userRepository, never()).existsByMail(mail);
+    }
+
+    @Test
+    @DisplayName("Test createUser() - Other constraint violation")
+    public void testCreateUserOtherConstraintViolation() {
+        when(passwordEncoder.encode(password)).thenReturn(hashedPassword);
+        when(userRepository.saveAndFlush(Mockito.any(User.class))).thenThrow(constraintViolation("app_user_pkey"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(mail, password));
+    }
+
+    private DataIntegrityViolationException constraintViolation(String constraintName) {
+        var cause = new ConstraintViolationException("could not execute statement", new SQLException(), constraintName);
+
+        return new DataIntegrityViolationException("could not execute statement", cause);
     }
 
     private User generateUser() {
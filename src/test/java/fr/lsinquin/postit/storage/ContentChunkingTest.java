@@ -0,0 +1,102 @@
+package fr.lsinquin.postit.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ContentChunking and ChunkedContentResource
+ */
+public class ContentChunkingTest {
+
+    private final ContentChunking contentChunking = new ContentChunking(100);
+
+    @Test
+    @DisplayName("Test split() - Short content not chunked")
+    public void testShortContent() {
+        assertNull(contentChunking.split("x".repeat(100)));
+        assertNull(contentChunking.split(null));
+    }
+
+    @Test
+    @DisplayName("Test split() - Characters split between chunks")
+    public void testSplitAndJoin() {
+        // 3 bytes per character : the chunks end in the middle of characters
+        String content = "€".repeat(ContentChunking.CHUNK_SIZE / 2);
+
+        List<byte[]> chunks = contentChunking.split(content);
+
+        assertEquals(2, chunks.size());
+        assertEquals(ContentChunking.CHUNK_SIZE, chunks.get(0).length);
+        assertEquals(ContentChunking.CHUNK_SIZE / 2L * 3, ContentChunking.size(chunks));
+        assertEquals(content, ContentChunking.join(chunks));
+    }
+
+    @Test
+    @DisplayName("Test ChunkedContentResource - Only the chunks of the range read")
+    public void testRangeRead() throws IOException {
+        String content = "0123456789".repeat(ContentChunking.CHUNK_SIZE / 4);
+        List<byte[]> chunks = contentChunking.split(content);
+        List<Integer> readChunks = new ArrayList<>();
+        ChunkedContentResource resource = new ChunkedContentResource(ContentChunking.size(chunks), seq -> {
+            readChunks.add(seq);
+            return chunks.get(seq);
+        }, "content");
+        long start = ContentChunking.CHUNK_SIZE * 2L - 5;
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            StreamUtils.copyRange(inputStream, range, start, start + 9);
+        }
+
+        assertEquals(content.substring((int) start, (int) start + 10), range.toString(StandardCharsets.UTF_8));
+        assertEquals(List.of(1, 2), readChunks);
+        assertEquals(content.length(), resource.contentLength());
+    }
+
+    @Test
+    @DisplayName("Test ChunkedContentResource - Whole content read")
+    public void testWholeRead() throws IOException {
+        String content = "Un long contenu. ".repeat(ContentChunking.CHUNK_SIZE / 10);
+        List<byte[]> chunks = contentChunking.split(content);
+        ChunkedContentResource resource = new ChunkedContentResource(ContentChunking.size(chunks), chunks::get, "content");
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            assertEquals(content, StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Test ChunkedContentResource - Missing chunk")
+    public void testMissingChunk() throws IOException {
+        byte[] chunk = new byte[ContentChunking.CHUNK_SIZE];
+        Arrays.fill(chunk, (byte) 'x');
+        ChunkedContentResource resource = new ChunkedContentResource(ContentChunking.CHUNK_SIZE + 10L, seq -> seq == 0 ? chunk : null, "content");
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            assertThrows(IOException.class, () -> StreamUtils.copyToByteArray(inputStream));
+        }
+    }
+
+    @Test
+    @DisplayName("Test ChunkedContentResource - Chunk of another length")
+    public void testChunkOfAnotherLength() throws IOException {
+        byte[] chunk = new byte[ContentChunking.CHUNK_SIZE];
+        byte[] rewrittenChunk = new byte[20];
+        ChunkedContentResource resource = new ChunkedContentResource(ContentChunking.CHUNK_SIZE + 10L, seq -> seq == 0 ? chunk : rewrittenChunk, "content");
+
+        try (InputStream inputStream = resource.getInputStream()) {
+            assertThrows(IOException.class, () -> StreamUtils.copyToByteArray(inputStream));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package fr.lsinquin.postit.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ContentCompression
+ */
+public class ContentCompressionTest {
+
+    private final ContentCompression contentCompression = new ContentCompression(100, new DeflateContentCodec(6));
+
+    @Test
+    @DisplayName("Test compress() - Short content kept plain")
+    public void testShortContent() {
+        assertNull(contentCompression.compress("a".repeat(100)));
+        assertNull(contentCompression.compress(null));
+    }
+
+    @Test
+    @DisplayName("Test compress() - Long content compressed and decompressed")
+    public void testLongContent() {
+        String content = "Une note très longue, avec des accents et des répétitions. ".repeat(100);
+
+        byte[] compressed = contentCompression.compress(content);
+
+        assertNotNull(compressed);
+        assertEquals(DeflateContentCodec.ID, compressed[0]);
+        assertTrue(compressed.length < content.length() / 10, String.valueOf(compressed.length));
+        assertEquals(content, ContentCompression.decompress(compressed));
+    }
+
+    @Test
+    @DisplayName("Test compress() - Incompressible content kept plain")
+    public void testIncompressibleContent() {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+
+        for (int i = 0; i < 101; i++) {
+            content.append((char) (' ' + random.nextInt(95)));
+        }
+
+        assertNull(contentCompression.compress(content.toString()));
+    }
+
+    @Test
+    @DisplayName("Test decompress() - Unknown codec")
+    public void testUnknownCodec() {
+        byte[] compressed = contentCompression.compress("a".repeat(1000));
+        compressed[0] = 99;
+
+        assertThrows(IllegalStateException.class, () -> ContentCompression.decompress(compressed));
+    }
+
+    @Test
+    @DisplayName("Test decompress() - Corrupted content")
+    public void testCorruptedContent() {
+        byte[] compressed = contentCompression.compress("a".repeat(1000));
+
+        assertThrows(IllegalStateException.class, () -> ContentCompression.decompress(Arrays.copyOf(compressed, compressed.length - 2)));
+    }
+}
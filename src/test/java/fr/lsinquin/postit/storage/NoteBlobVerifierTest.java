@@ -0,0 +1,112 @@
+package fr.lsinquin.postit.storage;
+
+import fr.lsinquin.postit.domain.entities.NoteBlob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NoteBlobVerifier.
+ * The note and note_blob tables are created on an embedded H2 database by their Flyway migrations.
+ */
+public class NoteBlobVerifierTest {
+
+    private final ContentCompression contentCompression = new ContentCompression(100, new DeflateContentCodec(6));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private NoteBlobVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/migration/V1__init_schema.sql")
+                .addScript("db/migration/V5__compressed_note_content.sql")
+                .addScript("db/migration/V6__note_content_summary.sql")
+                .addScript("db/migration/V7__note_blobs.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+
+        jdbcTemplate.update("INSERT INTO app_user (id, mail, password) VALUES (1, 'test@mail.com', 'secret')");
+
+        ContentDedupProperties properties = new ContentDedupProperties();
+        properties.setVerifyBatchSize(2);
+        verifier = new NoteBlobVerifier(jdbcTemplate, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test verify() - Reference counts repaired")
+    public void testReferenceCountsRepaired() {
+        String shared = insertBlob("Un contenu partagé", 5);
+        String orphan = insertBlob("Un contenu oublié", 1);
+        insertNote(1, shared);
+        insertNote(2, shared);
+        insertNote(3, null);
+
+        verifier.verify();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT ref_count FROM note_blob WHERE hash = ?", Integer.class, shared));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_blob WHERE hash = ?", Integer.class, orphan));
+        assertEquals(2, meterRegistry.get("postit.content-dedup.repaired").counter().count());
+        assertEquals(1, meterRegistry.get("postit.content-dedup.blobs").gauge().value());
+        assertEquals(2, meterRegistry.get("postit.content-dedup.references").gauge().value());
+        assertEquals(2, meterRegistry.get("postit.content-dedup.ratio").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test verify() - Corrupted blobs found by batches")
+    public void testCorruptedBlobs() {
+        String longContent = "Un long contenu répété. ".repeat(20);
+        String[] hashes = {
+                insertBlob("premier contenu", 1),
+                insertBlob(longContent, 1),
+                insertBlob("troisième contenu", 1)
+        };
+        for (int i = 0; i < hashes.length; i++) {
+            insertNote(i + 1, hashes[i]);
+        }
+        jdbcTemplate.update("UPDATE note_blob SET content = 'contenu modifié' WHERE hash = ?", hashes[2]);
+
+        // Batches of 2 blobs : the 3 blobs are verified by 2 runs, then the third run starts again from the first blobs
+        int corrupted = verifier.verify() + verifier.verify();
+        assertEquals(1, corrupted);
+        assertEquals(1, meterRegistry.get("postit.content-dedup.corrupted").counter().count());
+
+        jdbcTemplate.update("UPDATE note_blob SET content = 'troisième contenu' WHERE hash = ?", hashes[2]);
+        assertEquals(0, verifier.verify() + verifier.verify());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM note_blob WHERE compressed_content IS NOT NULL", Integer.class));
+    }
+
+    private String insertBlob(String content, int refCount) {
+        String hash = NoteBlob.hashOf(content);
+        byte[] compressed = contentCompression.compress(content);
+
+        jdbcTemplate.update("INSERT INTO note_blob (hash, content, compressed_content, ref_count) VALUES (?, ?, ?, ?)",
+                hash, compressed == null ? content : null, compressed, refCount);
+
+        return hash;
+    }
+
+    private void insertNote(int id, String blobHash) {
+        jdbcTemplate.update("INSERT INTO note (id, title, content, blob_hash, user_id) VALUES (?, 'title', ?, ?, 1)", id, blobHash == null ? "contenu" : null, blobHash);
+    }
+}
@@ -0,0 +1,98 @@
+package fr.lsinquin.postit.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NoteContentBackfill.
+ * The note table is created on an embedded H2 database by its Flyway migrations.
+ */
+public class NoteContentBackfillTest {
+
+    private final ContentCompression contentCompression = new ContentCompression(100, new DeflateContentCodec(6));
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/migration/V1__init_schema.sql")
+                .addScript("db/migration/V5__compressed_note_content.sql")
+                .addScript("db/migration/V6__note_content_summary.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+
+        jdbcTemplate.update("INSERT INTO app_user (id, mail, password) VALUES (1, 'test@mail.com', 'secret')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test backfill() - Long contents compressed by batches")
+    public void testBackfill() {
+        String longContent = "Un contenu répété. ".repeat(50);
+
+        for (int id = 1; id <= 5; id++) {
+            insertNote(id, id % 2 == 0 ? "court" : longContent + id);
+        }
+
+        int compressed = new NoteContentBackfill(jdbcTemplate, contentCompression, 2).backfill();
+
+        assertEquals(3, compressed);
+
+        Map<String, Object> longNote = jdbcTemplate.queryForMap("SELECT content, compressed_content, content_length, content_preview FROM note WHERE id = 5");
+        assertNull(longNote.get("content"));
+        assertEquals(longContent + 5, ContentCompression.decompress((byte[]) longNote.get("compressed_content")));
+        assertEquals(longContent.length() + 1, longNote.get("content_length"));
+        assertEquals((longContent + 5).substring(0, StoredContent.PREVIEW_LENGTH), longNote.get("content_preview"));
+
+        Map<String, Object> shortNote = jdbcTemplate.queryForMap("SELECT content, compressed_content FROM note WHERE id = 4");
+        assertEquals("court", shortNote.get("content"));
+        assertNull(shortNote.get("compressed_content"));
+    }
+
+    @Test
+    @DisplayName("Test backfill() - Run again")
+    public void testBackfillRunAgain() {
+        insertNote(1, "a".repeat(1000));
+
+        NoteContentBackfill backfill = new NoteContentBackfill(jdbcTemplate, contentCompression, 10);
+
+        assertEquals(1, backfill.backfill());
+        assertEquals(0, backfill.backfill());
+    }
+
+    @Test
+    @DisplayName("Test backfill() - Summaries of compressed contents")
+    public void testBackfillSummaries() {
+        String content = "a".repeat(1000);
+        jdbcTemplate.update("INSERT INTO note (id, title, compressed_content, user_id) VALUES (1, 'title', ?, 1)", (Object) contentCompression.compress(content));
+
+        assertEquals(0, new NoteContentBackfill(jdbcTemplate, contentCompression, 10).backfill());
+
+        Map<String, Object> note = jdbcTemplate.queryForMap("SELECT content_length, content_preview FROM note WHERE id = 1");
+        assertEquals(1000, note.get("content_length"));
+        assertEquals(content.substring(0, StoredContent.PREVIEW_LENGTH), note.get("content_preview"));
+    }
+
+    private void insertNote(int id, String content) {
+        jdbcTemplate.update("INSERT INTO note (id, title, content, user_id) VALUES (?, 'title', ?, 1)", id, content);
+    }
+}
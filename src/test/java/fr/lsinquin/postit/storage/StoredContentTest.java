@@ -0,0 +1,44 @@
+package fr.lsinquin.postit.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StoredContent
+ */
+public class StoredContentTest {
+
+    @Test
+    @DisplayName("Test of() - Plain content")
+    public void testPlainContent() {
+        StoredContent storedContent = StoredContent.of("court", null);
+
+        assertEquals("court", storedContent.getContent());
+        assertNull(storedContent.getCompressedContent());
+        assertEquals(5, storedContent.getLength());
+        assertNull(storedContent.getPreview());
+    }
+
+    @Test
+    @DisplayName("Test of() - Compressed content preview counted in code points")
+    public void testCompressedContentPreview() {
+        String content = "😀".repeat(300);
+
+        StoredContent storedContent = StoredContent.of(content, new byte[] { 1 });
+
+        assertNull(storedContent.getContent());
+        assertEquals(300, storedContent.getLength());
+        assertEquals("😀".repeat(StoredContent.PREVIEW_LENGTH), storedContent.getPreview());
+    }
+
+    @Test
+    @DisplayName("Test of() - No content")
+    public void testNullContent() {
+        StoredContent storedContent = StoredContent.of(null, null);
+
+        assertNull(storedContent.getContent());
+        assertNull(storedContent.getLength());
+    }
+}